@@ -1,5 +1,7 @@
 package io.oreto.latte;
 
+import io.oreto.latte.str.Interner;
+
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -115,6 +117,32 @@ public class IO {
         return resourceLines(IO.class.getClassLoader(), path, resourcePath);
     }
 
+    /**
+     * load all lines from a classpath resource from the classpath, replacing each line with its canonical String
+     * @param interner The interner used to deduplicate the lines
+     * @param classLoader The classloader to use
+     * @param path Path to the resource
+     * @param resourcePath Any remaining path to the resource
+     * @return An Optional List of strings if the resource exists, Optional.empty otherwise
+     */
+    public static Optional<List<String>> resourceLines(Interner interner
+            , ClassLoader classLoader, String path, String... resourcePath) {
+        return loadResource(classLoader, path, resourcePath)
+                .map(is -> new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))
+                        .lines().map(interner::intern).collect(Collectors.toList()));
+    }
+
+    /**
+     * load all lines from a classpath resource from the classpath, replacing each line with its canonical String
+     * @param interner The interner used to deduplicate the lines
+     * @param path Path to the resource
+     * @param resourcePath Any remaining path to the resource
+     * @return An Optional List of strings if the resource exists, Optional.empty otherwise
+     */
+    public static Optional<List<String>> resourceLines(Interner interner, String path, String... resourcePath) {
+        return resourceLines(interner, IO.class.getClassLoader(), path, resourcePath);
+    }
+
     /**
      * load all text from a classpath resource from the classpath
      * @param classLoader The classloader to use
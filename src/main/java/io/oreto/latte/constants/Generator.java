@@ -1,6 +1,7 @@
 package io.oreto.latte.constants;
 
 import io.oreto.latte.IO;
+import io.oreto.latte.str.Escape;
 import io.oreto.latte.str.Noun;
 import io.oreto.latte.str.Str;
 import io.oreto.latte.str.Word;
@@ -286,7 +287,9 @@ public class Generator {
             if (type == ConstantType.comment) {
                 str.tab().add(values.get(name)).br();
             } else {
-                String value = type == ConstantType.String ? Str.quote(values.get(name)) : values.get(name);
+                String value = type == ConstantType.String
+                        ? Str.quote(values.get(name), Escape.JAVA)
+                        : values.get(name);
                 String L = type == ConstantType.Long ? "L" : "";
                 str.tab().add(String.format("%s %s %s = %s%s;", PUBLIC_STATIC_FINAL, type, name, value, L)).br();
             }
@@ -0,0 +1,344 @@
+package io.oreto.latte.obj;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reusable getter and setter of one class property backed by method handles.
+ * Public fields are read and written directly, otherwise the getter and setter methods are used,
+ * and a private field without them is reached directly when the runtime allows it.
+ * The int, long, double and boolean variants do not box when the property has that primitive type.
+ */
+public final class Accessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SET = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+    private final Class<?> type;
+    // typed as (Object)Object and (Object, Object)void
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    // typed with the exact field type, (Object)T and (Object, T)void
+    private final MethodHandle typedGetter;
+    private final MethodHandle typedSetter;
+
+    Accessor(ClassMeta.Property property) {
+        this.field = property.field;
+        this.type = field.getType();
+        boolean isFinal = Modifier.isFinal(field.getModifiers());
+
+        MethodHandle get = null;
+        if (property.isPublic)
+            get = fieldGetter(field);
+        if (get == null && property.getter != null)
+            get = method(property.getter);
+        if (get == null)
+            get = fieldGetter(field);
+
+        MethodHandle set = null;
+        if (property.isPublic && !isFinal)
+            set = fieldSetter(field);
+        if (set == null && property.setter != null)
+            set = method(property.setter);
+        if (set == null && !isFinal)
+            set = fieldSetter(field);
+
+        this.typedGetter = adapt(get, MethodType.methodType(type, Object.class));
+        this.typedSetter = adapt(set, MethodType.methodType(void.class, Object.class, type));
+        this.getter = typedGetter == null ? null : typedGetter.asType(GET);
+        this.setter = typedSetter == null ? null : typedSetter.asType(SET);
+    }
+
+    private static MethodHandle adapt(MethodHandle handle, MethodType type) {
+        try {
+            return handle == null ? null : handle.asType(type);
+        } catch (WrongMethodTypeException e) {
+            return null;
+        }
+    }
+
+    private static boolean accessible(AccessibleObject member) {
+        try {
+            member.setAccessible(true);
+            return true;
+        } catch (RuntimeException e) {
+            // the module system refuses deep reflection into this package
+            return false;
+        }
+    }
+
+    private static MethodHandle method(Method method) {
+        try {
+            return instance(LOOKUP.unreflect(method), method.getModifiers());
+        } catch (IllegalAccessException e) {
+            try {
+                return accessible(method) ? instance(LOOKUP.unreflect(method), method.getModifiers()) : null;
+            } catch (IllegalAccessException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static MethodHandle fieldGetter(Field field) {
+        try {
+            if (Modifier.isPublic(field.getModifiers()) || accessible(field))
+                return instance(LOOKUP.unreflectGetter(field), field.getModifiers());
+        } catch (IllegalAccessException ignored) { }
+        return null;
+    }
+
+    private static MethodHandle fieldSetter(Field field) {
+        try {
+            if (Modifier.isPublic(field.getModifiers()) || accessible(field))
+                return instance(LOOKUP.unreflectSetter(field), field.getModifiers());
+        } catch (IllegalAccessException ignored) { }
+        return null;
+    }
+
+    // static members ignore the target object, give them a leading target parameter like instance members
+    private static MethodHandle instance(MethodHandle handle, int modifiers) {
+        return Modifier.isStatic(modifiers) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    /**
+     * @return The name of the property
+     */
+    public String name() {
+        return field.getName();
+    }
+
+    /**
+     * @return The type of the property
+     */
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * @return The field of the property
+     */
+    public Field field() {
+        return field;
+    }
+
+    /**
+     * @return True if the property can be read
+     */
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    /**
+     * @return True if the property can be written
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    private MethodHandle getter() throws NoSuchMethodException {
+        if (getter == null)
+            throw new NoSuchMethodException(String.format("No getters found for %s", field.getName()));
+        return getter;
+    }
+
+    private MethodHandle setter() throws NoSuchMethodException {
+        if (setter == null)
+            throw new NoSuchMethodException(String.format("No setters found for %s", field.getName()));
+        return setter;
+    }
+
+    private static ReflectiveOperationException failure(Throwable t) {
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new InvocationTargetException(t);
+    }
+
+    /**
+     * Get the property value of the object
+     * @param o The object to read
+     * @return The property value
+     * @throws ReflectiveOperationException If the property cannot be read or the getter throws a checked exception
+     */
+    public Object get(Object o) throws ReflectiveOperationException {
+        MethodHandle handle = getter();
+        try {
+            return handle.invokeExact(o);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Set the property value of the object
+     * @param o The object to write
+     * @param value The new property value
+     * @throws ReflectiveOperationException If the property cannot be written or the setter throws a checked exception
+     */
+    public void set(Object o, Object value) throws ReflectiveOperationException {
+        MethodHandle handle = setter();
+        try {
+            handle.invokeExact(o, value);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Get the property value of the object as an int
+     * @param o The object to read
+     * @return The property value
+     * @throws ReflectiveOperationException If the property cannot be read or the getter throws a checked exception
+     */
+    public int getInt(Object o) throws ReflectiveOperationException {
+        if (type != int.class)
+            return ((Number) get(o)).intValue();
+        getter();
+        try {
+            return (int) typedGetter.invokeExact(o);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Get the property value of the object as a long
+     * @param o The object to read
+     * @return The property value
+     * @throws ReflectiveOperationException If the property cannot be read or the getter throws a checked exception
+     */
+    public long getLong(Object o) throws ReflectiveOperationException {
+        if (type != long.class)
+            return ((Number) get(o)).longValue();
+        getter();
+        try {
+            return (long) typedGetter.invokeExact(o);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Get the property value of the object as a double
+     * @param o The object to read
+     * @return The property value
+     * @throws ReflectiveOperationException If the property cannot be read or the getter throws a checked exception
+     */
+    public double getDouble(Object o) throws ReflectiveOperationException {
+        if (type != double.class)
+            return ((Number) get(o)).doubleValue();
+        getter();
+        try {
+            return (double) typedGetter.invokeExact(o);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Get the property value of the object as a boolean
+     * @param o The object to read
+     * @return The property value
+     * @throws ReflectiveOperationException If the property cannot be read or the getter throws a checked exception
+     */
+    public boolean getBoolean(Object o) throws ReflectiveOperationException {
+        if (type != boolean.class)
+            return (Boolean) get(o);
+        getter();
+        try {
+            return (boolean) typedGetter.invokeExact(o);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Set an int property value of the object
+     * @param o The object to write
+     * @param value The new property value
+     * @throws ReflectiveOperationException If the property cannot be written or the setter throws a checked exception
+     */
+    public void setInt(Object o, int value) throws ReflectiveOperationException {
+        if (type != int.class) {
+            set(o, value);
+            return;
+        }
+        setter();
+        try {
+            typedSetter.invokeExact(o, value);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Set a long property value of the object
+     * @param o The object to write
+     * @param value The new property value
+     * @throws ReflectiveOperationException If the property cannot be written or the setter throws a checked exception
+     */
+    public void setLong(Object o, long value) throws ReflectiveOperationException {
+        if (type != long.class) {
+            set(o, value);
+            return;
+        }
+        setter();
+        try {
+            typedSetter.invokeExact(o, value);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Set a double property value of the object
+     * @param o The object to write
+     * @param value The new property value
+     * @throws ReflectiveOperationException If the property cannot be written or the setter throws a checked exception
+     */
+    public void setDouble(Object o, double value) throws ReflectiveOperationException {
+        if (type != double.class) {
+            set(o, value);
+            return;
+        }
+        setter();
+        try {
+            typedSetter.invokeExact(o, value);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    /**
+     * Set a boolean property value of the object
+     * @param o The object to write
+     * @param value The new property value
+     * @throws ReflectiveOperationException If the property cannot be written or the setter throws a checked exception
+     */
+    public void setBoolean(Object o, boolean value) throws ReflectiveOperationException {
+        if (type != boolean.class) {
+            set(o, value);
+            return;
+        }
+        setter();
+        try {
+            typedSetter.invokeExact(o, value);
+        } catch (Throwable t) {
+            throw failure(t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Accessor{%s.%s}", field.getDeclaringClass().getSimpleName(), field.getName());
+    }
+}
@@ -0,0 +1,184 @@
+package io.oreto.latte.obj;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Attribute accessors of an annotation type, and the attribute maps read from annotated elements.
+ * Accessors are resolved once per annotation type. Attribute maps are cached per annotated element and
+ * annotation type in a ClassValue of the declaring class, so they go away with the class loader.
+ * Array attribute values are shared between callers and must not be modified.
+ */
+final class AnnotationMeta {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+    // marks an annotation type missing from an element
+    private static final Map<String, Object> ABSENT = Collections.emptyMap();
+
+    private static final ClassValue<AnnotationMeta> TYPES = new ClassValue<AnnotationMeta>() {
+        @Override
+        protected AnnotationMeta computeValue(Class<?> type) {
+            return new AnnotationMeta(type);
+        }
+    };
+
+    private static final ClassValue<Elements> ELEMENTS = new ClassValue<Elements>() {
+        @Override
+        protected Elements computeValue(Class<?> type) {
+            return new Elements();
+        }
+    };
+
+    static AnnotationMeta of(Class<? extends Annotation> type) {
+        return TYPES.get(type);
+    }
+
+    private final String[] names;
+    private final Method[] methods;
+    private final MethodHandle[] handles;
+    private final Map<String, Integer> index;
+
+    private AnnotationMeta(Class<?> type) {
+        Method[] declared = type.getDeclaredMethods();
+        List<Method> attributes = new ArrayList<>(declared.length);
+        for (Method method : declared) {
+            if (method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers()) && !method.isSynthetic())
+                attributes.add(method);
+        }
+        attributes.sort(Comparator.comparing(Method::getName));
+
+        int n = attributes.size();
+        this.names = new String[n];
+        this.methods = attributes.toArray(new Method[0]);
+        this.handles = new MethodHandle[n];
+        this.index = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            Method method = methods[i];
+            names[i] = method.getName();
+            index.put(names[i], i);
+            try {
+                method.setAccessible(true);
+                handles[i] = LOOKUP.unreflect(method).asType(GET);
+            } catch (IllegalAccessException | RuntimeException e) {
+                // annotation types the module system hides are read through the method instead
+                handles[i] = null;
+            }
+        }
+    }
+
+    /**
+     * @param annotation An annotation of this type
+     * @param attribute The attribute name
+     * @return The attribute value
+     * @throws NoSuchElementException If the annotation type has no such attribute
+     */
+    Object get(Annotation annotation, String attribute) throws ReflectiveOperationException {
+        Integer i = index.get(attribute);
+        if (i == null)
+            throw new NoSuchElementException("no such attribute " + attribute);
+        return get(annotation, i);
+    }
+
+    private Object get(Annotation annotation, int i) throws ReflectiveOperationException {
+        MethodHandle handle = handles[i];
+        if (handle == null)
+            return methods[i].invoke(annotation);
+        try {
+            return handle.invokeExact((Object) annotation);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * @param annotation An annotation of this type
+     * @return Every attribute of the annotation by name, in name order
+     */
+    Map<String, Object> attributes(Annotation annotation) throws ReflectiveOperationException {
+        Map<String, Object> map = new LinkedHashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++)
+            map.put(names[i], get(annotation, i));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param element The annotated element
+     * @param type The annotation type
+     * @return The attributes of the annotation on the element, null when the element does not have the annotation
+     */
+    static Map<String, Object> attributes(AnnotatedElement element, Class<? extends Annotation> type)
+            throws ReflectiveOperationException {
+        Class<?> owner = owner(element);
+        if (owner == null)
+            return read(element, type);
+        ConcurrentMap<Class<?>, Map<String, Object>> cache = ELEMENTS.get(owner).attributes
+                .computeIfAbsent(element, k -> new ConcurrentHashMap<>());
+        Map<String, Object> attributes = cache.get(type);
+        if (attributes == null) {
+            attributes = read(element, type);
+            cache.putIfAbsent(type, attributes == null ? ABSENT : attributes);
+        }
+        return attributes == ABSENT ? null : attributes;
+    }
+
+    private static Map<String, Object> read(AnnotatedElement element, Class<? extends Annotation> type)
+            throws ReflectiveOperationException {
+        Annotation annotation = element.getAnnotation(type);
+        return annotation == null ? null : of(type).attributes(annotation);
+    }
+
+    // the class whose ClassValue holds the element's cache, null for elements not declared by a class
+    private static Class<?> owner(AnnotatedElement element) {
+        if (element instanceof Class)
+            return (Class<?>) element;
+        if (element instanceof Member)
+            return ((Member) element).getDeclaringClass();
+        if (element instanceof Parameter)
+            return ((Parameter) element).getDeclaringExecutable().getDeclaringClass();
+        return null;
+    }
+
+    /**
+     * @param cls The class of interest
+     * @return Every field of the class and its super classes which has an annotation,
+     * mapped to the attributes of each of its annotations
+     */
+    static Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> annotatedFields(Class<?> cls)
+            throws ReflectiveOperationException {
+        Elements elements = ELEMENTS.get(cls);
+        Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> fields = elements.fields;
+        if (fields == null) {
+            Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> map = new LinkedHashMap<>();
+            for (Field field : ClassMeta.of(cls).fields()) {
+                Annotation[] annotations = field.getAnnotations();
+                if (annotations.length == 0)
+                    continue;
+                Map<Class<? extends Annotation>, Map<String, Object>> byType = new LinkedHashMap<>();
+                for (Annotation annotation : annotations) {
+                    Class<? extends Annotation> type = annotation.annotationType();
+                    byType.put(type, attributes(field, type));
+                }
+                map.put(field, Collections.unmodifiableMap(byType));
+            }
+            elements.fields = fields = Collections.unmodifiableMap(map);
+        }
+        return fields;
+    }
+
+    /**
+     * Cached annotation attributes of the elements declared by one class
+     */
+    private static final class Elements {
+        final ConcurrentMap<AnnotatedElement, ConcurrentMap<Class<?>, Map<String, Object>>> attributes =
+                new ConcurrentHashMap<>();
+        volatile Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> fields;
+    }
+}
@@ -0,0 +1,610 @@
+package io.oreto.latte.obj;
+
+import io.oreto.latte.str.Str;
+
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Binds maps of values, such as request parameters, onto objects of one class.
+ * Keys are property names, dotted paths into nested objects like address.line or list indexes like orders[0].amount,
+ * and values which are maps bind into the nested object of the property. Values are coerced to the property type,
+ * so "42" binds to an int property and 42 binds to a Long property.
+ * Binding does not throw on bad input, every value which cannot be bound is reported as a BindingError.
+ * Binders are compiled once per class and may be shared between threads.
+ * @param <T> The type of objects bound
+ */
+public final class Binder<T> {
+    /**
+     * Returned by coerce when the value cannot be converted
+     */
+    static final Object INVALID = new Object();
+
+    // how far past the end of a list an index may reach, so a hostile index cannot allocate a huge list
+    private static final int MAX_INDEX_GROWTH = 256;
+
+    private static final int SCALAR = 0;
+    private static final int OBJECT = 1;
+    private static final int COLLECTION = 2;
+    private static final int MAP = 3;
+
+    private static final Map<Class<?>, Function<CharSequence, Object>> PARSERS = new HashMap<>();
+    static {
+        PARSERS.put(LocalDate.class, LocalDate::parse);
+        PARSERS.put(LocalDateTime.class, LocalDateTime::parse);
+        PARSERS.put(LocalTime.class, LocalTime::parse);
+        PARSERS.put(OffsetDateTime.class, OffsetDateTime::parse);
+        PARSERS.put(ZonedDateTime.class, ZonedDateTime::parse);
+        PARSERS.put(Instant.class, Instant::parse);
+        PARSERS.put(Duration.class, Duration::parse);
+        PARSERS.put(UUID.class, s -> UUID.fromString(s.toString()));
+    }
+
+    private final Class<T> type;
+    private final Map<String, Slot> slots;
+    private final Constructor<T> constructor;
+
+    Binder(Class<T> type) {
+        this.type = type;
+        // only properties Reflect.copy could write are bound, private internals stay out of reach of request values
+        ClassMeta meta = ClassMeta.of(type);
+        Map<String, Slot> slots = new HashMap<>();
+        for (Field field : meta.fields(Reflect.Allow.none())) {
+            Slot slot = new Slot(meta.property(field));
+            if (slot.writable || (slot.readable && slot.kind != SCALAR))
+                slots.putIfAbsent(field.getName(), slot);
+        }
+        this.slots = slots;
+        this.constructor = constructor(type);
+    }
+
+    private static <T> Constructor<T> constructor(Class<T> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray())
+            return null;
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(type.getModifiers()))
+                constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The class of the objects bound
+     */
+    public Class<T> type() {
+        return type;
+    }
+
+    /**
+     * Create a new object with the no argument constructor and bind the values to it
+     * @param values The values keyed by property name or path
+     * @param errors Collects the values which could not be bound
+     * @return The new object, Optional.empty if the class has no usable no argument constructor
+     */
+    public Optional<T> create(Map<String, ?> values, List<BindingError> errors) {
+        T o = newInstance();
+        if (o != null)
+            bind(o, values, null, errors);
+        return Optional.ofNullable(o);
+    }
+
+    /**
+     * Bind the values to the object
+     * @param target The object to bind to
+     * @param values The values keyed by property name or path
+     * @return The values which could not be bound, empty when every value was bound
+     */
+    public List<BindingError> bind(T target, Map<String, ?> values) {
+        List<BindingError> errors = new ArrayList<>();
+        bind(target, values, null, errors);
+        return errors;
+    }
+
+    T newInstance() {
+        try {
+            return constructor == null ? null : constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Binder<?> of(Object o) {
+        return ClassMeta.of(o.getClass()).binder();
+    }
+
+    private static String path(String prefix, String key) {
+        return prefix == null ? key : prefix + "." + key;
+    }
+
+    private void bind(Object target, Map<?, ?> values, String prefix, List<BindingError> errors) {
+        for (Map.Entry<?, ?> entry : values.entrySet())
+            bind(target, String.valueOf(entry.getKey()), 0, entry.getValue(), prefix, errors);
+    }
+
+    private void bind(Object target, String key, int from, Object value, String prefix, List<BindingError> errors) {
+        int end = from;
+        while (end < key.length() && key.charAt(end) != '.' && key.charAt(end) != '[')
+            end++;
+        Slot slot = slots.get(key.substring(from, end));
+        if (slot == null) {
+            errors.add(new BindingError(path(prefix, key), value, "no such property"));
+            return;
+        }
+        try {
+            if (end == key.length())
+                slot.assign(target, value, path(prefix, key), errors);
+            else if (key.charAt(end) == '.')
+                slot.descend(target, key, end + 1, value, prefix, errors);
+            else
+                slot.index(target, key, end, value, prefix, errors);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Throwable cause = e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+            errors.add(new BindingError(path(prefix, key), value
+                    , cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage()));
+        }
+    }
+
+    /**
+     * A property of the bound class and how values are bound to it
+     */
+    private static final class Slot {
+        final Accessor accessor;
+        final Class<?> type;
+        final int kind;
+        // a public field, or a getter to read and a setter to write
+        final boolean readable;
+        final boolean writable;
+        // the element type of collections, the key and value types of maps
+        final Class<?> key;
+        final Class<?> element;
+
+        Slot(ClassMeta.Property property) {
+            this.accessor = property.accessor();
+            this.type = property.field.getType();
+            this.readable = property.isPublic || property.getter != null;
+            this.writable = (property.isPublic && !Modifier.isFinal(property.field.getModifiers()))
+                    || property.setter != null;
+            if (Collection.class.isAssignableFrom(type))
+                kind = COLLECTION;
+            else if (Map.class.isAssignableFrom(type))
+                kind = MAP;
+            else
+                kind = isScalar(type) ? SCALAR : OBJECT;
+
+            Type generic = property.field.getGenericType();
+            Type[] arguments = generic instanceof ParameterizedType
+                    ? ((ParameterizedType) generic).getActualTypeArguments()
+                    : new Type[0];
+            this.key = kind == MAP && arguments.length == 2 ? ClassMeta.Property.raw(arguments[0]) : Object.class;
+            this.element = kind == COLLECTION && arguments.length == 1
+                    ? ClassMeta.Property.raw(arguments[0])
+                    : kind == MAP && arguments.length == 2 ? ClassMeta.Property.raw(arguments[1]) : Object.class;
+        }
+
+        void assign(Object target, Object value, String path, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            switch (kind) {
+                case OBJECT:
+                    if (value instanceof Map) {
+                        Object nested = obtain(target);
+                        if (nested == null)
+                            errors.add(new BindingError(path, value, "cannot create " + type.getName()));
+                        else
+                            of(nested).bind(nested, (Map<?, ?>) value, path, errors);
+                    } else if (value == null || type.isInstance(value)) {
+                        set(target, value);
+                    } else {
+                        errors.add(invalid(path, value, type));
+                    }
+                    break;
+                case COLLECTION:
+                    assignCollection(target, value, path, errors);
+                    break;
+                case MAP:
+                    assignMap(target, value, path, errors);
+                    break;
+                default:
+                    Object v = coerce(value, type);
+                    if (v == INVALID)
+                        errors.add(invalid(path, value, type));
+                    else
+                        set(target, v);
+            }
+        }
+
+        void descend(Object target, String key, int from, Object value, String prefix, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            String path = path(prefix, key);
+            if (kind == OBJECT) {
+                Object nested = obtain(target);
+                if (nested == null)
+                    errors.add(new BindingError(path, value, "cannot create " + type.getName()));
+                else
+                    of(nested).bind(nested, key, from, value, prefix, errors);
+            } else if (kind == MAP) {
+                // the rest of the path is the map key
+                @SuppressWarnings("unchecked")
+                Map<Object, Object> map = (Map<Object, Object>) obtain(target);
+                Object k = coerce(key.substring(from), this.key);
+                Object v = element(value, path, errors);
+                if (map == null)
+                    errors.add(new BindingError(path, value, "cannot create " + type.getName()));
+                else if (k == INVALID)
+                    errors.add(invalid(path, key.substring(from), this.key));
+                else if (v != INVALID)
+                    map.put(k, v);
+            } else {
+                errors.add(new BindingError(path, value, "not an object"));
+            }
+        }
+
+        void index(Object target, String key, int open, Object value, String prefix, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            String path = path(prefix, key);
+            int close = key.indexOf(']', open);
+            int index = close < 0 ? -1 : parseIndex(key, open + 1, close);
+            int next = close + 1;
+            if (index < 0 || (next < key.length() && key.charAt(next) != '.')) {
+                errors.add(new BindingError(path, value, "invalid index"));
+                return;
+            }
+            Object collection = kind == COLLECTION ? obtain(target) : null;
+            if (!(collection instanceof List)) {
+                errors.add(new BindingError(path, value, "not a list"));
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            List<Object> list = (List<Object>) collection;
+            if (index > list.size() + MAX_INDEX_GROWTH) {
+                errors.add(new BindingError(path, value, "index out of range"));
+                return;
+            }
+            while (list.size() <= index)
+                list.add(null);
+
+            if (next == key.length()) {
+                Object v = element(value, path, errors);
+                if (v != INVALID)
+                    list.set(index, v);
+            } else {
+                Object item = list.get(index);
+                if (item == null) {
+                    item = newInstance(element);
+                    if (item == null) {
+                        errors.add(new BindingError(path, value, "cannot create " + element.getName()));
+                        return;
+                    }
+                    list.set(index, item);
+                }
+                of(item).bind(item, key, next + 1, value, prefix, errors);
+            }
+        }
+
+        private Object get(Object target) throws ReflectiveOperationException {
+            if (!readable)
+                throw new NoSuchMethodException(String.format("No getters found for %s", accessor.name()));
+            return accessor.get(target);
+        }
+
+        private void set(Object target, Object value) throws ReflectiveOperationException {
+            if (!writable)
+                throw new NoSuchMethodException(String.format("No setters found for %s", accessor.name()));
+            accessor.set(target, value);
+        }
+
+        private static int parseIndex(String key, int from, int to) {
+            if (from == to || to - from > 9)
+                return -1;
+            int index = 0;
+            for (int i = from; i < to; i++) {
+                char c = key.charAt(i);
+                if (c < '0' || c > '9')
+                    return -1;
+                index = index * 10 + (c - '0');
+            }
+            return index;
+        }
+
+        // the current property value, created and set when it is null
+        private Object obtain(Object target) throws ReflectiveOperationException {
+            Object value = get(target);
+            if (value == null) {
+                value = kind == COLLECTION ? newCollection(type) : kind == MAP ? newMap(type) : newInstance(type);
+                if (value == null || !writable)
+                    return null;
+                set(target, value);
+            }
+            return value;
+        }
+
+        private Object element(Object value, String path, List<BindingError> errors) {
+            if (value instanceof Map && !isScalar(element) && !Map.class.isAssignableFrom(element)) {
+                Object item = newInstance(element);
+                if (item == null) {
+                    errors.add(new BindingError(path, value, "cannot create " + element.getName()));
+                    return INVALID;
+                }
+                of(item).bind(item, (Map<?, ?>) value, path, errors);
+                return item;
+            }
+            Object v = coerce(value, element);
+            if (v == INVALID)
+                errors.add(invalid(path, value, element));
+            return v;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void assignCollection(Object target, Object value, String path, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            Collection<Object> items = newCollection(type);
+            if (items == null) {
+                errors.add(new BindingError(path, value, "cannot create " + type.getName()));
+                return;
+            }
+            Iterable<?> values = value instanceof Iterable ? (Iterable<?>) value
+                    : value instanceof Object[] ? Arrays.asList((Object[]) value)
+                    : value == null ? Collections.emptyList() : Collections.singletonList(value);
+            int i = 0;
+            for (Object v : values) {
+                Object item = element(v, path + "[" + i++ + "]", errors);
+                if (item != INVALID)
+                    items.add(item);
+            }
+            replace(target, items, path, errors);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void assignMap(Object target, Object value, String path, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            Map<Object, Object> map = newMap(type);
+            if (map == null) {
+                errors.add(new BindingError(path, value, "cannot create " + type.getName()));
+                return;
+            }
+            if (value != null && !(value instanceof Map)) {
+                errors.add(invalid(path, value, type));
+                return;
+            }
+            if (value != null) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    String entryPath = path + "." + entry.getKey();
+                    Object k = coerce(entry.getKey(), key);
+                    Object v = element(entry.getValue(), entryPath, errors);
+                    if (k == INVALID)
+                        errors.add(invalid(entryPath, entry.getKey(), key));
+                    else if (v != INVALID)
+                        map.put(k, v);
+                }
+            }
+            replace(target, map, path, errors);
+        }
+
+        // write the new collection or map, or refill the current one when the property has no setter
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private void replace(Object target, Object value, String path, List<BindingError> errors)
+                throws ReflectiveOperationException {
+            if (writable) {
+                set(target, value);
+                return;
+            }
+            Object current = get(target);
+            if (current instanceof Collection) {
+                ((Collection) current).clear();
+                ((Collection) current).addAll((Collection) value);
+            } else if (current instanceof Map) {
+                ((Map) current).clear();
+                ((Map) current).putAll((Map) value);
+            } else {
+                errors.add(new BindingError(path, value, "not writable"));
+            }
+        }
+    }
+
+    private static BindingError invalid(String path, Object value, Class<?> type) {
+        return new BindingError(path, value, String.format("cannot convert %s to %s"
+                , value == null ? "null" : value.getClass().getSimpleName(), type.getSimpleName()));
+    }
+
+    private static Object newInstance(Class<?> type) {
+        if (type == Object.class)
+            return null;
+        return ClassMeta.of(type).binder().newInstance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class))
+            return new ArrayList<>();
+        if (type.isAssignableFrom(LinkedHashSet.class))
+            return new LinkedHashSet<>();
+        if (type.isAssignableFrom(TreeSet.class))
+            return new TreeSet<>();
+        if (type.isAssignableFrom(ArrayDeque.class))
+            return new ArrayDeque<>();
+        return (Collection<Object>) newInstance(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> type) {
+        if (type.isAssignableFrom(LinkedHashMap.class))
+            return new LinkedHashMap<>();
+        if (type.isAssignableFrom(TreeMap.class))
+            return new TreeMap<>();
+        return (Map<Object, Object>) newInstance(type);
+    }
+
+    static boolean isScalar(Class<?> type) {
+        return Reflect.isPrimitive(type)
+                || type == Object.class
+                || type.isArray()
+                || type.isEnum()
+                || Number.class.isAssignableFrom(type)
+                || type == Boolean.class
+                || type == Character.class
+                || PARSERS.containsKey(type);
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        if (type == char.class) return Character.class;
+        return type;
+    }
+
+    /**
+     * Convert the value to the type
+     * @param value The value to convert
+     * @param type The type to convert to
+     * @return The converted value, INVALID if the value cannot be converted
+     */
+    static Object coerce(Object value, Class<?> type) {
+        if (value == null)
+            return type.isPrimitive() ? INVALID : null;
+        Class<?> boxed = box(type);
+        if (boxed.isInstance(value))
+            return value;
+        if (boxed == String.class || boxed == CharSequence.class)
+            return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                    || value instanceof Character || value instanceof Enum ? value.toString() : INVALID;
+        if (value instanceof CharSequence)
+            return parse((CharSequence) value, boxed);
+        if (value instanceof Number)
+            return number((Number) value, boxed);
+        return INVALID;
+    }
+
+    private static Object parse(CharSequence s, Class<?> type) {
+        try {
+            if (type == Integer.class)
+                return Str.isInteger(s) ? Integer.valueOf(s.toString()) : INVALID;
+            if (type == Long.class)
+                return Str.isInteger(s) ? Long.valueOf(s.toString()) : INVALID;
+            if (type == Double.class)
+                return Str.isNumber(s) ? Double.valueOf(s.toString()) : INVALID;
+            if (type == Boolean.class)
+                return Str.isBoolean(s) ? Boolean.valueOf(s.toString()) : INVALID;
+            if (type == Float.class)
+                return Str.isNumber(s) ? Float.valueOf(s.toString()) : INVALID;
+            if (type == Short.class)
+                return Str.isInteger(s) ? Short.valueOf(s.toString()) : INVALID;
+            if (type == Byte.class)
+                return Str.isInteger(s) ? Byte.valueOf(s.toString()) : INVALID;
+            if (type == Character.class)
+                return s.length() == 1 ? s.charAt(0) : INVALID;
+            if (type == BigDecimal.class)
+                return Str.isNumber(s) ? new BigDecimal(s.toString()) : INVALID;
+            if (type == BigInteger.class)
+                return Str.isInteger(s) ? new BigInteger(s.toString()) : INVALID;
+            if (type.isEnum())
+                return constant(s, type);
+            Function<CharSequence, Object> parser = PARSERS.get(type);
+            return parser == null ? INVALID : parser.apply(s);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // out of range for the type or not a valid date, time or UUID
+            return INVALID;
+        }
+    }
+
+    private static Object constant(CharSequence s, Class<?> type) {
+        Object match = INVALID;
+        for (Object constant : type.getEnumConstants()) {
+            String name = ((Enum<?>) constant).name();
+            if (name.contentEquals(s))
+                return constant;
+            if (match == INVALID && name.equalsIgnoreCase(s.toString()))
+                match = constant;
+        }
+        return match;
+    }
+
+    private static Object number(Number n, Class<?> type) {
+        if (type == Double.class)
+            return n.doubleValue();
+        if (type == Float.class)
+            return n.floatValue();
+        if (type == BigDecimal.class)
+            return n instanceof BigInteger ? new BigDecimal((BigInteger) n) : new BigDecimal(n.toString());
+
+        // integral types only take numbers without a fraction which fit
+        long l;
+        if (n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte) {
+            l = n.longValue();
+        } else if (n instanceof BigInteger) {
+            if (type == BigInteger.class)
+                return n;
+            if (((BigInteger) n).bitLength() > 63)
+                return INVALID;
+            l = n.longValue();
+        } else {
+            double d = n.doubleValue();
+            if (d != Math.rint(d) || d < Long.MIN_VALUE || d >= 0x1p63)
+                return INVALID;
+            l = (long) d;
+        }
+        if (type == Long.class)
+            return l;
+        if (type == Integer.class)
+            return l == (int) l ? (Object) (int) l : INVALID;
+        if (type == Short.class)
+            return l == (short) l ? (Object) (short) l : INVALID;
+        if (type == Byte.class)
+            return l == (byte) l ? (Object) (byte) l : INVALID;
+        if (type == BigInteger.class)
+            return BigInteger.valueOf(l);
+        return INVALID;
+    }
+
+    /**
+     * A value which could not be bound
+     */
+    public static final class BindingError {
+        private final String path;
+        private final Object value;
+        private final String message;
+
+        BindingError(String path, Object value, String message) {
+            this.path = path;
+            this.value = value;
+            this.message = message;
+        }
+
+        /**
+         * @return The path of the value, the map key with the keys of enclosing maps
+         */
+        public String path() {
+            return path;
+        }
+
+        /**
+         * @return The value which could not be bound
+         */
+        public Object value() {
+            return value;
+        }
+
+        /**
+         * @return Why the value could not be bound
+         */
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", path, message);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.oreto.latte.obj;
+
+import java.util.Objects;
+
+/**
+ * One property level change between two object graphs, produced by Reflect.diff and applied by Reflect.patch.
+ * Paths use the Reflect.copy syntax, dotted field names such as address.line,
+ * with list elements addressed by index such as orders[0].amount.
+ */
+public final class Change {
+    /**
+     * What the change does to the property at its path
+     */
+    public enum Type {
+        /**
+         * Set the property to the value
+         */
+        SET,
+        /**
+         * Add the value to the collection property, through its adder when there is one.
+         * List changes carry the index the value is inserted at
+         */
+        ADD,
+        /**
+         * Remove the value from the collection property, through its remover when there is one.
+         * List changes carry the index the value is removed from
+         */
+        REMOVE,
+        /**
+         * Put the key and value in the map property
+         */
+        PUT,
+        /**
+         * Remove the key from the map property
+         */
+        REMOVE_KEY
+    }
+
+    /**
+     * @param path The property path
+     * @param value The new value
+     * @return A change setting the property
+     */
+    public static Change set(String path, Object value) {
+        return new Change(Type.SET, path, null, value);
+    }
+
+    /**
+     * @param path The collection property path
+     * @param value The value to add
+     * @return A change adding to the collection
+     */
+    public static Change add(String path, Object value) {
+        return new Change(Type.ADD, path, null, value);
+    }
+
+    /**
+     * @param path The collection property path
+     * @param value The value to remove
+     * @return A change removing from the collection
+     */
+    public static Change remove(String path, Object value) {
+        return new Change(Type.REMOVE, path, null, value);
+    }
+
+    /**
+     * @param path The list property path
+     * @param index The index to insert the value at
+     * @param value The value to insert
+     * @return A change inserting into the list
+     */
+    public static Change add(String path, int index, Object value) {
+        return new Change(Type.ADD, path, index, value);
+    }
+
+    /**
+     * @param path The list property path
+     * @param index The index of the value to remove
+     * @param value The value removed
+     * @return A change removing from the list
+     */
+    public static Change remove(String path, int index, Object value) {
+        return new Change(Type.REMOVE, path, index, value);
+    }
+
+    /**
+     * @param path The map property path
+     * @param key The map key
+     * @param value The value to put
+     * @return A change putting the key in the map
+     */
+    public static Change put(String path, Object key, Object value) {
+        return new Change(Type.PUT, path, key, value);
+    }
+
+    /**
+     * @param path The map property path
+     * @param key The map key to remove
+     * @return A change removing the key from the map
+     */
+    public static Change removeKey(String path, Object key) {
+        return new Change(Type.REMOVE_KEY, path, key, null);
+    }
+
+    private final Type type;
+    private final String path;
+    private final Object key;
+    private final Object value;
+
+    private Change(Type type, String path, Object key, Object value) {
+        this.type = Objects.requireNonNull(type);
+        this.path = Objects.requireNonNull(path);
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * @return What the change does
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * @return The path of the changed property
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * @return The map key of PUT and REMOVE_KEY changes, the list index of list ADD and REMOVE changes, null otherwise
+     */
+    public Object key() {
+        return key;
+    }
+
+    /**
+     * @return The value set, added, removed or put, null for REMOVE_KEY
+     */
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Change)) return false;
+        Change change = (Change) o;
+        return type == change.type
+                && path.equals(change.path)
+                && Objects.equals(key, change.key)
+                && Objects.equals(value, change.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, path, key, value);
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case PUT: return String.format("%s %s[%s] = %s", type, path, key, value);
+            case REMOVE_KEY: return String.format("%s %s[%s]", type, path, key);
+            default: return key == null
+                    ? String.format("%s %s = %s", type, path, value)
+                    : String.format("%s %s[%s] = %s", type, path, key, value);
+        }
+    }
+}
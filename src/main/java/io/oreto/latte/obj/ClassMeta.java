@@ -0,0 +1,315 @@
+package io.oreto.latte.obj;
+
+import io.oreto.latte.str.Noun;
+import io.oreto.latte.str.Str;
+
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Property metadata of a class: its fields and their getters, setters, adders and removers.
+ * Metadata is built once per class and held by a ClassValue, so it goes away with the class loader.
+ * Once built it never changes and is read without locks.
+ */
+final class ClassMeta {
+    private static final LongAdder LOOKUPS = new LongAdder();
+    private static final LongAdder BUILDS = new LongAdder();
+
+    private static final ClassValue<ClassMeta> CACHE = new ClassValue<ClassMeta>() {
+        @Override
+        protected ClassMeta computeValue(Class<?> type) {
+            BUILDS.increment();
+            return new ClassMeta(type);
+        }
+    };
+
+    static ClassMeta of(Class<?> type) {
+        LOOKUPS.increment();
+        return CACHE.get(type);
+    }
+
+    static long lookups() {
+        return LOOKUPS.sum();
+    }
+
+    static long builds() {
+        return BUILDS.sum();
+    }
+
+    // value types which are never copied when cloning object graphs
+    private static final Set<Class<?>> IMMUTABLE = new HashSet<>(Arrays.asList(Boolean.class, Character.class
+            , Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class
+            , BigInteger.class, BigDecimal.class, UUID.class, Class.class, Locale.class, Currency.class
+            , Duration.class, Period.class, Object.class));
+
+    final Class<?> type;
+    final boolean primitive;
+    final boolean immutable;
+    // fields and methods are only scanned when first asked for, leaf types like String never need them
+    private volatile Members members;
+    private volatile Binder<?> binder;
+    private volatile ObjectGraph.Plan graph;
+    private volatile ObjectDiff.Plan diff;
+    private final AtomicReferenceArray<List<Field>> allowed = new AtomicReferenceArray<>(Reflect.Allow.MASKS);
+
+    private ClassMeta(Class<?> type) {
+        this.type = type;
+        this.primitive = type.isPrimitive()
+                || CharSequence.class.isAssignableFrom(type)
+                || Date.class.isAssignableFrom(type)
+                || Temporal.class.isAssignableFrom(type);
+        this.immutable = primitive
+                || IMMUTABLE.contains(type)
+                || Enum.class.isAssignableFrom(type)
+                || ZoneId.class.isAssignableFrom(type);
+    }
+
+    private Members members() {
+        Members m = members;
+        if (m == null) {
+            synchronized (this) {
+                if ((m = members) == null)
+                    members = m = new Members(type);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * @return Every field of the class and its super classes, declared fields first
+     */
+    List<Field> fields() {
+        return members().fields;
+    }
+
+    /**
+     * @param allow The allowed field types
+     * @return The fields of the class accepted by allow
+     */
+    List<Field> fields(Reflect.Allow allow) {
+        int mask = allow.mask();
+        List<Field> fields = allowed.get(mask);
+        if (fields == null) {
+            List<Field> list = new ArrayList<>();
+            for (Field field : fields()) {
+                if (allows(allow, field))
+                    list.add(field);
+            }
+            fields = Collections.unmodifiableList(list);
+            // racing builders produce equal lists, keep whichever lands first
+            if (!allowed.compareAndSet(mask, null, fields))
+                fields = allowed.get(mask);
+        }
+        return fields;
+    }
+
+    private static boolean allows(Reflect.Allow allow, Field field) {
+        int modifiers = field.getModifiers();
+        return (allow.trans || !Modifier.isTransient(modifiers))
+                && (allow._static || !Modifier.isStatic(modifiers))
+                && (allow._final || !Modifier.isFinal(modifiers))
+                && (allow.underscore || !field.getName().startsWith("_"));
+    }
+
+    /**
+     * @return The binder of the class, compiled when first asked for
+     */
+    Binder<?> binder() {
+        Binder<?> b = binder;
+        if (b == null)
+            binder = b = new Binder<>(type);
+        return b;
+    }
+
+    /**
+     * @return The field level plan used to clone, compare and hash object graphs
+     */
+    ObjectGraph.Plan graph() {
+        ObjectGraph.Plan g = graph;
+        if (g == null)
+            graph = g = new ObjectGraph.Plan(type, fields());
+        return g;
+    }
+
+    /**
+     * @return The properties compared when diffing object graphs
+     */
+    ObjectDiff.Plan diff() {
+        ObjectDiff.Plan d = diff;
+        if (d == null)
+            diff = d = new ObjectDiff.Plan(this);
+        return d;
+    }
+
+    /**
+     * @return The properties of the class, one for each field name
+     */
+    Collection<Property> properties() {
+        return members().byName.values();
+    }
+
+    /**
+     * @param name The field name
+     * @return The property of the first field with the name, null if there is none
+     */
+    Property property(String name) {
+        return members().byName.get(name);
+    }
+
+    /**
+     * @param name The field name
+     * @param allow The allowed field types
+     * @return The property of the first field with the name accepted by allow, null if there is none
+     */
+    Property property(String name, Reflect.Allow allow) {
+        Property property = property(name);
+        if (property == null || allows(allow, property.field))
+            return property;
+        // the first field of the name is filtered out, a super class field of the same name may not be
+        for (Field field : fields(allow)) {
+            if (field.getName().equals(name))
+                return property(field);
+        }
+        return null;
+    }
+
+    /**
+     * @param field A field of this class or one of its super classes
+     * @return The property of the field
+     */
+    Property property(Field field) {
+        Members m = members();
+        Property property = m.byName.get(field.getName());
+        if (property != null && property.field.equals(field))
+            return property;
+        for (Property p : m.properties) {
+            if (p.field.equals(field))
+                return p;
+        }
+        // a field from an unrelated class, resolve against this class without caching it
+        return new Property(field, m.methods);
+    }
+
+    /**
+     * A field together with the accessor methods the class offers for it
+     */
+    static final class Property {
+        final Field field;
+        final boolean isPublic;
+        final Method getter;
+        final Method setter;
+        final Method adder;
+        final Method remover;
+        // method handles are only spun for properties which are actually read or written
+        private volatile Accessor accessor;
+
+        private Property(Field field, Map<String, Method[]> methods) {
+            this.field = field;
+            this.isPublic = Modifier.isPublic(field.getModifiers());
+            String name = field.getName();
+            String capitalized = Str.capitalize(name);
+            Class<?> type = field.getType();
+            this.getter = getter(methods, type, "get" + capitalized, "is" + capitalized, name);
+            this.setter = setter(methods, type, "set" + capitalized, "with" + capitalized, name);
+
+            Type generic = field.getGenericType();
+            if (generic instanceof ParameterizedType) {
+                Class<?> element = raw(((ParameterizedType) generic).getActualTypeArguments()[0]);
+                String singular = Str.capitalize(Noun.singular(name));
+                this.adder = addRemove(methods, element, "add" + singular);
+                this.remover = addRemove(methods, element, "remove" + singular);
+            } else {
+                this.adder = null;
+                this.remover = null;
+            }
+        }
+
+        Accessor accessor() {
+            Accessor a = accessor;
+            // racing threads build equivalent accessors, any of them may be kept
+            if (a == null)
+                accessor = a = new Accessor(this);
+            return a;
+        }
+
+        private static Method getter(Map<String, Method[]> methods, Class<?> type, String... names) {
+            for (String name : names) {
+                for (Method method : methods.getOrDefault(name, NO_METHODS)) {
+                    if (method.getParameterCount() == 0 && Reflect.methodTypeMatches(method.getReturnType(), type))
+                        return method;
+                }
+            }
+            return null;
+        }
+
+        private static Method setter(Map<String, Method[]> methods, Class<?> type, String... names) {
+            for (String name : names) {
+                for (Method method : methods.getOrDefault(name, NO_METHODS)) {
+                    if (method.getParameterCount() == 1
+                            && Reflect.methodTypeMatches(method.getParameterTypes()[0], type))
+                        return method;
+                }
+            }
+            return null;
+        }
+
+        private static Method addRemove(Map<String, Method[]> methods, Class<?> element, String name) {
+            for (Method method : methods.getOrDefault(name, NO_METHODS)) {
+                if (method.getParameterCount() > 0) {
+                    Class<?> param = method.getParameterTypes()[0];
+                    if (Reflect.methodTypeMatches(param.isArray() && method.isVarArgs()
+                            ? param.getComponentType() : param, element))
+                        return method;
+                }
+            }
+            return null;
+        }
+
+        static Class<?> raw(Type type) {
+            if (type instanceof Class)
+                return (Class<?>) type;
+            if (type instanceof ParameterizedType)
+                return raw(((ParameterizedType) type).getRawType());
+            return Object.class;
+        }
+    }
+
+    private static final Method[] NO_METHODS = new Method[0];
+
+    private static final class Members {
+        final List<Field> fields;
+        final Property[] properties;
+        final Map<String, Property> byName;
+        final Map<String, Method[]> methods;
+
+        Members(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass())
+                fields.addAll(Arrays.asList(c.getDeclaredFields()));
+            this.fields = Collections.unmodifiableList(fields);
+
+            Map<String, List<Method>> byMethodName = new HashMap<>();
+            for (Method method : type.getMethods())
+                byMethodName.computeIfAbsent(method.getName(), k -> new ArrayList<>(1)).add(method);
+            Map<String, Method[]> methods = new HashMap<>(byMethodName.size() * 2);
+            byMethodName.forEach((name, list) -> methods.put(name, list.toArray(NO_METHODS)));
+            this.methods = methods;
+
+            this.properties = new Property[fields.size()];
+            this.byName = new HashMap<>(fields.size() * 2);
+            for (int i = 0; i < properties.length; i++) {
+                properties[i] = new Property(fields.get(i), methods);
+                // a subclass field hides super class fields of the same name
+                byName.putIfAbsent(properties[i].field.getName(), properties[i]);
+            }
+        }
+    }
+}
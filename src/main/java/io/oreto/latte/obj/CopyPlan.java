@@ -0,0 +1,295 @@
+package io.oreto.latte.obj;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * A Reflect.copy compiled once for a target class and a set of field names.
+ * Field selection, property accessors and the names handed down to nested objects are resolved when the plan is built,
+ * so applying the plan only reads and writes properties. Nested plans are compiled the first time they are needed.
+ * Plans are immutable and may be shared between threads.
+ */
+public final class CopyPlan {
+    private static final int VALUE = 0;
+    private static final int NESTED = 1;
+    private static final int COLLECTION = 2;
+    private static final int MAP = 3;
+
+    /**
+     * Compile a copy plan
+     * @param type The class of the objects copied to
+     * @param names The field names to copy, dotted names select fields of nested objects. Null or empty copies every field
+     * @param options Options to use when updating fields
+     * @return The compiled plan
+     */
+    static CopyPlan compile(Class<?> type, Iterable<String> names, Reflect.CopyOptions options) {
+        List<String> list = new ArrayList<>();
+        if (names != null)
+            for (String name : names) list.add(name);
+        return new CopyPlan(type, list.isEmpty() ? null : list, options.snapshot());
+    }
+
+    private final Class<?> type;
+    private final Reflect.CopyOptions options;
+    private final Step[] steps;
+
+    private CopyPlan(Class<?> type, List<String> names, Reflect.CopyOptions options) {
+        this.type = type;
+        this.options = options;
+
+        // every path segment of the names: [a.b.c, a.d] => [a, a.b, a.b.c, a.d]
+        Set<String> nameSet = new HashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1))
+                    nameSet.add(name.substring(0, dot));
+                nameSet.add(name);
+            }
+        }
+
+        ClassMeta meta = ClassMeta.of(type);
+        List<Step> steps = new ArrayList<>();
+        for (Field field : names == null ? meta.fields(Reflect.DEFAULT_ALLOW) : meta.fields(options.allow)) {
+            ClassMeta.Property property = meta.property(field);
+            if (!property.isPublic && (property.setter == null || property.getter == null))
+                continue;
+            if (names != null && options.exclusion == nameSet.contains(field.getName()))
+                continue;
+            steps.add(new Step(property, kind(field.getType(), options), children(field.getName(), names)));
+        }
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    private static int kind(Class<?> fieldType, Reflect.CopyOptions options) {
+        if (options.mergeCollections && Collection.class.isAssignableFrom(fieldType))
+            return COLLECTION;
+        if (options.mergeCollections && Map.class.isAssignableFrom(fieldType))
+            return MAP;
+        return Reflect.isPrimitive(fieldType) ? VALUE : NESTED;
+    }
+
+    // the names below the field with the field prefix removed, null when no name reaches inside the field
+    private static List<String> children(String field, List<String> names) {
+        if (names == null)
+            return null;
+        List<String> children = null;
+        int length = field.length();
+        for (String name : names) {
+            if (name.length() > length && name.charAt(length) == '.' && name.startsWith(field)) {
+                if (children == null)
+                    children = new ArrayList<>();
+                children.add(name.substring(length + 1));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * @return The class of the objects this plan copies to
+     */
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * @return The names of the top level fields this plan copies
+     */
+    public List<String> fields() {
+        List<String> fields = new ArrayList<>(steps.length);
+        for (Step step : steps)
+            fields.add(step.accessor.name());
+        return fields;
+    }
+
+    /**
+     * Copy the planned fields from the source to the target
+     * @param target The object to copy to
+     * @param source The object to copy from
+     * @throws ReflectiveOperationException If there is an error setting a field value
+     * @throws IllegalArgumentException If the target is not an instance of the plan type
+     */
+    public void copy(Object target, Object source) throws ReflectiveOperationException {
+        if (target != null && !type.isInstance(target))
+            throw new IllegalArgumentException(
+                    String.format("%s is not a %s", target.getClass().getName(), type.getName()));
+        copy(target, source, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void copy(Object o1, Object o2, Set<Object> visited) throws ReflectiveOperationException {
+        if (o1 == null || o2 == null || !visited.add(o2))
+            return;
+
+        for (Step step : steps) {
+            Accessor accessor = step.accessor;
+            Object v1 = accessor.get(o1);
+            Object v2 = o2.getClass() == type ? accessor.get(o2) : Reflect.accessor(accessor.field(), o2.getClass()).get(o2);
+            if (options.nullsOnly && Obj.initialized(v1))
+                continue;
+
+            switch (step.kind) {
+                case COLLECTION:
+                    merge(o1, step.property, (Collection) v1, (Collection) v2, options, step, visited);
+                    break;
+                case MAP:
+                    Map m1 = (Map) v1;
+                    Map m2 = (Map) v2;
+                    if (Objects.nonNull(m1) && Objects.nonNull(m2)) {
+                        m1.putAll(m2);
+                        if (options.updateCollections)
+                            m1.keySet().retainAll(m2.keySet());
+                    }
+                    break;
+                case VALUE:
+                    if (!Objects.equals(v1, v2))
+                        accessor.set(o1, v2);
+                    break;
+                default:
+                    if (v1 != null)
+                        step.child(v1.getClass(), options).copy(v1, v2, visited);
+            }
+        }
+    }
+
+    /**
+     * Merge the source collection into the target collection in linear time.
+     * Both sides are indexed by element, or by the key field of the elements when the options name one.
+     * Matched elements are copied into with the nested plan, new elements are added with one adder call when the adder
+     * takes varargs, and with updateCollections the elements missing from the source are removed the same way.
+     */
+    @SuppressWarnings("rawtypes")
+    static void merge(Object o1, ClassMeta.Property property, Collection l1, Collection l2, Reflect.CopyOptions options)
+            throws ReflectiveOperationException {
+        merge(o1, property, l1, l2, options, null, null);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void merge(Object o1
+            , ClassMeta.Property property
+            , Collection l1
+            , Collection l2
+            , Reflect.CopyOptions options
+            , Step step
+            , Set<Object> visited) throws ReflectiveOperationException {
+        if (l1 == null || l2 == null)
+            return;
+        Keys keys = new Keys(options.mergeKey);
+        Map<Object, Object> index = new HashMap<>(l1.size() * 2);
+        for (Object it : l1) {
+            Object key = keys.of(it);
+            if (keys.matchable(key))
+                index.putIfAbsent(key, it);
+        }
+
+        List<Object> removals = null;
+        if (options.updateCollections) {
+            Set<Object> sourceKeys = new HashSet<>(l2.size() * 2);
+            for (Object it : l2)
+                sourceKeys.add(keys.of(it));
+            removals = new ArrayList<>();
+            for (Object it : l1) {
+                Object key = keys.of(it);
+                if (!keys.matchable(key) || !sourceKeys.contains(key))
+                    removals.add(it);
+            }
+        }
+
+        List<Object> additions = new ArrayList<>();
+        for (Object it : l2) {
+            Object key = keys.of(it);
+            if (keys.matchable(key) && index.containsKey(key)) {
+                Object match = index.get(key);
+                if (step != null && match != null)
+                    step.child(match.getClass(), options).copy(match, it, visited);
+            } else {
+                additions.add(it);
+                if (keys.matchable(key))
+                    index.put(key, it);
+            }
+        }
+
+        if (!additions.isEmpty()) {
+            if (property.adder != null)
+                invokeAll(o1, property.adder, additions);
+            else
+                l1.addAll(additions);
+        }
+        if (removals != null && !removals.isEmpty()) {
+            if (property.remover != null) {
+                invokeAll(o1, property.remover, removals);
+            } else {
+                Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+                removed.addAll(removals);
+                l1.removeIf(removed::contains);
+            }
+        }
+    }
+
+    // call a varargs adder or remover once with every value, other methods once per value
+    private static void invokeAll(Object o, Method method, List<Object> values) throws ReflectiveOperationException {
+        Class<?> param = method.getParameterTypes()[0];
+        if (method.isVarArgs() && method.getParameterCount() == 1) {
+            Object array = Array.newInstance(param.getComponentType(), values.size());
+            for (int i = 0; i < values.size(); i++)
+                Array.set(array, i, values.get(i));
+            method.invoke(o, array);
+        } else {
+            for (Object value : values)
+                method.invoke(o, value);
+        }
+    }
+
+    /**
+     * Reads the merge key of collection elements, the element itself when no key field is named
+     */
+    private static final class Keys {
+        private final String field;
+        private Class<?> cls;
+        private Accessor accessor;
+
+        Keys(String field) {
+            this.field = field;
+        }
+
+        Object of(Object element) throws ReflectiveOperationException {
+            if (field == null || element == null)
+                return element;
+            if (element.getClass() != cls) {
+                cls = element.getClass();
+                accessor = Reflect.accessor(cls, field)
+                        .orElseThrow(() -> new NoSuchFieldException("no such field " + field));
+            }
+            return accessor.get(element);
+        }
+
+        // elements without a key value are new and never match another element
+        boolean matchable(Object key) {
+            return field == null || key != null;
+        }
+    }
+
+    private static final class Step {
+        final ClassMeta.Property property;
+        final Accessor accessor;
+        final int kind;
+        final List<String> children;
+        // the plan for the last class seen in this field, fields almost always hold one class
+        private volatile CopyPlan child;
+
+        Step(ClassMeta.Property property, int kind, List<String> children) {
+            this.property = property;
+            this.accessor = property.accessor();
+            this.kind = kind;
+            this.children = children;
+        }
+
+        CopyPlan child(Class<?> cls, Reflect.CopyOptions options) {
+            CopyPlan plan = child;
+            if (plan == null || plan.type != cls)
+                child = plan = new CopyPlan(cls, children, options);
+            return plan;
+        }
+    }
+}
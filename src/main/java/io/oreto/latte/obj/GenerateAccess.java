@@ -0,0 +1,14 @@
+package io.oreto.latte.obj;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a class for which the PropertyAccessProcessor generates a PropertyAccess implementation at compile time.
+ * Reflect finds the generated class by its name, the class name with a _PropertyAccess suffix, and getFieldValue and
+ * setFieldValue by field name use it instead of scanning the class for fields, getters and setters.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateAccess {
+}
@@ -0,0 +1,50 @@
+package io.oreto.latte.obj;
+
+import java.util.Optional;
+
+/**
+ * The registry of PropertyAccess classes generated at compile time.
+ * A generated class is found by its name, the class name with a _PropertyAccess suffix, through the loader of the class
+ * it was generated for, and is remembered in a ClassValue of that class. Nothing outside the class holds on to it,
+ * so both go away with their class loader.
+ */
+final class GeneratedAccess {
+    private static final ClassValue<Optional<PropertyAccess<?>>> CACHE = new ClassValue<Optional<PropertyAccess<?>>>() {
+        @Override
+        protected Optional<PropertyAccess<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(load(type));
+        }
+    };
+
+    private GeneratedAccess() {}
+
+    /**
+     * @param type The class of interest
+     * @param <T> The type of the class
+     * @return The PropertyAccess generated for exactly this class, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    static <T> PropertyAccess<T> of(Class<T> type) {
+        return (PropertyAccess<T>) CACHE.get(type).orElse(null);
+    }
+
+    // nested classes are generated as Outer_Inner_PropertyAccess next to the top level class
+    private static PropertyAccess<?> load(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null || type.isArray() || type.isPrimitive())
+            return null;
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        name = name.substring(0, dot + 1) + name.substring(dot + 1).replace('$', '_') + PropertyAccessProcessor.SUFFIX;
+        try {
+            Class<?> generated = Class.forName(name, true, loader);
+            if (!PropertyAccess.class.isAssignableFrom(generated))
+                return null;
+            PropertyAccess<?> access = (PropertyAccess<?>) generated.getConstructor().newInstance();
+            return access.type() == type ? access : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not generated, or stale, the class falls back to reflection
+            return null;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package io.oreto.latte.obj;
+
+import io.oreto.latte.str.Interner;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Computes the property level changes between two object graphs and applies them to another graph.
+ * Objects are compared property by property through the cached class metadata and the same accessors Reflect.copy uses.
+ * Lists are matched by element equality, the way Reflect.copy merges collections, so matched elements are compared
+ * in place and only the elements which came, went or moved are removed and inserted by index.
+ */
+final class ObjectDiff {
+    private static final Interner PATHS = Interner.create();
+
+    private ObjectDiff() {}
+
+    /**
+     * The readable properties of a class compared by diff: public fields and fields with a getter,
+     * excluding static and transient fields and fields hidden by a sub class field of the same name
+     */
+    static final class Plan {
+        final String[] names;
+        final Accessor[] accessors;
+
+        Plan(ClassMeta meta) {
+            List<String> names = new ArrayList<>();
+            List<Accessor> accessors = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Field field : meta.fields(Reflect.Allow.none())) {
+                ClassMeta.Property property = meta.property(field);
+                if ((property.isPublic || property.getter != null) && seen.add(field.getName())) {
+                    names.add(field.getName());
+                    accessors.add(property.accessor());
+                }
+            }
+            this.names = names.toArray(new String[0]);
+            this.accessors = accessors.toArray(new Accessor[0]);
+        }
+    }
+
+    static List<Change> diff(Object a, Object b) throws ReflectiveOperationException {
+        List<Change> changes = new ArrayList<>();
+        if (a == b)
+            return changes;
+        if (a == null || b == null || a.getClass() != b.getClass())
+            throw new IllegalArgumentException(String.format("cannot diff %s and %s", name(a), name(b)));
+        diffObject(a, b, new StringBuilder(), new IdentityHashMap<>(), changes);
+        return changes;
+    }
+
+    private static String name(Object o) {
+        return o == null ? "null" : o.getClass().getName();
+    }
+
+    private static void diffObject(Object a
+            , Object b
+            , StringBuilder path
+            , Map<Object, Object> visited
+            , List<Change> changes) throws ReflectiveOperationException {
+        // each pair is compared once, which also ends cycles
+        if (visited.put(a, b) == b)
+            return;
+        Plan plan = ClassMeta.of(a.getClass()).diff();
+        int length = path.length();
+        for (int i = 0; i < plan.accessors.length; i++) {
+            Accessor accessor = plan.accessors[i];
+            if (length > 0)
+                path.append('.');
+            diffValue(accessor.get(a), accessor.get(b), path.append(plan.names[i]), visited, changes);
+            path.setLength(length);
+        }
+    }
+
+    private static void diffValue(Object a
+            , Object b
+            , StringBuilder path
+            , Map<Object, Object> visited
+            , List<Change> changes) throws ReflectiveOperationException {
+        if (a == b)
+            return;
+        if (a == null || b == null || a.getClass() != b.getClass()) {
+            changes.add(Change.set(PATHS.intern(path), b));
+        } else if (ClassMeta.of(a.getClass()).immutable) {
+            if (!a.equals(b))
+                changes.add(Change.set(PATHS.intern(path), b));
+        } else if (a.getClass().isArray()) {
+            if (!ObjectGraph.deepEquals(a, b, false))
+                changes.add(Change.set(PATHS.intern(path), b));
+        } else if (a instanceof List) {
+            diffList((List<?>) a, (List<?>) b, path, visited, changes);
+        } else if (a instanceof Collection) {
+            diffCollection((Collection<?>) a, (Collection<?>) b, path, changes);
+        } else if (a instanceof Map) {
+            diffMap((Map<?, ?>) a, (Map<?, ?>) b, path, changes);
+        } else {
+            diffObject(a, b, path, visited, changes);
+        }
+    }
+
+    /**
+     * Elements of b are matched to equal elements of a in order. The longest run of matched elements which keeps its
+     * order stays in place and is compared by index before the list changes shape. Every other element of a is then
+     * removed from the highest index down and every other element of b is inserted from the lowest index up,
+     * so each index holds when the changes are applied in order and the patched list has the order of b.
+     */
+    private static void diffList(List<?> a
+            , List<?> b
+            , StringBuilder path
+            , Map<Object, Object> visited
+            , List<Change> changes) throws ReflectiveOperationException {
+        Map<Object, Deque<Integer>> index = new HashMap<>(a.size() * 2);
+        for (int i = 0; i < a.size(); i++)
+            index.computeIfAbsent(a.get(i), k -> new ArrayDeque<>()).add(i);
+
+        // matches[i] is the index in b of the element matched to a[i], -1 when it has none
+        int[] matches = new int[a.size()];
+        Arrays.fill(matches, -1);
+        for (int j = 0; j < b.size(); j++) {
+            Deque<Integer> positions = index.get(b.get(j));
+            if (positions != null && !positions.isEmpty())
+                matches[positions.poll()] = j;
+        }
+        boolean[] kept = increasing(matches);
+        boolean[] placed = new boolean[b.size()];
+
+        int length = path.length();
+        for (int i = 0; i < matches.length; i++) {
+            if (kept[i]) {
+                placed[matches[i]] = true;
+                diffValue(a.get(i), b.get(matches[i]), path.append('[').append(i).append(']'), visited, changes);
+                path.setLength(length);
+            }
+        }
+        String name = PATHS.intern(path);
+        for (int i = matches.length - 1; i >= 0; i--) {
+            if (!kept[i])
+                changes.add(Change.remove(name, i, a.get(i)));
+        }
+        for (int j = 0; j < placed.length; j++) {
+            if (!placed[j])
+                changes.add(Change.add(name, j, b.get(j)));
+        }
+    }
+
+    // the matched positions forming the longest increasing run of b indexes, found by patience sorting
+    private static boolean[] increasing(int[] matches) {
+        int n = matches.length;
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int runs = 0;
+        for (int i = 0; i < n; i++) {
+            if (matches[i] < 0)
+                continue;
+            int low = 0, high = runs;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (matches[tails[mid]] < matches[i])
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == runs)
+                runs++;
+        }
+        boolean[] kept = new boolean[n];
+        for (int i = runs > 0 ? tails[runs - 1] : -1; i >= 0; i = previous[i])
+            kept[i] = true;
+        return kept;
+    }
+
+    private static void diffCollection(Collection<?> a, Collection<?> b, StringBuilder path, List<Change> changes) {
+        Set<?> bSet = b instanceof Set ? (Set<?>) b : new HashSet<>(b);
+        Set<?> aSet = a instanceof Set ? (Set<?>) a : new HashSet<>(a);
+        String name = PATHS.intern(path);
+        for (Object it : a) {
+            if (!bSet.contains(it))
+                changes.add(Change.remove(name, it));
+        }
+        for (Object it : b) {
+            if (!aSet.contains(it))
+                changes.add(Change.add(name, it));
+        }
+    }
+
+    private static void diffMap(Map<?, ?> a, Map<?, ?> b, StringBuilder path, List<Change> changes)
+            throws ReflectiveOperationException {
+        String name = PATHS.intern(path);
+        for (Object key : a.keySet()) {
+            if (!b.containsKey(key))
+                changes.add(Change.removeKey(name, key));
+        }
+        for (Map.Entry<?, ?> entry : b.entrySet()) {
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+            if (!a.containsKey(key) || !same(a.get(key), value))
+                changes.add(Change.put(name, key, value));
+        }
+    }
+
+    private static boolean same(Object a, Object b) throws ReflectiveOperationException {
+        if (a == b)
+            return true;
+        if (a == null || b == null || a.getClass() != b.getClass())
+            return false;
+        return ClassMeta.of(a.getClass()).immutable ? a.equals(b) : ObjectGraph.deepEquals(a, b, false);
+    }
+
+    static void patch(Object target, Iterable<Change> changes) throws ReflectiveOperationException {
+        Objects.requireNonNull(target);
+        for (Change change : changes)
+            apply(target, change);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void apply(Object target, Change change) throws ReflectiveOperationException {
+        String path = change.path();
+        Object owner = target;
+        int start = 0;
+        // walk down to the object holding the last segment, a property name or a list index
+        while (true) {
+            boolean isIndex = path.charAt(start) == '[';
+            int end = isIndex ? path.indexOf(']', start) : next(path, start);
+            if (end < 0)
+                throw new IllegalArgumentException("invalid path " + path);
+            String segment = path.substring(isIndex ? start + 1 : start, end);
+            int after = isIndex ? end + 1 : end;
+            boolean last = after == path.length();
+
+            if (isIndex) {
+                if (!(owner instanceof List))
+                    throw new NoSuchFieldException(String.format("%s is not a list", path.substring(0, start)));
+                List<Object> list = (List<Object>) owner;
+                int i = Integer.parseInt(segment);
+                if (last) {
+                    if (change.type() != Change.Type.SET)
+                        update(list.get(i), null, null, change);
+                    else
+                        list.set(i, change.value());
+                    return;
+                }
+                owner = list.get(i);
+            } else {
+                ClassMeta.Property property = ClassMeta.of(owner.getClass()).property(segment);
+                if (property == null)
+                    throw new NoSuchFieldException("no such field " + path.substring(0, end));
+                if (last) {
+                    if (change.type() == Change.Type.SET)
+                        property.accessor().set(owner, change.value());
+                    else
+                        update(property.accessor().get(owner), owner, property, change);
+                    return;
+                }
+                owner = property.accessor().get(owner);
+            }
+            if (owner == null)
+                throw new NoSuchFieldException(String.format("%s is null", path.substring(0, after)));
+            start = after < path.length() && path.charAt(after) == '.' ? after + 1 : after;
+        }
+    }
+
+    private static int next(String path, int start) {
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '.' || c == '[')
+                return i;
+        }
+        return path.length();
+    }
+
+    // add, remove, put or remove a key through the owner's adder and remover when it has them
+    private static void update(Object value, Object owner, ClassMeta.Property property, Change change)
+            throws ReflectiveOperationException {
+        switch (change.type()) {
+            case ADD:
+                if (change.key() != null)
+                    list(value, change).add((Integer) change.key(), change.value());
+                else if (property != null && property.adder != null)
+                    invoke(owner, property.adder, change.value());
+                else
+                    collection(value, change).add(change.value());
+                break;
+            case REMOVE:
+                if (change.key() != null)
+                    list(value, change).remove((int) (Integer) change.key());
+                else if (property != null && property.remover != null)
+                    invoke(owner, property.remover, change.value());
+                else
+                    collection(value, change).remove(change.value());
+                break;
+            case PUT:
+                map(value, change).put(change.key(), change.value());
+                break;
+            default:
+                map(value, change).remove(change.key());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> collection(Object value, Change change) throws NoSuchFieldException {
+        if (value instanceof Collection)
+            return (Collection<Object>) value;
+        throw new NoSuchFieldException(String.format("%s is not a collection", change.path()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value, Change change) throws NoSuchFieldException {
+        if (value instanceof List)
+            return (List<Object>) value;
+        throw new NoSuchFieldException(String.format("%s is not a list", change.path()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> map(Object value, Change change) throws NoSuchFieldException {
+        if (value instanceof Map)
+            return (Map<Object, Object>) value;
+        throw new NoSuchFieldException(String.format("%s is not a map", change.path()));
+    }
+
+    private static void invoke(Object o, Method method, Object value) throws ReflectiveOperationException {
+        if (method.isVarArgs() && method.getParameterCount() == 1) {
+            Object array = Array.newInstance(method.getParameterTypes()[0].getComponentType(), 1);
+            Array.set(array, 0, value);
+            method.invoke(o, array);
+        } else {
+            method.invoke(o, value);
+        }
+    }
+}
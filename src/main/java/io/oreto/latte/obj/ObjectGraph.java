@@ -0,0 +1,642 @@
+package io.oreto.latte.obj;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Field level deep clone, deep equals and deep hash of object graphs.
+ * Objects are tracked by identity, so shared references and cycles in the source are shared and cyclic in the clone,
+ * and two distinct but equal objects are still both visited. Immutable values such as strings, numbers, enums, dates
+ * and temporals are shared rather than copied. Classes whose fields the runtime does not let us reach
+ * are treated like values: shared by clone, compared with equals and hashed with hashCode.
+ * In parallel mode the elements of large collections and arrays are processed on the common fork join pool.
+ */
+final class ObjectGraph {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SET = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // collections smaller than this are not worth splitting across threads
+    static final int PARALLEL_THRESHOLD = 1 << 10;
+
+    private ObjectGraph() { }
+
+    /**
+     * The instance fields of a class with method handles which read and write them directly
+     */
+    static final class Plan {
+        final Constructor<?> constructor;
+        final MethodHandle[] getters;
+        final MethodHandle[] setters;
+        // fields holding immutable values are copied without looking at the value
+        final boolean[] immutable;
+        // transient fields take part in clone but not in equals and hash
+        final boolean[] transients;
+        final boolean opaque;
+
+        Plan(Class<?> type, List<Field> fields) {
+            List<Field> instance = new ArrayList<>();
+            for (Field field : fields) {
+                if (!Modifier.isStatic(field.getModifiers()))
+                    instance.add(field);
+            }
+            int n = instance.size();
+            MethodHandle[] getters = new MethodHandle[n];
+            MethodHandle[] setters = new MethodHandle[n];
+            boolean[] immutable = new boolean[n];
+            boolean[] transients = new boolean[n];
+            boolean opaque = false;
+            for (int i = 0; i < n && !opaque; i++) {
+                Field field = instance.get(i);
+                try {
+                    field.setAccessible(true);
+                    getters[i] = LOOKUP.unreflectGetter(field).asType(GET);
+                    setters[i] = LOOKUP.unreflectSetter(field).asType(SET);
+                } catch (IllegalAccessException | RuntimeException e) {
+                    // the module system keeps the internals of this class to itself
+                    opaque = true;
+                }
+                Class<?> fieldType = field.getType();
+                immutable[i] = ClassMeta.of(fieldType).immutable
+                        && (fieldType.isPrimitive() || Modifier.isFinal(fieldType.getModifiers()));
+                transients[i] = Modifier.isTransient(field.getModifiers());
+            }
+            this.getters = getters;
+            this.setters = setters;
+            this.immutable = immutable;
+            this.transients = transients;
+            this.opaque = opaque;
+            this.constructor = opaque ? null : constructor(type);
+        }
+
+        private static Constructor<?> constructor(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+                return null;
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(type.getModifiers()))
+                    constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        Object get(int i, Object o) {
+            try {
+                return getters[i].invokeExact(o);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        void set(int i, Object o, Object value) {
+            try {
+                setters[i].invokeExact(o, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new Failure(new InvocationTargetException(t));
+    }
+
+    /**
+     * Carries a ReflectiveOperationException out of lambdas and parallel tasks
+     */
+    private static final class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Failure(ReflectiveOperationException cause) {
+            super(cause);
+        }
+
+        ReflectiveOperationException reflective() {
+            return (ReflectiveOperationException) getCause();
+        }
+    }
+
+    private static boolean isImmutable(Object o) {
+        return ClassMeta.of(o.getClass()).immutable;
+    }
+
+    private static boolean isLarge(int size, boolean parallel) {
+        return parallel && size >= PARALLEL_THRESHOLD;
+    }
+
+    // ---------------------------------------------------------------- clone
+
+    /**
+     * The copies made so far keyed by the identity of their originals
+     */
+    private interface Copies {
+        Object get(Object original);
+
+        // keep the copy unless another thread registered one first, the registered copy is returned
+        Object register(Object original, Object copy);
+    }
+
+    private static final class IdentityCopies implements Copies {
+        private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+        @Override
+        public Object get(Object original) {
+            return copies.get(original);
+        }
+
+        @Override
+        public Object register(Object original, Object copy) {
+            copies.put(original, copy);
+            return copy;
+        }
+    }
+
+    private static final class ConcurrentCopies implements Copies {
+        private final Map<Identity, Object> copies = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(Object original) {
+            return copies.get(new Identity(original));
+        }
+
+        @Override
+        public Object register(Object original, Object copy) {
+            Object registered = copies.putIfAbsent(new Identity(original), copy);
+            return registered == null ? copy : registered;
+        }
+    }
+
+    private static final class Identity {
+        private final Object o;
+
+        Identity(Object o) {
+            this.o = o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(o);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Identity && ((Identity) other).o == o;
+        }
+    }
+
+    static <T> T deepClone(T o, boolean parallel) throws ReflectiveOperationException {
+        try {
+            @SuppressWarnings("unchecked")
+            T copy = (T) copy(o, parallel ? new ConcurrentCopies() : new IdentityCopies(), parallel);
+            return copy;
+        } catch (Failure e) {
+            throw e.reflective();
+        }
+    }
+
+    private static Object copy(Object o, Copies copies, boolean parallel) {
+        if (o == null || isImmutable(o))
+            return o;
+        Object copy = copies.get(o);
+        if (copy != null)
+            return copy;
+
+        Class<?> type = o.getClass();
+        if (type.isArray())
+            return copyArray(o, copies, parallel);
+        if (o instanceof Collection)
+            return copyCollection((Collection<?>) o, copies, parallel);
+        if (o instanceof Map)
+            return copyMap((Map<?, ?>) o, copies, parallel);
+
+        Plan plan = ClassMeta.of(type).graph();
+        if (plan.opaque)
+            return o;
+        if (plan.constructor == null)
+            throw new Failure(new NoSuchMethodException("No default constructor for " + type.getName()));
+        try {
+            copy = plan.constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new Failure(e);
+        }
+        Object registered = copies.register(o, copy);
+        if (registered != copy)
+            return registered;
+        for (int i = 0; i < plan.getters.length; i++) {
+            Object value = plan.get(i, o);
+            plan.set(i, copy, plan.immutable[i] ? value : copy(value, copies, parallel));
+        }
+        return copy;
+    }
+
+    private static Object copyArray(Object array, Copies copies, boolean parallel) {
+        int length = Array.getLength(array);
+        Class<?> component = array.getClass().getComponentType();
+        Object copy = Array.newInstance(component, length);
+        Object registered = copies.register(array, copy);
+        if (registered != copy)
+            return registered;
+        if (component.isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            Object[] from = (Object[]) array;
+            Object[] to = (Object[]) copy;
+            if (isLarge(length, parallel))
+                IntStream.range(0, length).parallel().forEach(i -> to[i] = copy(from[i], copies, true));
+            else
+                for (int i = 0; i < length; i++) to[i] = copy(from[i], copies, parallel);
+        }
+        return copy;
+    }
+
+    private static Object[] copyAll(Collection<?> collection, Copies copies, boolean parallel) {
+        Object[] items = collection.toArray();
+        if (isLarge(items.length, parallel))
+            IntStream.range(0, items.length).parallel().forEach(i -> items[i] = copy(items[i], copies, true));
+        else
+            for (int i = 0; i < items.length; i++) items[i] = copy(items[i], copies, parallel);
+        return items;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Object copyCollection(Collection<?> collection, Copies copies, boolean parallel) {
+        Collection copy;
+        if (collection instanceof SortedSet)
+            copy = new TreeSet(((SortedSet) collection).comparator());
+        else if ((copy = (Collection) newInstance(collection.getClass())) == null)
+            copy = collection instanceof List ? new ArrayList<>(collection.size())
+                    : collection instanceof Set ? new LinkedHashSet<>()
+                    : collection instanceof Queue ? new ArrayDeque<>(collection.size())
+                    : new ArrayList<>(collection.size());
+        Object registered = copies.register(collection, copy);
+        if (registered != copy)
+            return registered;
+        copy.addAll(Arrays.asList(copyAll(collection, copies, parallel)));
+        return copy;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Object copyMap(Map<?, ?> map, Copies copies, boolean parallel) {
+        Map copy;
+        if (map instanceof SortedMap)
+            copy = new TreeMap(((SortedMap) map).comparator());
+        else if (map instanceof EnumMap)
+            copy = new EnumMap((EnumMap) map);
+        else if ((copy = (Map) newInstance(map.getClass())) == null)
+            copy = new LinkedHashMap<>();
+        Object registered = copies.register(map, copy);
+        if (registered != copy)
+            return registered;
+        copy.clear();
+        Object[] keys = copyAll(map.keySet(), copies, parallel);
+        Object[] values = copyAll(map.values(), copies, parallel);
+        for (int i = 0; i < keys.length; i++)
+            copy.put(keys[i], values[i]);
+        return copy;
+    }
+
+    // a new empty collection or map of the same class, null if the class cannot be created that way
+    private static Object newInstance(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()))
+            return null;
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------- equals
+
+    static boolean deepEquals(Object a, Object b, boolean parallel) throws ReflectiveOperationException {
+        try {
+            return equal(a, b, new Pairs(null), parallel);
+        } catch (Failure e) {
+            throw e.reflective();
+        }
+    }
+
+    /**
+     * The pairs being compared or found equal, keyed by the identity of the first object.
+     * A parallel task reads the pairs of the task which forked it and records its own,
+     * the forking task waits for its tasks so its pairs do not change under them.
+     * While a trial runs the pairs it adds are logged so they can be taken back when it fails.
+     */
+    private static final class Pairs {
+        private final Pairs parent;
+        private final Map<Object, Object> pairs = new IdentityHashMap<>();
+        // the key and previous value of each pair put while a trial runs
+        private final List<Object> log = new ArrayList<>();
+        private int trials;
+
+        Pairs(Pairs parent) {
+            this.parent = parent;
+        }
+
+        boolean contains(Object a, Object b) {
+            for (Pairs p = this; p != null; p = p.parent) {
+                Object paired = p.pairs.get(a);
+                if (paired != null)
+                    return paired == b;
+            }
+            return false;
+        }
+
+        void put(Object a, Object b) {
+            Object previous = pairs.put(a, b);
+            if (trials > 0) {
+                log.add(a);
+                log.add(previous);
+            }
+        }
+
+        int mark() {
+            trials++;
+            return log.size();
+        }
+
+        void keep() {
+            if (--trials == 0)
+                log.clear();
+        }
+
+        void rollback(int mark) {
+            for (int i = log.size() - 2; i >= mark; i -= 2) {
+                Object previous = log.get(i + 1);
+                if (previous == null)
+                    pairs.remove(log.get(i));
+                else
+                    pairs.put(log.get(i), previous);
+            }
+            log.subList(mark, log.size()).clear();
+            if (--trials == 0)
+                log.clear();
+        }
+    }
+
+    // pairs already being compared are assumed equal, which ends cycles
+    private static boolean equal(Object a, Object b, Pairs pairs, boolean parallel) {
+        if (a == b)
+            return true;
+        if (a == null || b == null || a.getClass() != b.getClass())
+            return false;
+        if (isImmutable(a))
+            return a.equals(b);
+        if (pairs.contains(a, b))
+            return true;
+        pairs.put(a, b);
+
+        Class<?> type = a.getClass();
+        if (type.isArray()) {
+            if (type.getComponentType().isPrimitive())
+                return primitiveArraysEqual(a, b);
+            return sequencesEqual((Object[]) a, (Object[]) b, pairs, parallel);
+        }
+        if (a instanceof List || (a instanceof Collection && !(a instanceof Set)))
+            return ((Collection<?>) a).size() == ((Collection<?>) b).size()
+                    && sequencesEqual(((Collection<?>) a).toArray(), ((Collection<?>) b).toArray(), pairs, parallel);
+        if (a instanceof Set)
+            return setsEqual((Set<?>) a, (Set<?>) b, pairs, parallel);
+        if (a instanceof Map)
+            return mapsEqual((Map<?, ?>) a, (Map<?, ?>) b, pairs, parallel);
+
+        Plan plan = ClassMeta.of(type).graph();
+        if (plan.opaque)
+            return a.equals(b);
+        for (int i = 0; i < plan.getters.length; i++) {
+            if (plan.transients[i])
+                continue;
+            Object va = plan.get(i, a);
+            Object vb = plan.get(i, b);
+            if (!(plan.immutable[i] ? Objects.equals(va, vb) : equal(va, vb, pairs, parallel)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean sequencesEqual(Object[] a, Object[] b, Pairs pairs, boolean parallel) {
+        if (a.length != b.length)
+            return false;
+        if (isLarge(a.length, parallel))
+            return IntStream.range(0, a.length).parallel()
+                    .allMatch(i -> equal(a[i], b[i], new Pairs(pairs), true));
+        for (int i = 0; i < a.length; i++) {
+            if (!equal(a[i], b[i], pairs, parallel))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean setsEqual(Set<?> a, Set<?> b, Pairs pairs, boolean parallel) {
+        if (a.size() != b.size())
+            return false;
+        // pair elements up by equals first, only elements whose equals is shallower than deep equals need a search
+        Map<Object, Object> index = new HashMap<>(b.size() * 2);
+        for (Object item : b)
+            index.putIfAbsent(item, item);
+        for (Object item : a) {
+            Object match = index.get(item);
+            if ((match != null || (item == null && index.containsKey(null)))
+                    && trial(item, match, pairs, parallel))
+                continue;
+            boolean found = false;
+            for (Object other : b) {
+                if (trial(item, other, pairs, parallel)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found)
+                return false;
+        }
+        return true;
+    }
+
+    // a failed comparison must not leave its pairs behind to be taken as equal by the next one
+    private static boolean trial(Object a, Object b, Pairs pairs, boolean parallel) {
+        if (a == null || isImmutable(a))
+            return equal(a, b, pairs, parallel);
+        int mark = pairs.mark();
+        boolean equal = false;
+        try {
+            equal = equal(a, b, pairs, parallel);
+        } finally {
+            if (equal)
+                pairs.keep();
+            else
+                pairs.rollback(mark);
+        }
+        return equal;
+    }
+
+    private static boolean mapsEqual(Map<?, ?> a, Map<?, ?> b, Pairs pairs, boolean parallel) {
+        if (a.size() != b.size())
+            return false;
+        for (Map.Entry<?, ?> entry : a.entrySet()) {
+            Object key = entry.getKey();
+            if (!b.containsKey(key) || !equal(entry.getValue(), b.get(key), pairs, parallel))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean primitiveArraysEqual(Object a, Object b) {
+        if (a instanceof int[]) return Arrays.equals((int[]) a, (int[]) b);
+        if (a instanceof long[]) return Arrays.equals((long[]) a, (long[]) b);
+        if (a instanceof double[]) return Arrays.equals((double[]) a, (double[]) b);
+        if (a instanceof byte[]) return Arrays.equals((byte[]) a, (byte[]) b);
+        if (a instanceof char[]) return Arrays.equals((char[]) a, (char[]) b);
+        if (a instanceof boolean[]) return Arrays.equals((boolean[]) a, (boolean[]) b);
+        if (a instanceof float[]) return Arrays.equals((float[]) a, (float[]) b);
+        return Arrays.equals((short[]) a, (short[]) b);
+    }
+
+    // ---------------------------------------------------------------- hash
+
+    static int deepHash(Object o, boolean parallel) throws ReflectiveOperationException {
+        try {
+            return hash(o, new Hashes(null), parallel);
+        } catch (Failure e) {
+            throw e.reflective();
+        }
+    }
+
+    /**
+     * The objects being hashed further up with their depth, and the hashes of finished objects.
+     * A hash is only kept when nothing below the object referred back above it, so a kept hash does not depend on
+     * the path it was reached by and every later reference to the object reuses it.
+     * A parallel task reads the finished hashes of the task which forked it and records its own.
+     */
+    private static final class Hashes {
+        private final Hashes parent;
+        private final Map<Object, Integer> path;
+        private final Map<Object, Integer> done = new IdentityHashMap<>();
+        // the shallowest depth a reference back to the path reached below the current object
+        int low = Integer.MAX_VALUE;
+
+        Hashes(Hashes parent) {
+            this.parent = parent;
+            this.path = parent == null ? new IdentityHashMap<>() : new IdentityHashMap<>(parent.path);
+        }
+
+        Integer done(Object o) {
+            for (Hashes h = this; h != null; h = h.parent) {
+                Integer hash = h.done.get(o);
+                if (hash != null)
+                    return hash;
+            }
+            return null;
+        }
+    }
+
+    // a reference back to an object being hashed further up adds nothing
+    private static int hash(Object o, Hashes hashes, boolean parallel) {
+        if (o == null)
+            return 0;
+        if (isImmutable(o))
+            return o.hashCode();
+        Integer done = hashes.done(o);
+        if (done != null)
+            return done;
+        Integer onPath = hashes.path.get(o);
+        if (onPath != null) {
+            hashes.low = Math.min(hashes.low, onPath);
+            return 0;
+        }
+        int depth = hashes.path.size();
+        int low = hashes.low;
+        hashes.path.put(o, depth);
+        hashes.low = Integer.MAX_VALUE;
+        try {
+            int h = hashObject(o, hashes, parallel);
+            if (hashes.low >= depth)
+                hashes.done.put(o, h);
+            return h;
+        } finally {
+            hashes.path.remove(o);
+            hashes.low = Math.min(low, hashes.low);
+        }
+    }
+
+    private static int hashObject(Object o, Hashes hashes, boolean parallel) {
+        Class<?> type = o.getClass();
+        if (type.isArray()) {
+            if (type.getComponentType().isPrimitive())
+                return primitiveArrayHash(o);
+            return sequenceHash((Object[]) o, hashes, parallel);
+        }
+        if (o instanceof Set) {
+            // order independent like Set.hashCode
+            int h = 0;
+            for (Object item : (Set<?>) o)
+                h += hash(item, hashes, false);
+            return h;
+        }
+        if (o instanceof Collection)
+            return sequenceHash(((Collection<?>) o).toArray(), hashes, parallel);
+        if (o instanceof Map) {
+            int h = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet())
+                h += hash(entry.getKey(), hashes, parallel) ^ hash(entry.getValue(), hashes, parallel);
+            return h;
+        }
+
+        Plan plan = ClassMeta.of(type).graph();
+        if (plan.opaque)
+            return o.hashCode();
+        // the class name rather than the class identity keeps hashes stable from one run to the next
+        int h = type.getName().hashCode();
+        for (int i = 0; i < plan.getters.length; i++) {
+            if (plan.transients[i])
+                continue;
+            Object value = plan.get(i, o);
+            h = 31 * h + (plan.immutable[i] ? Objects.hashCode(value) : hash(value, hashes, parallel));
+        }
+        return h;
+    }
+
+    private static int sequenceHash(Object[] items, Hashes hashes, boolean parallel) {
+        int[] codes = new int[items.length];
+        if (isLarge(items.length, parallel)) {
+            Hashes[] branches = new Hashes[items.length];
+            IntStream.range(0, items.length).parallel().forEach(i -> {
+                branches[i] = new Hashes(hashes);
+                codes[i] = hash(items[i], branches[i], true);
+            });
+            for (Hashes branch : branches) {
+                hashes.done.putAll(branch.done);
+                hashes.low = Math.min(hashes.low, branch.low);
+            }
+        } else {
+            for (int i = 0; i < items.length; i++) codes[i] = hash(items[i], hashes, parallel);
+        }
+        return Arrays.hashCode(codes);
+    }
+
+    private static int primitiveArrayHash(Object a) {
+        if (a instanceof int[]) return Arrays.hashCode((int[]) a);
+        if (a instanceof long[]) return Arrays.hashCode((long[]) a);
+        if (a instanceof double[]) return Arrays.hashCode((double[]) a);
+        if (a instanceof byte[]) return Arrays.hashCode((byte[]) a);
+        if (a instanceof char[]) return Arrays.hashCode((char[]) a);
+        if (a instanceof boolean[]) return Arrays.hashCode((boolean[]) a);
+        if (a instanceof float[]) return Arrays.hashCode((float[]) a);
+        return Arrays.hashCode((short[]) a);
+    }
+}
@@ -0,0 +1,60 @@
+package io.oreto.latte.obj;
+
+import java.util.List;
+
+/**
+ * Reflection free property access to one class, generated at compile time for classes marked with GenerateAccess.
+ * Properties are the instance fields of the class and its super classes, except transient and underscore prefixed fields,
+ * read through a public field or public getter and written through a public non-final field or public setter.
+ * Reflect finds implementations by their generated name, the class name with a _PropertyAccess suffix.
+ * @param <T> The class the properties belong to
+ */
+public interface PropertyAccess<T> {
+    /**
+     * @return The class the properties belong to
+     */
+    Class<T> type();
+
+    /**
+     * @return The property names, declared fields first
+     */
+    List<String> names();
+
+    /**
+     * @param name The property name
+     * @return True if the property can be read
+     */
+    boolean isReadable(String name);
+
+    /**
+     * @param name The property name
+     * @return True if the property can be written
+     */
+    boolean isWritable(String name);
+
+    /**
+     * Get the property value of the object
+     * @param o The object of interest
+     * @param name The property name
+     * @return The property value
+     * @throws ReflectiveOperationException If the property does not exist or can not be read
+     */
+    Object get(T o, String name) throws ReflectiveOperationException;
+
+    /**
+     * Set the property value of the object
+     * @param o The object of interest
+     * @param name The property name
+     * @param value The property value
+     * @throws ReflectiveOperationException If the property does not exist or can not be written
+     */
+    void set(T o, String name, Object value) throws ReflectiveOperationException;
+
+    /**
+     * Copy every property which can be both read and written from the source to the target.
+     * The copy is shallow, the target shares the property values of the source
+     * @param target The object to copy to
+     * @param source The object to copy from
+     */
+    void copy(T target, T source);
+}
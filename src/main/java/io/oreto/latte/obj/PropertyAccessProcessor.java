@@ -0,0 +1,254 @@
+package io.oreto.latte.obj;
+
+import io.oreto.latte.str.Str;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a PropertyAccess implementation for every class marked with GenerateAccess.
+ * The generated class is named after the class with a _PropertyAccess suffix and lives in the same package,
+ * which is the name Reflect looks it up by.
+ * Properties are the fields Reflect reaches by name, so static, transient and underscore prefixed fields are left out.
+ * Getters and setters are found the way Reflect finds them: getX, isX or x to read and setX, withX or x to write.
+ */
+@SupportedAnnotationTypes("io.oreto.latte.obj.GenerateAccess")
+public class PropertyAccessProcessor extends AbstractProcessor {
+    static final String SUFFIX = "_PropertyAccess";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (valid(element))
+                    generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private boolean valid(Element element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        String reason = null;
+        if (element.getKind() != ElementKind.CLASS)
+            reason = "only classes";
+        else if (!modifiers.contains(Modifier.PUBLIC))
+            reason = "only public classes";
+        else if (element.getEnclosingElement().getKind() != ElementKind.PACKAGE && !modifiers.contains(Modifier.STATIC))
+            reason = "only top level or static nested classes";
+        if (reason != null)
+            processingEnv.getMessager()
+                    .printMessage(Diagnostic.Kind.ERROR, "@GenerateAccess supports " + reason, element);
+        return reason == null;
+    }
+
+    /**
+     * One property of the class and the member expressions which read and write it, null when it can not be
+     */
+    private static final class Property {
+        final String name;
+        final String type;
+        // a field name or getter call
+        String read;
+        // a field assignment or setter call with a %s placeholder for the value
+        String write;
+
+        Property(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private void generate(TypeElement type) {
+        Types types = processingEnv.getTypeUtils();
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = type.getQualifiedName().toString();
+        String simpleName = (packageName.isEmpty() ? className : className.substring(packageName.length() + 1))
+                .replace('.', '_') + SUFFIX;
+
+        List<Property> properties = properties(type, types);
+        Str str = Str.empty();
+        if (!packageName.isEmpty())
+            str.add("package ", packageName, ";").br(2);
+        str.add("// generated by ", getClass().getName()).br()
+                .add("@SuppressWarnings({\"unchecked\", \"rawtypes\"})").br()
+                .add("public final class ", simpleName
+                        , " implements io.oreto.latte.obj.PropertyAccess<", className, "> {").br()
+                .space(4).add("private static final java.util.List<String> NAMES = java.util.Collections.unmodifiableList(")
+                .br().space(12).add("java.util.Arrays.asList(");
+        for (int i = 0; i < properties.size(); i++)
+            str.add(i == 0 ? "" : ", ", "\"", properties.get(i).name, "\"");
+        str.add("));").br(2);
+
+        str.space(4).add("@Override public Class<", className, "> type() {").br()
+                .space(8).add("return ", className, ".class;").br()
+                .space(4).add("}").br(2)
+                .space(4).add("@Override public java.util.List<String> names() {").br()
+                .space(8).add("return NAMES;").br()
+                .space(4).add("}").br(2);
+
+        names(str, "isReadable", properties, true);
+        names(str, "isWritable", properties, false);
+
+        str.space(4).add("@Override public Object get(", className, " o, String name)")
+                .add(" throws ReflectiveOperationException {").br()
+                .space(8).add("switch (name) {").br();
+        for (Property property : properties) {
+            if (property.read != null)
+                str.space(12).add("case \"", property.name, "\": return o.", property.read, ";").br();
+        }
+        str.space(12).add("default: throw missing(name, \"getters\");").br()
+                .space(8).add("}").br()
+                .space(4).add("}").br(2);
+
+        str.space(4).add("@Override public void set(", className, " o, String name, Object value)")
+                .add(" throws ReflectiveOperationException {").br()
+                .space(8).add("switch (name) {").br();
+        for (Property property : properties) {
+            if (property.write != null)
+                str.space(12).add("case \"", property.name, "\": o.")
+                        .add(String.format(property.write, "(" + property.type + ") value"), "; return;").br();
+        }
+        str.space(12).add("default: throw missing(name, \"setters\");").br()
+                .space(8).add("}").br()
+                .space(4).add("}").br(2);
+
+        str.space(4).add("@Override public void copy(", className, " target, ", className, " source) {").br();
+        for (Property property : properties) {
+            if (property.read != null && property.write != null)
+                str.space(8).add("target.", String.format(property.write, "source." + property.read), ";").br();
+        }
+        str.space(4).add("}").br(2);
+
+        str.space(4).add("private static ReflectiveOperationException missing(String name, String kind) {").br()
+                .space(8).add("return NAMES.contains(name)").br()
+                .space(16).add("? new NoSuchMethodException(String.format(\"No %s found for %s\", kind, name))").br()
+                .space(16).add(": new NoSuchFieldException(\"no such field \" + name);").br()
+                .space(4).add("}").br()
+                .add("}").br();
+
+        String qualified = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualified, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(str.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), type);
+        }
+    }
+
+    private static void names(Str str, String method, List<Property> properties, boolean read) {
+        str.space(4).add("@Override public boolean ", method, "(String name) {").br()
+                .space(8).add("switch (name) {").br();
+        boolean any = false;
+        for (Property property : properties) {
+            if ((read ? property.read : property.write) != null) {
+                str.space(12).add("case \"", property.name, "\":").br();
+                any = true;
+            }
+        }
+        if (any)
+            str.space(16).add("return true;").br();
+        str.space(12).add("default: return false;").br()
+                .space(8).add("}").br()
+                .space(4).add("}").br(2);
+    }
+
+    // instance fields of the class and its super classes, the first field of a name hides the others
+    private List<Property> properties(TypeElement type, Types types) {
+        Map<String, List<ExecutableElement>> methods = new HashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC))
+                methods.computeIfAbsent(method.getSimpleName().toString(), k -> new ArrayList<>()).add(method);
+        }
+
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (TypeElement t = type; t != null; t = superclass(t)) {
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                String name = field.getSimpleName().toString();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)
+                        || name.startsWith("_") || properties.containsKey(name))
+                    continue;
+                TypeMirror fieldType = types.erasure(field.asType());
+                Property property = new Property(name, boxed(fieldType, types));
+                String capitalized = Str.capitalize(name);
+                boolean isPublic = modifiers.contains(Modifier.PUBLIC);
+
+                ExecutableElement getter = getter(methods, fieldType, types, "get" + capitalized, "is" + capitalized, name);
+                if (isPublic)
+                    property.read = name;
+                else if (getter != null)
+                    property.read = getter.getSimpleName() + "()";
+
+                ExecutableElement setter = setter(methods, fieldType, types, "set" + capitalized, "with" + capitalized, name);
+                if (isPublic && !modifiers.contains(Modifier.FINAL))
+                    property.write = name + " = %s";
+                else if (setter != null)
+                    property.write = setter.getSimpleName() + "(%s)";
+                properties.put(name, property);
+            }
+        }
+        return new ArrayList<>(properties.values());
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED)
+            return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private static String boxed(TypeMirror type, Types types) {
+        return type.getKind().isPrimitive()
+                ? types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString()
+                : type.toString();
+    }
+
+    private static ExecutableElement getter(Map<String, List<ExecutableElement>> methods
+            , TypeMirror type
+            , Types types
+            , String... names) {
+        for (String name : names) {
+            for (ExecutableElement method : methods.getOrDefault(name, Collections.emptyList())) {
+                if (method.getParameters().isEmpty()
+                        && types.isSameType(types.erasure(method.getReturnType()), type))
+                    return method;
+            }
+        }
+        return null;
+    }
+
+    private static ExecutableElement setter(Map<String, List<ExecutableElement>> methods
+            , TypeMirror type
+            , Types types
+            , String... names) {
+        for (String name : names) {
+            for (ExecutableElement method : methods.getOrDefault(name, Collections.emptyList())) {
+                if (method.getParameters().size() == 1 && !method.isVarArgs()
+                        && types.isSameType(types.erasure(method.getParameters().get(0).asType()), type))
+                    return method;
+            }
+        }
+        return null;
+    }
+}
@@ -1,15 +1,11 @@
 package io.oreto.latte.obj;
 
 import io.oreto.latte.collections.Lists;
-import io.oreto.latte.str.Noun;
-import io.oreto.latte.str.Str;
+import io.oreto.latte.str.Interner;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
-import java.time.temporal.Temporal;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * Reflection Utilities
@@ -46,6 +42,23 @@ public class Reflect {
         boolean underscore;
         boolean jsonIgnore = true;
 
+        // number of distinct field filters, one bit per option which filters fields
+        static final int MASKS = 16;
+
+        Allow copy() {
+            Allow allow = new Allow();
+            allow.trans = trans;
+            allow._static = _static;
+            allow._final = _final;
+            allow.underscore = underscore;
+            allow.jsonIgnore = jsonIgnore;
+            return allow;
+        }
+
+        int mask() {
+            return (trans ? 1 : 0) | (_static ? 2 : 0) | (_final ? 4 : 0) | (underscore ? 8 : 0);
+        }
+
         /**
          * Allow transient fields
          * @return The allow options object
@@ -137,28 +150,8 @@ public class Reflect {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static void parameterNames(Map<String, Object> paramMap, String path, List<String> names) {
-        for (String key : paramMap.keySet()) {
-            Object val = paramMap.get(key);
-            if (val instanceof List) {
-                List<?> items = (List<?>) val;
-                if (items.size() > 0 && items.get(0) instanceof Map) {
-                    parameterNames((Map<String, Object>) items.get(0)
-                            , Str.isEmpty(path) ? key : String.format("%s.%s", path, key)
-                            , names);
-                } else {
-                    names.add(Str.isEmpty(path) ? key : String.format("%s.%s", path, key));
-                }
-            } else if (val instanceof Map) {
-                parameterNames((Map<String, Object>) val
-                        , Str.isEmpty(path) ? key : String.format("%s.%s", path, key)
-                        , names);
-            } else {
-                names.add(Str.isEmpty(path) ? key : String.format("%s.%s", path, key));
-            }
-        }
-    }
+    // paths repeat across requests and objects of the same shape, keep one instance of each
+    private static final Interner PATHS = Interner.create();
 
     /**
      * Get all unique parameter names from a parameter map
@@ -166,30 +159,204 @@ public class Reflect {
      * @return A unique list of string names
      */
     public static List<String> parameterNames(Map<String, Object> paramMap) {
-        List<String> names = new ArrayList<>();
-        parameterNames(paramMap, "", names);
-        return names.stream().distinct().collect(Collectors.toList());
-    }
-
-    private static List<Field> getAllFields(Class<?> aClass, List<Field> fields, Allow allow) {
-        fields.addAll(
-                Arrays.stream(aClass.getDeclaredFields())
-                        .filter(it -> allow.trans || !Modifier.isTransient(it.getModifiers()))
-                        .filter(it -> allow._static || !Modifier.isStatic(it.getModifiers()))
-                        .filter(it -> allow._final || !Modifier.isFinal(it.getModifiers()))
-                        .filter(it -> allow.underscore || !it.getName().startsWith("_"))
-                        .collect(Collectors.toList())
-        );
-        if (aClass.getSuperclass() != null) {
-            getAllFields(aClass.getSuperclass(), fields, allow);
+        Set<String> names = new LinkedHashSet<>();
+        StringBuilder path = new StringBuilder();
+        // walk the nested maps depth first, each level remembers its iterator and where its path prefix ends
+        Deque<Iterator<? extends Map.Entry<?, ?>>> iterators = new ArrayDeque<>();
+        Deque<Map<?, ?>> maps = new ArrayDeque<>();
+        int[] prefixes = new int[8];
+        iterators.push(paramMap.entrySet().iterator());
+        maps.push(paramMap);
+        while (!iterators.isEmpty()) {
+            Iterator<? extends Map.Entry<?, ?>> iterator = iterators.peek();
+            if (!iterator.hasNext()) {
+                iterators.pop();
+                maps.pop();
+                continue;
+            }
+            Map.Entry<?, ?> entry = iterator.next();
+            int prefix = prefixes[iterators.size() - 1];
+            path.setLength(prefix);
+            if (prefix > 0)
+                path.append('.');
+            path.append(entry.getKey());
+
+            Object val = entry.getValue();
+            if (val instanceof List && !((List<?>) val).isEmpty() && ((List<?>) val).get(0) instanceof Map)
+                val = ((List<?>) val).get(0);
+            if (val instanceof Map && !contains(maps, val)) {
+                if (iterators.size() == prefixes.length)
+                    prefixes = Arrays.copyOf(prefixes, prefixes.length * 2);
+                prefixes[iterators.size()] = path.length();
+                iterators.push(((Map<?, ?>) val).entrySet().iterator());
+                maps.push((Map<?, ?>) val);
+            } else if (!(val instanceof Map)) {
+                names.add(PATHS.intern(path));
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    // a map nested inside itself would never finish, compare by identity since equal maps are fine
+    private static boolean contains(Deque<Map<?, ?>> maps, Object map) {
+        for (Map<?, ?> m : maps) {
+            if (m == map)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Convert the object to a map of its properties, nested objects become nested maps and collections become lists.
+     * Properties are the public fields and the fields with getters. Objects already being converted further up
+     * the graph are left out, so back references do not recurse
+     * @param o The object to convert
+     * @param depth How many levels of nested objects to convert, nested objects below that are left out
+     * @param allow Which type of fields to allow
+     * @return The map of property names to values
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static Map<String, Object> toMap(Object o, int depth, Allow allow) throws ReflectiveOperationException {
+        return properties(o, depth, allow, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * Convert the object to a map of its properties, nested objects become nested maps and collections become lists
+     * @param o The object to convert
+     * @return The map of property names to values
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static Map<String, Object> toMap(Object o) throws ReflectiveOperationException {
+        return toMap(o, Integer.MAX_VALUE, Allow.none());
+    }
+
+    /**
+     * Convert the object to a flat map of property paths to values such as address.line or orders[0].amount.
+     * The paths are the ones Reflect.bind accepts
+     * @param o The object to convert
+     * @param depth How many levels of nested objects to convert, nested objects below that are left out
+     * @param allow Which type of fields to allow
+     * @return The map of property paths to values
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static Map<String, Object> toFlatMap(Object o, int depth, Allow allow) throws ReflectiveOperationException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        Set<Object> active = Collections.newSetFromMap(new IdentityHashMap<>());
+        active.add(o);
+        flattenProperties(o, new StringBuilder(), depth, allow, active, map);
+        return map;
+    }
+
+    /**
+     * Convert the object to a flat map of property paths to values such as address.line or orders[0].amount
+     * @param o The object to convert
+     * @return The map of property paths to values
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static Map<String, Object> toFlatMap(Object o) throws ReflectiveOperationException {
+        return toFlatMap(o, Integer.MAX_VALUE, Allow.none());
+    }
+
+    // values which are not broken down into properties
+    private static boolean isLeaf(Class<?> type) {
+        return Binder.isScalar(type) && !(type.isArray() && !type.getComponentType().isPrimitive());
+    }
+
+    private static final Object OMIT = new Object();
+
+    private static Map<String, Object> properties(Object o, int depth, Allow allow, Set<Object> active)
+            throws ReflectiveOperationException {
+        active.add(o);
+        ClassMeta meta = ClassMeta.of(o.getClass());
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Field field : meta.fields(allow)) {
+            ClassMeta.Property property = meta.property(field);
+            if (property.isPublic || property.getter != null) {
+                Object value = toValue(property.accessor().get(o), depth, allow, active);
+                if (value != OMIT)
+                    map.putIfAbsent(field.getName(), value);
+            }
+        }
+        active.remove(o);
+        return map;
+    }
+
+    private static Object toValue(Object value, int depth, Allow allow, Set<Object> active)
+            throws ReflectiveOperationException {
+        if (value == null || isLeaf(value.getClass()))
+            return value;
+        if (value instanceof Iterable || value instanceof Object[]) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : value instanceof Object[] ? Arrays.asList((Object[]) value) : (Iterable<?>) value) {
+                Object v = toValue(item, depth, allow, active);
+                if (v != OMIT)
+                    list.add(v);
+            }
+            return list;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object v = toValue(entry.getValue(), depth, allow, active);
+                if (v != OMIT)
+                    map.put(entry.getKey(), v);
+            }
+            return map;
+        }
+        if (depth <= 0 || active.contains(value))
+            return OMIT;
+        return properties(value, depth - 1, allow, active);
+    }
+
+    private static void flattenProperties(Object o
+            , StringBuilder path
+            , int depth
+            , Allow allow
+            , Set<Object> active
+            , Map<String, Object> map) throws ReflectiveOperationException {
+        ClassMeta meta = ClassMeta.of(o.getClass());
+        int length = path.length();
+        for (Field field : meta.fields(allow)) {
+            ClassMeta.Property property = meta.property(field);
+            if (property.isPublic || property.getter != null) {
+                if (length > 0)
+                    path.append('.');
+                flatten(property.accessor().get(o), path.append(field.getName()), depth, allow, active, map);
+                path.setLength(length);
+            }
         }
-        return fields;
     }
 
-    private static List<Field> getAllFields(Class<?> aClass, List<Field> fields) {
-        return getAllFields(aClass, fields, Allow.none().allowStatic());
+    private static void flatten(Object value
+            , StringBuilder path
+            , int depth
+            , Allow allow
+            , Set<Object> active
+            , Map<String, Object> map) throws ReflectiveOperationException {
+        int length = path.length();
+        if (value == null || isLeaf(value.getClass())) {
+            map.putIfAbsent(PATHS.intern(path), value);
+        } else if (value instanceof Iterable || value instanceof Object[]) {
+            int i = 0;
+            for (Object item : value instanceof Object[] ? Arrays.asList((Object[]) value) : (Iterable<?>) value) {
+                flatten(item, path.append('[').append(i++).append(']'), depth, allow, active, map);
+                path.setLength(length);
+            }
+            if (i == 0)
+                map.putIfAbsent(PATHS.intern(path), Collections.emptyList());
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                flatten(entry.getValue(), path.append('.').append(entry.getKey()), depth, allow, active, map);
+                path.setLength(length);
+            }
+        } else if (depth > 0 && active.add(value)) {
+            flattenProperties(value, path, depth - 1, allow, active, map);
+            active.remove(value);
+        }
     }
 
+    static final Allow DEFAULT_ALLOW = Allow.none().allowStatic();
+
     /**
      * Get all the fields of a class
      * @param aClass The class to get fields for
@@ -197,7 +364,7 @@ public class Reflect {
      * @return The list of fields
      */
     public static List<Field> getAllFields(Class<?> aClass, Allow allow) {
-        return getAllFields(aClass, new ArrayList<>(), allow);
+        return new ArrayList<>(ClassMeta.of(aClass).fields(allow));
     }
 
     /**
@@ -206,7 +373,7 @@ public class Reflect {
      * @return The list of fields
      */
     public static List<Field> getAllFields(Class<?> aClass) {
-        return getAllFields(aClass, new ArrayList<>());
+        return new ArrayList<>(ClassMeta.of(aClass).fields(DEFAULT_ALLOW));
     }
 
     /**
@@ -216,7 +383,7 @@ public class Reflect {
      * @return The list of fields
      */
     public static List<Field> getAllFields(Object o, Allow allow) {
-        return getAllFields(o.getClass(), new ArrayList<>(), allow);
+        return getAllFields(o.getClass(), allow);
     }
 
     /**
@@ -225,21 +392,18 @@ public class Reflect {
      * @return The list of fields
      */
     public static List<Field> getAllFields(Object o) {
-        return getAllFields(o.getClass(), new ArrayList<>());
+        return getAllFields(o.getClass());
     }
 
     /**
-     * Get field by name from a class
+     * Get field by name from a class. Transient fields and fields starting with an underscore are not found
      * @param aClass The class to get the field from
      * @param field The field name
      * @return Optional field if the field exists, Optional.empty otherwise
      */
     public static Optional<Field> getField(Class<?> aClass, String field) {
-        for (Field f : getAllFields(aClass)) {
-            if (f.getName().equals(field))
-                return Optional.of(f);
-        }
-        return Optional.empty();
+        ClassMeta.Property property = ClassMeta.of(aClass).property(field, DEFAULT_ALLOW);
+        return property == null ? Optional.empty() : Optional.of(property.field);
     }
 
     /**
@@ -281,16 +445,33 @@ public class Reflect {
      */
     public static Object getFieldValue(Object o, Field field)
             throws ReflectiveOperationException {
-        Object value;
-        if (isFieldPublic(field)) {
-            value = field.get(o);
-        } else {
-            Optional<Method> getter = getGetter(field, o);
-            value = getter.orElseThrow(() ->
-                    new NoSuchMethodException(String.format("No getters found for %s", field.getName())))
-                    .invoke(o);
-        }
-        return value;
+        ClassMeta.Property property = ClassMeta.of(o.getClass()).property(field);
+        // only Reflect.accessor reaches private fields without a getter
+        if (!property.isPublic && property.getter == null)
+            throw new NoSuchMethodException(String.format("No getters found for %s", field.getName()));
+        return property.accessor().get(o);
+    }
+
+    /**
+     * Get a reusable accessor which reads and writes the class property through method handles.
+     * Prefer it over getFieldValue and setFieldValue when the same property is accessed many times
+     * @param cls The class with the property
+     * @param name The property name
+     * @return Optional accessor if the field exists, Optional.empty otherwise
+     */
+    public static Optional<Accessor> accessor(Class<?> cls, String name) {
+        ClassMeta.Property property = ClassMeta.of(cls).property(name);
+        return property == null ? Optional.empty() : Optional.of(property.accessor());
+    }
+
+    /**
+     * Get a reusable accessor which reads and writes the class property through method handles
+     * @param field The field of the property
+     * @param cls The class with the property
+     * @return The property accessor
+     */
+    public static Accessor accessor(Field field, Class<?> cls) {
+        return ClassMeta.of(cls).property(field).accessor();
     }
 
     static boolean methodTypeMatches(Class<?> method, Class<?> cls){
@@ -306,16 +487,7 @@ public class Reflect {
      * @return Optional getter method if the method exists, Optional.empty otherwise
      */
     public static Optional<Method> getGetter(Field field, Class<?> cls) {
-        for (Method method : cls.getMethods()) {
-            if (method.getParameterCount() == 0 && methodTypeMatches(method.getReturnType(), field.getType())) {
-                String fieldName = Str.capitalize(field.getName());
-                if (method.getName().equals(String.format("get%s", fieldName))
-                        || method.getName().equals(String.format("is%s", fieldName))
-                        || method.getName().equals(field.getName()))
-                    return Optional.of(method);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(ClassMeta.of(cls).property(field).getter);
     }
 
     /**
@@ -357,9 +529,29 @@ public class Reflect {
      */
     public static Object getFieldValue(Object o, String field)
             throws ReflectiveOperationException {
+        PropertyAccess<Object> access = GeneratedAccess.of(cls(o));
+        if (access != null && access.isReadable(field))
+            return access.get(o, field);
         return getFieldValue(o, getField(o, field).orElseThrow(() -> new NoSuchFieldException("no such field " + field)));
     }
 
+    /**
+     * Get the PropertyAccess generated at compile time for a class marked with GenerateAccess.
+     * Only getFieldValue and setFieldValue by field name read and write through it,
+     * getAllFields, getGetter, accessor, copyPlan and bind still work from the class metadata
+     * @param cls The class of interest
+     * @param <T> The type of the class
+     * @return Optional generated property access if the class has one, Optional.empty otherwise
+     */
+    public static <T> Optional<PropertyAccess<T>> propertyAccess(Class<T> cls) {
+        return Optional.ofNullable(GeneratedAccess.of(cls));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> cls(Object o) {
+        return (Class<Object>) o.getClass();
+    }
+
     /**
      * Get the specified attribute name from the annotation
      * @param annotation The annotation of interest
@@ -369,10 +561,60 @@ public class Reflect {
      */
     public static Object getAttributeValue(Annotation annotation, String attribute)
             throws ReflectiveOperationException {
-        Method method = Arrays.stream(annotation.annotationType().getMethods())
-                .filter(it -> it.getName().equals(attribute)).findFirst().orElseThrow(() ->
-                        new NoSuchElementException("no such attribute " + attribute));
-        return  method.invoke(annotation);
+        return AnnotationMeta.of(annotation.annotationType()).get(annotation, attribute);
+    }
+
+    /**
+     * Get every attribute of the annotation
+     * @param annotation The annotation of interest
+     * @return The attribute values by name
+     * @throws ReflectiveOperationException If there is an error reading an attribute
+     */
+    public static Map<String, Object> getAttributes(Annotation annotation) throws ReflectiveOperationException {
+        return AnnotationMeta.of(annotation.annotationType()).attributes(annotation);
+    }
+
+    /**
+     * Get the attributes of an annotation on a class, field, method, constructor or parameter.
+     * The attributes are read once per element and annotation type and cached after that
+     * @param element The annotated element
+     * @param type The annotation type
+     * @return Optional attribute values by name if the element has the annotation, Optional.empty otherwise
+     * @throws ReflectiveOperationException If there is an error reading an attribute
+     */
+    public static Optional<Map<String, Object>> getAttributes(AnnotatedElement element
+            , Class<? extends Annotation> type) throws ReflectiveOperationException {
+        return Optional.ofNullable(AnnotationMeta.attributes(element, type));
+    }
+
+    /**
+     * Get the annotated fields of the class and its super classes together with the attributes of their annotations
+     * @param cls The class of interest
+     * @return Each annotated field mapped to its annotation types and their attribute values
+     * @throws ReflectiveOperationException If there is an error reading an attribute
+     */
+    public static Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> getAnnotatedFields(Class<?> cls)
+            throws ReflectiveOperationException {
+        return AnnotationMeta.annotatedFields(cls);
+    }
+
+    /**
+     * Get the fields of the class and its super classes which have the annotation, together with its attributes
+     * @param cls The class of interest
+     * @param type The annotation type
+     * @return Each field with the annotation mapped to the annotation attribute values
+     * @throws ReflectiveOperationException If there is an error reading an attribute
+     */
+    public static Map<Field, Map<String, Object>> getAnnotatedFields(Class<?> cls, Class<? extends Annotation> type)
+            throws ReflectiveOperationException {
+        Map<Field, Map<String, Object>> fields = new LinkedHashMap<>();
+        for (Map.Entry<Field, Map<Class<? extends Annotation>, Map<String, Object>>> entry
+                : AnnotationMeta.annotatedFields(cls).entrySet()) {
+            Map<String, Object> attributes = entry.getValue().get(type);
+            if (attributes != null)
+                fields.put(entry.getKey(), attributes);
+        }
+        return fields;
     }
 
     /**
@@ -382,23 +624,7 @@ public class Reflect {
      * @return Optional setter method if the method exists, Optional.empty otherwise
      */
     public static Optional<Method> getSetter(Field field, Class<?> cls) {
-        for (Method method : cls.getMethods()) {
-            Class<?> param = method.getParameterCount() == 1 ? method.getParameterTypes()[0] : null;
-
-            if (Objects.nonNull(param)) {
-                String capitalize = Str.capitalize(field.getName());
-                String setter = String.format("set%s", capitalize);
-                String with = String.format("with%s", capitalize);
-                if (method.getName().equals(field.getName())
-                        || method.getName().equals(setter)
-                        || method.getName().equals(with)) {
-                    if (methodTypeMatches(param, field.getType())) {
-                        return Optional.of(method);
-                    }
-                }
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(ClassMeta.of(cls).property(field).setter);
     }
 
     /**
@@ -431,25 +657,6 @@ public class Reflect {
         return getField(cls, name).flatMap(value -> getSetter(value, cls));
     }
 
-    private static Optional<Method> getAddRemoveMethod(String name, Field field, Class<?> cls) {
-        ParameterizedType parameterizedType = (ParameterizedType) field.getGenericType();
-        Type[] genericTypes = parameterizedType.getActualTypeArguments();
-
-        for (Method method : cls.getMethods()) {
-            Class<?> param = method.getParameterCount() > 0 ? method.getParameterTypes()[0] : null;
-            if (Objects.nonNull(param)) {
-                String methodName = Str.of(Noun.singular(field.getName())).capitalize().preface(name).toString();
-                if (method.getName().equals(methodName)) {
-                    if (methodTypeMatches(param.isArray() && method.isVarArgs()
-                            ? param.getComponentType() : param, (Class<?>) genericTypes[0])) {
-                        return Optional.of(method);
-                    }
-                }
-            }
-        }
-        return Optional.empty();
-    }
-
     /**
      * Get the adder method for the specified class field
      * addFoo(String foo)
@@ -458,7 +665,7 @@ public class Reflect {
      * @return An optional adder method if one exists, Optional.empty otherwise
      */
     public static Optional<Method> getAdder(Field field, Class<?> cls) {
-        return getAddRemoveMethod("add", field, cls);
+        return Optional.ofNullable(ClassMeta.of(cls).property(field).adder);
     }
 
     /**
@@ -540,7 +747,7 @@ public class Reflect {
      * @return An optional remover method if one exists, Optional.empty otherwise
      */
     public static Optional<Method> getRemover(Field field, Class<?> cls) {
-        return getAddRemoveMethod("remove", field, cls);
+        return Optional.ofNullable(ClassMeta.of(cls).property(field).remover);
     }
 
     /**
@@ -617,16 +824,11 @@ public class Reflect {
      */
     public static void setFieldValue(Object o, Field field, Object value)
             throws ReflectiveOperationException {
-
-        if (isFieldPublic(field))
-            field.set(o, value);
-
-        Optional<Method> method = getSetter(field, o);
-        if (method.isPresent()) {
-            method.get().invoke(o, value);
-            return;
-        }
-        throw new NoSuchMethodException(String.format("No setters found for %s", field.getName()));
+        ClassMeta.Property property = ClassMeta.of(o.getClass()).property(field);
+        // only Reflect.accessor reaches private fields without a setter
+        if (!(property.isPublic && !Modifier.isFinal(field.getModifiers())) && property.setter == null)
+            throw new NoSuchMethodException(String.format("No setters found for %s", field.getName()));
+        property.accessor().set(o, value);
     }
 
     /**
@@ -638,6 +840,11 @@ public class Reflect {
      */
     public static void setFieldValue(Object o, String field, Object value)
             throws ReflectiveOperationException {
+        PropertyAccess<Object> access = GeneratedAccess.of(cls(o));
+        if (access != null && access.isWritable(field)) {
+            access.set(o, field, value);
+            return;
+        }
         setFieldValue(o, getField(o, field).orElseThrow(() -> new NoSuchFieldException("no such field " + field)), value);
     }
 
@@ -651,105 +858,30 @@ public class Reflect {
      */
     public static void copy(Object o1, Object o2, Iterable<String> names, CopyOptions copyOptions)
             throws ReflectiveOperationException {
-        copy(o1, o2, names, copyOptions, new WeakHashMap<>());
+        if (o1 != null)
+            copyPlan(o1.getClass(), names, copyOptions).copy(o1, o2);
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private static void copy(Object o1
-            , Object o2
-            , Iterable<String> names
-            , CopyOptions copyOptions
-            , Map<Object, Object> visited)
-            throws ReflectiveOperationException {
-        if (o1 == null || o2 == null || visited.containsKey(o2))
-            return;
-        else
-            visited.put(o2, o2);
-
-        // convert names into all possible path segments:
-        // [a.b.c, a.b.d] => [a, a.b, a.b.c, a.b.d]
-        Set<String> nameSet = names == null
-                ? new HashSet<>()
-                : StreamSupport.stream(names.spliterator(), false)
-                .map(it -> Lists.subLists(Arrays.asList(it.split("\\."))))
-                .flatMap(it -> it.stream().map(sublist -> String.join(".", sublist)))
-                .collect(Collectors.toSet());
-
-        Iterable<Field> iterable = Objects.nonNull(names) && names.iterator().hasNext() ? getAllFields(o1, copyOptions.allow).stream()
-                .filter(it -> isFieldPublic(it) || (getSetter(it, o1).isPresent() && getGetter(it, o1).isPresent()))
-                    .filter(it -> copyOptions.exclusion != nameSet.contains(it.getName()))
-                    .collect(Collectors.toSet())
-                : getAllFields(o1).stream()
-                    .filter(it -> isFieldPublic(it) || (getSetter(it, o1).isPresent() && getGetter(it, o1).isPresent()))
-                    .collect(Collectors.toSet());
-
-        for (Field field : iterable) {
-            Object v1 = getFieldValue(o1, field);
-            Object v2 = getFieldValue(o2, field);
-            if (!copyOptions.nullsOnly || Obj.notInitialized(v1)) {
-                if (copyOptions.mergeCollections && Collection.class.isAssignableFrom(field.getType())) {
-                    Collection l1 = (Collection) v1;
-                    Collection l2 = (Collection) v2;
-                    if (Objects.nonNull(l1) && Objects.nonNull(l2)) {
-                        boolean hasAdder = Reflect.getAdder(field, o1).isPresent();
-                        boolean hasRemover = Reflect.getRemover(field, o1).isPresent();
-                        for(Object it : l2) {
-                            if(l1.contains(it) && !isPrimitive(field.getType())) {
-                                String childPath = String.format("%s.", field.getName());
-                                Iterable<String> children = nameSet.stream()
-                                        .filter(name -> name.startsWith(childPath))
-                                        .map(name -> name.replaceFirst(childPath, ""))
-                                        .collect(Collectors.toSet());
-                                Reflect.copy(l1.stream().filter(o -> o.equals(it)).findFirst().orElse(null)
-                                        , it
-                                        , children.iterator().hasNext() ? children : null
-                                        , copyOptions
-                                        , visited);
-                            } else {
-                                if(hasAdder)
-                                    Reflect.addFieldValue(o1, field, it);
-                                else
-                                    l1.add(it);
-                            }
-                        }
-                        if (copyOptions.updateCollections) {
-                            Object[] removals = l1.stream().filter(it -> !l2.contains(it)).toArray();
-                            for (Object removal : removals) {
-                                if(hasRemover) Reflect.removeFieldValue(o1, field, removal);
-                                else l1.remove(removal);
-                            }
-                        }
-                    }
-                } else if (copyOptions.mergeCollections && Map.class.isAssignableFrom(field.getType())) {
-                    Map m1 = (Map) v1;
-                    Map m2 = (Map) v2;
-                    if (Objects.nonNull(m1) && Objects.nonNull(m2))
-                        m1.putAll(m2);
-                    if (copyOptions.updateCollections) {
-                        Object[] keys = m1.keySet().stream().filter(it -> !m2.containsKey(it)).toArray();
-                        for (Object key : keys)
-                            m1.remove(key);
-                    }
-                } else {
-                    if (isPrimitive(field.getType())) {
-                        if (!Objects.equals(v1, v2)) {
-                            setFieldValue(o1, field, v2);
-                        }
-                    } else {
-                        String childPath = String.format("%s.", field.getName());
-                        Iterable<String> children = nameSet.stream()
-                                .filter(name -> name.startsWith(childPath))
-                                .map(name -> name.replaceFirst(childPath, ""))
-                                .collect(Collectors.toSet());
-                        Reflect.copy(v1
-                                , v2
-                                , children.iterator().hasNext() ? children : null
-                                , copyOptions
-                                , visited);
-                    }
-                }
-            }
-        }
+    /**
+     * Compile a reusable plan which copies the field names to objects of the class.
+     * Applying the same plan to many objects skips resolving fields, accessors and nested names on every copy
+     * @param cls The class of the objects to copy to
+     * @param names The field names to copy
+     * @param copyOptions Options to use when updating fields
+     * @return The copy plan
+     */
+    public static CopyPlan copyPlan(Class<?> cls, Iterable<String> names, CopyOptions copyOptions) {
+        return CopyPlan.compile(cls, names, copyOptions);
+    }
+
+    /**
+     * Compile a reusable plan which copies the field names to objects of the class
+     * @param cls The class of the objects to copy to
+     * @param names The field names to copy
+     * @return The copy plan
+     */
+    public static CopyPlan copyPlan(Class<?> cls, String... names) {
+        return CopyPlan.compile(cls, Arrays.asList(names), CopyOptions.create());
     }
 
     /**
@@ -759,10 +891,158 @@ public class Reflect {
      * @return True if the class is primitive, false otherwise
      */
     public static boolean isPrimitive(Class<?> type) {
-        return type.isPrimitive()
-                || CharSequence.class.isAssignableFrom(type)
-                || Date.class.isAssignableFrom(type)
-                || Temporal.class.isAssignableFrom(type);
+        return ClassMeta.of(type).primitive;
+    }
+
+    /**
+     * Clone the object and everything it refers to. Shared references and cycles are kept as they are,
+     * immutable values such as strings, numbers, enums, dates and temporals are shared with the original.
+     * Cloned objects are created with their no argument constructor and have every field copied directly
+     * @param o The object to clone
+     * @param <T> The type of the object
+     * @return The deep clone
+     * @throws ReflectiveOperationException If a class in the graph has no no argument constructor
+     */
+    public static <T> T deepClone(T o) throws ReflectiveOperationException {
+        return ObjectGraph.deepClone(o, false);
+    }
+
+    /**
+     * Clone the object and everything it refers to
+     * @param o The object to clone
+     * @param parallel Clone the elements of large collections and arrays in parallel
+     * @param <T> The type of the object
+     * @return The deep clone
+     * @throws ReflectiveOperationException If a class in the graph has no no argument constructor
+     */
+    public static <T> T deepClone(T o, boolean parallel) throws ReflectiveOperationException {
+        return ObjectGraph.deepClone(o, parallel);
+    }
+
+    /**
+     * Determine if two object graphs are equal field by field, ignoring transient fields.
+     * Lists and arrays compare in order, sets and maps regardless of order
+     * @param a The first object
+     * @param b The second object
+     * @return True if the graphs hold equal values, false otherwise
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static boolean deepEquals(Object a, Object b) throws ReflectiveOperationException {
+        return ObjectGraph.deepEquals(a, b, false);
+    }
+
+    /**
+     * Determine if two object graphs are equal field by field, ignoring transient fields
+     * @param a The first object
+     * @param b The second object
+     * @param parallel Compare the elements of large lists and arrays in parallel
+     * @return True if the graphs hold equal values, false otherwise
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static boolean deepEquals(Object a, Object b, boolean parallel) throws ReflectiveOperationException {
+        return ObjectGraph.deepEquals(a, b, parallel);
+    }
+
+    /**
+     * Hash the object graph field by field, ignoring transient fields. Graphs which are deepEquals have equal hashes
+     * @param o The object to hash
+     * @return The hash code
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static int deepHash(Object o) throws ReflectiveOperationException {
+        return ObjectGraph.deepHash(o, false);
+    }
+
+    /**
+     * Hash the object graph field by field, ignoring transient fields
+     * @param o The object to hash
+     * @param parallel Hash the elements of large lists and arrays in parallel
+     * @return The hash code
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     */
+    public static int deepHash(Object o, boolean parallel) throws ReflectiveOperationException {
+        return ObjectGraph.deepHash(o, parallel);
+    }
+
+    /**
+     * Compute the property level changes which turn a into b, in the order they are to be applied.
+     * Paths use the Reflect.copy syntax, address.line for nested properties and orders[0].amount for list elements.
+     * Lists and collections are matched by element equality, so elements which stay are compared in place
+     * and the others are removed or added. Maps change by putting and removing keys. Identical references are skipped
+     * @param a The original object
+     * @param b The changed object of the same class
+     * @return The ordered list of changes, empty when nothing changed
+     * @throws ReflectiveOperationException If there is an error getting a field value
+     * @throws IllegalArgumentException If either object is null or they are not of the same class
+     */
+    public static List<Change> diff(Object a, Object b) throws ReflectiveOperationException {
+        return ObjectDiff.diff(a, b);
+    }
+
+    /**
+     * Apply changes computed by diff to the target. Properties are set with their setter,
+     * collections are added to and removed from through the adder and remover when the class has them
+     * @param target The object to change
+     * @param changes The changes to apply, in order
+     * @throws ReflectiveOperationException If a path does not resolve to a property or there is an error setting it
+     */
+    public static void patch(Object target, Iterable<Change> changes) throws ReflectiveOperationException {
+        ObjectDiff.patch(target, changes);
+    }
+
+    /**
+     * Get statistics of the class metadata cache.
+     * Fields, getters, setters, adders and removers are resolved once per class and reused by every lookup after that
+     * @return A snapshot of the cache statistics
+     */
+    public static CacheStats cacheStats() {
+        return new CacheStats(ClassMeta.lookups(), ClassMeta.builds());
+    }
+
+    /**
+     * Snapshot of the class metadata cache statistics
+     */
+    public static class CacheStats {
+        private final long lookups;
+        private final long misses;
+
+        CacheStats(long lookups, long misses) {
+            this.lookups = lookups;
+            this.misses = misses;
+        }
+
+        /**
+         * @return The number of times class metadata was looked up
+         */
+        public long lookups() {
+            return lookups;
+        }
+
+        /**
+         * @return The number of lookups answered from the cache
+         */
+        public long hits() {
+            return Math.max(lookups - misses, 0);
+        }
+
+        /**
+         * @return The number of lookups which had to build the class metadata
+         */
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * @return The fraction of lookups answered from the cache, 1.0 when nothing was looked up yet
+         */
+        public double hitRate() {
+            return lookups == 0 ? 1.0 : (double) hits() / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{lookups=%d, hits=%d, misses=%d}", lookups, hits(), misses);
+        }
     }
 
     /**
@@ -822,53 +1102,60 @@ public class Reflect {
     @SuppressWarnings({"rawtypes", "unchecked"})
     public static void copy(Object o1, Map<String, Object> values, CopyOptions copyOptions)
             throws ReflectiveOperationException {
-
-        Iterable<Field> iterable = getAllFields(o1, copyOptions.allow).stream()
-                .filter(it -> isFieldPublic(it) || (getSetter(it, o1).isPresent() && getGetter(it, o1).isPresent()))
-                .filter(it -> copyOptions.exclusion != values.containsKey(it.getName()))
-                .collect(Collectors.toSet());
-
-        for (Field field : iterable) {
-            Object v1 = getFieldValue(o1, field);
+        ClassMeta meta = ClassMeta.of(o1.getClass());
+        for (Field field : meta.fields(copyOptions.allow)) {
+            ClassMeta.Property property = meta.property(field);
+            if ((!property.isPublic && (property.setter == null || property.getter == null))
+                    || copyOptions.exclusion == values.containsKey(field.getName()))
+                continue;
+
+            Accessor accessor = property.accessor();
+            Object v1 = accessor.get(o1);
             Object v2 = values.get(field.getName());
             if (!copyOptions.nullsOnly || Obj.notInitialized(v1)) {
                 if (copyOptions.mergeCollections && Collection.class.isAssignableFrom(field.getType())) {
-                    boolean hasAdder = Reflect.getAdder(field, o1).isPresent();
-                    boolean hasRemover = Reflect.getRemover(field, o1).isPresent();
-                    Collection l1 = (Collection) v1;
-                    Collection l2 = (Collection) v2;
-                    for(Object it : l2) {
-                        if(!l1.contains(it)) {
-                            if(hasAdder)
-                                Reflect.addFieldValue(o1, field, it);
-                            else
-                                l1.add(it);
-                        }
-                    }
-                    if (copyOptions.updateCollections) {
-                        Object[] removals = l1.stream().filter(it -> !l2.contains(it)).toArray();
-                        for (Object removal : removals) {
-                            if(hasRemover) Reflect.removeFieldValue(o1, field, removal);
-                            else l1.remove(removal);
-                        }
-                    }
+                    CopyPlan.merge(o1, property, (Collection) v1, (Collection) v2, copyOptions);
                 } else if (copyOptions.mergeCollections && Map.class.isAssignableFrom(field.getType())) {
                     Map m1 = (Map) v1;
                     Map m2 = (Map) v2;
                     m1.putAll(m2);
-                    if (copyOptions.updateCollections) {
-                        Object[] keys = m1.keySet().stream().filter(it -> !m2.containsKey(it)).toArray();
-                        for (Object key : keys)
-                            m1.remove(key);
-                    }
+                    if (copyOptions.updateCollections)
+                        m1.keySet().retainAll(m2.keySet());
                 } else {
-                    if (!Objects.equals(v1, v2))
-                        setFieldValue(o1, field, v2);
+                    // values from request parameters are usually strings, convert them when the field type differs
+                    Object value = Binder.coerce(v2, field.getType());
+                    if (value == Binder.INVALID)
+                        value = v2;
+                    if (!Objects.equals(v1, value))
+                        accessor.set(o1, value);
                 }
             }
         }
     }
 
+    /**
+     * Get the binder which binds maps of values to objects of the class, compiled once per class
+     * @param cls The class to bind to
+     * @param <T> The type of objects bound
+     * @return The binder of the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Binder<T> binder(Class<T> cls) {
+        return (Binder<T>) ClassMeta.of(cls).binder();
+    }
+
+    /**
+     * Bind the values to the object. Keys are field names or dotted paths such as address.line or orders[0].amount,
+     * and values are converted to the field types.
+     * @param o The object to bind to
+     * @param values The values keyed by field name or path
+     * @return The values which could not be bound, empty when every value was bound
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Binder.BindingError> bind(Object o, Map<String, ?> values) {
+        return ((Binder<Object>) ClassMeta.of(o.getClass()).binder()).bind(o, values);
+    }
+
     /**
      * Copy the field names from o1 to o2
      * @param o1 The object to copy to
@@ -892,16 +1179,28 @@ public class Reflect {
             return new CopyOptions();
         }
 
-        private boolean nullsOnly;
-        private boolean mergeCollections;
-        private boolean updateCollections;
-        private boolean exclusion;
-        private Allow allow;
+        boolean nullsOnly;
+        boolean mergeCollections;
+        boolean updateCollections;
+        boolean exclusion;
+        String mergeKey;
+        Allow allow;
 
         protected CopyOptions(){
             allow = Allow.none().allowStatic();
         }
 
+        CopyOptions snapshot() {
+            CopyOptions options = new CopyOptions();
+            options.nullsOnly = nullsOnly;
+            options.mergeCollections = mergeCollections;
+            options.updateCollections = updateCollections;
+            options.exclusion = exclusion;
+            options.mergeKey = mergeKey;
+            options.allow = allow.copy();
+            return options;
+        }
+
         /**
          * Update only fields which are set to null
          * @return The CopyOptions object
@@ -929,6 +1228,17 @@ public class Reflect {
             return mergeCollections();
         }
 
+        /**
+         * When merging collections match elements by the value of a key field instead of equals.
+         * Elements without a key value are treated as new elements
+         * @param field The name of the key field of the collection elements, such as id
+         * @return The CopyOptions object
+         */
+        public CopyOptions mergeKey(String field) {
+            mergeKey = field;
+            return mergeCollections();
+        }
+
         /**
          * Exclude the specified field names instead of including them
          * @return The CopyOptions object
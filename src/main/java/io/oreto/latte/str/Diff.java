@@ -0,0 +1,499 @@
+package io.oreto.latte.str;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Myers diff between two texts at character, word or line granularity.
+ * Tokens are mapped to ints once and compared as ints. The shortest edit script is found in O((N+M)·D) time
+ * using the linear space refinement: the middle snake of each range is found by searching forward and backward
+ * at the same time, then both halves are diffed recursively. The result is a list of edits which can be
+ * applied to the source as a patch.
+ */
+public class Diff {
+    /**
+     * The unit the texts are compared by
+     * CHAR = single characters
+     * WORD = runs of letters and digits, runs of whitespace and single punctuation characters
+     * LINE = lines including their line terminator
+     */
+    public enum Granularity { CHAR, WORD, LINE }
+
+    /**
+     * What an edit does to the source
+     */
+    public enum Op { EQUAL, DELETE, INSERT }
+
+    /**
+     * Compare the texts
+     * @param source The original text
+     * @param target The changed text
+     * @param granularity The unit to compare by
+     * @return The Diff from source to target
+     */
+    public static Diff of(CharSequence source, CharSequence target, Granularity granularity) {
+        Map<String, Integer> ids = new HashMap<>();
+        return new Diff(Side.of(source, granularity, ids), Side.of(target, granularity, ids), granularity);
+    }
+
+    /**
+     * Compare the texts line by line
+     * @param source The original text
+     * @param target The changed text
+     * @return The Diff from source to target
+     */
+    public static Diff lines(CharSequence source, CharSequence target) {
+        return of(source, target, Granularity.LINE);
+    }
+
+    /**
+     * Compare the texts word by word
+     * @param source The original text
+     * @param target The changed text
+     * @return The Diff from source to target
+     */
+    public static Diff words(CharSequence source, CharSequence target) {
+        return of(source, target, Granularity.WORD);
+    }
+
+    /**
+     * Compare the texts character by character
+     * @param source The original text
+     * @param target The changed text
+     * @return The Diff from source to target
+     */
+    public static Diff chars(CharSequence source, CharSequence target) {
+        return of(source, target, Granularity.CHAR);
+    }
+
+    /**
+     * Compare the texts line by line as they are read. Each distinct line is kept once, and only the line numbers
+     * of each side are held in memory, so large files with repeating lines stay small.
+     * @param source The original text
+     * @param target The changed text
+     * @return The Diff from source to target
+     * @throws IOException If reading fails
+     */
+    public static Diff lines(Reader source, Reader target) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        return new Diff(Side.of(source, ids, table), Side.of(target, ids, table), Granularity.LINE);
+    }
+
+    /**
+     * A run of tokens which are equal, deleted from the source or inserted from the target
+     */
+    public static final class Edit {
+        private final Op op;
+        private final Side side;
+        private final int from;
+        private final int to;
+        private final int sourceIndex;
+
+        private Edit(Op op, Side side, int from, int to, int sourceIndex) {
+            this.op = op;
+            this.side = side;
+            this.from = from;
+            this.to = to;
+            this.sourceIndex = sourceIndex;
+        }
+
+        /**
+         * @return What the edit does
+         */
+        public Op op() {
+            return op;
+        }
+
+        /**
+         * @return The character index in the source where the edit applies
+         */
+        public int sourceIndex() {
+            return sourceIndex;
+        }
+
+        /**
+         * @return The number of tokens in the edit
+         */
+        public int tokens() {
+            return to - from;
+        }
+
+        /**
+         * @return The text of the edit, taken from the target for inserts and from the source otherwise
+         */
+        public String text() {
+            return side.text(from, to);
+        }
+
+        private int length() {
+            return side.offsets[to] - side.offsets[from];
+        }
+
+        @Override
+        public String toString() {
+            return op + " " + text();
+        }
+    }
+
+    /**
+     * Tokens of one text, as ids with the character offset where each token starts
+     */
+    private static final class Side {
+        private final int[] ids;
+        // offsets[i] is where token i starts, offsets[size] is the text length
+        private final int[] offsets;
+        private final int size;
+        private final CharSequence text;
+        private final List<String> table;
+
+        private Side(int[] ids, int[] offsets, int size, CharSequence text, List<String> table) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.size = size;
+            this.text = text;
+            this.table = table;
+        }
+
+        private static Side of(CharSequence s, Granularity granularity, Map<String, Integer> ids) {
+            int len = s.length();
+            if (granularity == Granularity.CHAR) {
+                int[] chars = new int[len];
+                int[] offsets = new int[len + 1];
+                for (int i = 0; i < len; i++) {
+                    chars[i] = s.charAt(i);
+                    offsets[i + 1] = i + 1;
+                }
+                return new Side(chars, offsets, len, s, null);
+            }
+            Ints tokens = new Ints(), starts = new Ints();
+            for (int i = 0; i < len; ) {
+                int end = granularity == Granularity.LINE ? lineEnd(s, i) : wordEnd(s, i);
+                String token = s.subSequence(i, end).toString();
+                Integer id = ids.get(token);
+                if (id == null)
+                    ids.put(token, id = ids.size());
+                tokens.add(id);
+                starts.add(i);
+                i = end;
+            }
+            starts.add(len);
+            return new Side(tokens.values, starts.values, tokens.size, s, null);
+        }
+
+        private static Side of(Reader reader, Map<String, Integer> ids, List<String> table) throws IOException {
+            Ints tokens = new Ints(), starts = new Ints();
+            char[] buffer = new char[8192];
+            StringBuilder line = new StringBuilder();
+            int offset = 0;
+            for (int read; (read = reader.read(buffer)) != -1; ) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.append(buffer, from, i + 1 - from);
+                        offset = addLine(line, ids, table, tokens, starts, offset);
+                        from = i + 1;
+                    }
+                }
+                line.append(buffer, from, read - from);
+            }
+            if (line.length() > 0)
+                offset = addLine(line, ids, table, tokens, starts, offset);
+            starts.add(offset);
+            return new Side(tokens.values, starts.values, tokens.size, null, table);
+        }
+
+        private static int addLine(StringBuilder line, Map<String, Integer> ids, List<String> table
+                , Ints tokens, Ints starts, int offset) {
+            String s = line.toString();
+            Integer id = ids.get(s);
+            if (id == null) {
+                ids.put(s, id = table.size());
+                table.add(s);
+            }
+            tokens.add(id);
+            starts.add(offset);
+            line.setLength(0);
+            return offset + s.length();
+        }
+
+        private static int lineEnd(CharSequence s, int i) {
+            int len = s.length();
+            while (i < len && s.charAt(i++) != '\n');
+            return i;
+        }
+
+        private static int wordEnd(CharSequence s, int i) {
+            int len = s.length();
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                while (++i < len && Character.isLetterOrDigit(s.charAt(i)));
+            } else if (Character.isWhitespace(c)) {
+                while (++i < len && Character.isWhitespace(s.charAt(i)));
+            } else {
+                i++;
+            }
+            return i;
+        }
+
+        private String text(int from, int to) {
+            if (text != null)
+                return text.subSequence(offsets[from], offsets[to]).toString();
+            StringBuilder sb = new StringBuilder(offsets[to] - offsets[from]);
+            for (int i = from; i < to; i++)
+                sb.append(table.get(ids[i]));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Growable int array
+     */
+    private static final class Ints {
+        private int[] values = new int[64];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    private final Granularity granularity;
+    private final List<Edit> edits;
+    private final int sourceLength;
+    private final int targetLength;
+    private int distance;
+
+    private Diff(Side source, Side target, Granularity granularity) {
+        this.granularity = granularity;
+        this.sourceLength = source.offsets[source.size];
+        this.targetLength = target.offsets[target.size];
+        boolean[] deleted = new boolean[source.size];
+        boolean[] inserted = new boolean[target.size];
+        new Myers(source.ids, target.ids, deleted, inserted).compare(0, source.size, 0, target.size);
+        this.edits = Collections.unmodifiableList(script(source, target, deleted, inserted));
+    }
+
+    /**
+     * Turn the changed token flags of both sides into runs of equal, deleted and inserted tokens
+     */
+    private List<Edit> script(Side source, Side target, boolean[] deleted, boolean[] inserted) {
+        List<Edit> edits = new ArrayList<>();
+        int i = 0, j = 0, n = source.size, m = target.size;
+        while (i < n || j < m) {
+            int start = i;
+            while (i < n && j < m && !deleted[i] && !inserted[j]) { i++; j++; }
+            if (i > start)
+                edits.add(new Edit(Op.EQUAL, source, start, i, source.offsets[start]));
+            start = i;
+            while (i < n && deleted[i]) i++;
+            if (i > start)
+                edits.add(new Edit(Op.DELETE, source, start, i, source.offsets[start]));
+            start = j;
+            while (j < m && inserted[j]) j++;
+            if (j > start)
+                edits.add(new Edit(Op.INSERT, target, start, j, source.offsets[i]));
+        }
+        for (Edit edit : edits)
+            if (edit.op != Op.EQUAL) distance += edit.tokens();
+        return edits;
+    }
+
+    /**
+     * Linear space Myers over token ids, marking the tokens which are not part of the longest common subsequence
+     */
+    private static final class Myers {
+        private final int[] a;
+        private final int[] b;
+        private final boolean[] deleted;
+        private final boolean[] inserted;
+        // forward and reverse furthest reaching x per diagonal, shared by every step of the recursion
+        private final int[] forward;
+        private final int[] reverse;
+
+        private Myers(int[] a, int[] b, boolean[] deleted, boolean[] inserted) {
+            this.a = a;
+            this.b = b;
+            this.deleted = deleted;
+            this.inserted = inserted;
+            int size = 2 * ((deleted.length + inserted.length + 1) / 2) + 2;
+            this.forward = new int[size];
+            this.reverse = new int[size];
+        }
+
+        private void compare(int aLo, int aHi, int bLo, int bHi) {
+            while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) { aLo++; bLo++; }
+            while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) { aHi--; bHi--; }
+            if (aLo == aHi) {
+                Arrays.fill(inserted, bLo, bHi, true);
+            } else if (bLo == bHi) {
+                Arrays.fill(deleted, aLo, aHi, true);
+            } else {
+                long split = middle(aLo, aHi, bLo, bHi);
+                if (split < 0) {
+                    Arrays.fill(deleted, aLo, aHi, true);
+                    Arrays.fill(inserted, bLo, bHi, true);
+                } else {
+                    int x = (int) (split >>> 32), y = (int) split;
+                    compare(aLo, aLo + x, bLo, bLo + y);
+                    compare(aLo + x, aHi, bLo + y, bHi);
+                }
+            }
+        }
+
+        /**
+         * Find where the forward and reverse searches of the range overlap
+         * @return The split point relative to the range start as x in the high and y in the low 32 bits, -1 if none
+         */
+        private long middle(int aLo, int aHi, int bLo, int bHi) {
+            int n = aHi - aLo, m = bHi - bLo;
+            int maxD = (n + m + 1) / 2;
+            int offset = maxD, length = 2 * maxD + 2;
+            Arrays.fill(forward, 0, length, -1);
+            Arrays.fill(reverse, 0, length, -1);
+            forward[offset + 1] = 0;
+            reverse[offset + 1] = 0;
+            int delta = n - m;
+            // with an odd delta the paths meet on a forward step, otherwise on a reverse step
+            boolean odd = (delta & 1) != 0;
+            int k1start = 0, k1end = 0, k2start = 0, k2end = 0;
+            for (int d = 0; d < maxD; d++) {
+                for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                    int k1Offset = offset + k1;
+                    int x1 = k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])
+                            ? forward[k1Offset + 1] : forward[k1Offset - 1] + 1;
+                    int y1 = x1 - k1;
+                    while (x1 < n && y1 < m && a[aLo + x1] == b[bLo + y1]) { x1++; y1++; }
+                    forward[k1Offset] = x1;
+                    if (x1 > n) {
+                        k1end += 2;
+                    } else if (y1 > m) {
+                        k1start += 2;
+                    } else if (odd) {
+                        int k2Offset = offset + delta - k1;
+                        if (k2Offset >= 0 && k2Offset < length && reverse[k2Offset] != -1 && x1 >= n - reverse[k2Offset])
+                            return (long) x1 << 32 | y1;
+                    }
+                }
+                for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                    int k2Offset = offset + k2;
+                    int x2 = k2 == -d || (k2 != d && reverse[k2Offset - 1] < reverse[k2Offset + 1])
+                            ? reverse[k2Offset + 1] : reverse[k2Offset - 1] + 1;
+                    int y2 = x2 - k2;
+                    while (x2 < n && y2 < m && a[aHi - x2 - 1] == b[bHi - y2 - 1]) { x2++; y2++; }
+                    reverse[k2Offset] = x2;
+                    if (x2 > n) {
+                        k2end += 2;
+                    } else if (y2 > m) {
+                        k2start += 2;
+                    } else if (!odd) {
+                        int k1Offset = offset + delta - k2;
+                        if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+                            int x1 = forward[k1Offset];
+                            int y1 = offset + x1 - k1Offset;
+                            if (x1 >= n - x2)
+                                return (long) x1 << 32 | y1;
+                        }
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @return The granularity the texts were compared by
+     */
+    public Granularity granularity() {
+        return granularity;
+    }
+
+    /**
+     * @return The edits turning the source into the target, in source order
+     */
+    public List<Edit> edits() {
+        return edits;
+    }
+
+    /**
+     * @return The number of deleted and inserted tokens
+     */
+    public int distance() {
+        return distance;
+    }
+
+    /**
+     * @return True if the source and target are equal
+     */
+    public boolean isEmpty() {
+        return distance == 0;
+    }
+
+    /**
+     * Apply the edits to the source, turning it into the target
+     * @param source The Str holding the source text, it is changed in place
+     * @return The Str object
+     * @throws IllegalArgumentException If the Str is not the length of the source
+     */
+    public Str apply(Str source) {
+        StrBuffer sb = source.buffer();
+        if (sb.length() != sourceLength)
+            throw new IllegalArgumentException("expected a source of length " + sourceLength + " but was " + sb.length());
+        StrBuffer patched = new StrBuffer(targetLength, sb.isLatin1());
+        for (Edit edit : edits) {
+            if (edit.op == Op.EQUAL)
+                patched.append(sb, edit.sourceIndex, edit.sourceIndex + edit.length());
+            else if (edit.op == Op.INSERT)
+                patched.append(edit.text());
+        }
+        sb.setLength(0);
+        sb.append(patched);
+        return source;
+    }
+
+    /**
+     * Apply the edits to the source, turning it into the target
+     * @param source The source text
+     * @return The target text
+     * @throws IllegalArgumentException If the text is not the length of the source
+     */
+    public String apply(CharSequence source) {
+        return apply(Str.of(source)).toString();
+    }
+
+    /**
+     * Lines are prefixed with a space, - or + while characters and words mark changes inline as [-deleted-]{+inserted+}
+     * @return The edits as text
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Edit edit : edits) {
+            String text = edit.text();
+            if (granularity == Granularity.LINE) {
+                char prefix = edit.op == Op.EQUAL ? ' ' : edit.op == Op.DELETE ? '-' : '+';
+                for (int i = 0, len = text.length(); i < len; ) {
+                    int end = Side.lineEnd(text, i);
+                    sb.append(prefix).append(text, i, end);
+                    if (text.charAt(end - 1) != '\n') sb.append('\n');
+                    i = end;
+                }
+            } else if (edit.op == Op.DELETE) {
+                sb.append("[-").append(text).append("-]");
+            } else if (edit.op == Op.INSERT) {
+                sb.append("{+").append(text).append("+}");
+            } else {
+                sb.append(text);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package io.oreto.latte.str;
+
+/**
+ * Edit distance between two strings.
+ * When the shorter string fits in 64 characters the bit-parallel algorithm of Myers, in the formulation of Hyyrö,
+ * computes a whole column of the distance matrix per character using a few long operations.
+ * Longer strings fall back to a dynamic program over two or three int rows.
+ * Every method accepts a maximum distance, once the result is known to exceed it the computation stops early.
+ */
+public class Distance {
+    private static final int WORD = Long.SIZE;
+
+    /**
+     * Levenshtein distance, the minimum number of single character insertions, deletions and substitutions
+     * needed to turn one string into the other
+     * @param a The first string
+     * @param b The second string
+     * @return The edit distance
+     */
+    public static int levenshtein(CharSequence a, CharSequence b) {
+        return levenshtein(a, b, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Levenshtein distance, stopping early once the distance is known to be greater than max
+     * @param a The first string
+     * @param b The second string
+     * @param max The largest distance of interest
+     * @return The edit distance, or max + 1 if the distance is greater than max
+     */
+    public static int levenshtein(CharSequence a, CharSequence b, int max) {
+        return distance(a, b, max, false);
+    }
+
+    /**
+     * Damerau-Levenshtein distance in its optimal string alignment form, which also counts the transposition
+     * of two adjacent characters as a single edit. A substring is never edited more than once.
+     * @param a The first string
+     * @param b The second string
+     * @return The edit distance
+     */
+    public static int damerau(CharSequence a, CharSequence b) {
+        return damerau(a, b, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Damerau-Levenshtein (optimal string alignment) distance, stopping early once the distance is known to be greater than max
+     * @param a The first string
+     * @param b The second string
+     * @param max The largest distance of interest
+     * @return The edit distance, or max + 1 if the distance is greater than max
+     */
+    public static int damerau(CharSequence a, CharSequence b, int max) {
+        return distance(a, b, max, true);
+    }
+
+    private static int distance(CharSequence a, CharSequence b, int max, boolean transpose) {
+        if (max < 0)
+            throw new IllegalArgumentException("max distance must not be negative");
+        // the pattern is the shorter string so it has the best chance of fitting one word
+        CharSequence p = a.length() <= b.length() ? a : b;
+        CharSequence t = p == a ? b : a;
+        int m = p.length(), n = t.length();
+        if (n - m > max)
+            return max + 1;
+        if (m == 0)
+            return n;
+        return m <= WORD ? bitParallel(p, t, max, transpose) : rows(p, t, max, transpose);
+    }
+
+    private static int bitParallel(CharSequence p, CharSequence t, int max, boolean transpose) {
+        int m = p.length(), n = t.length();
+        PatternMask peq = new PatternMask(p);
+        long last = 1L << (m - 1);
+        long vp = -1L, vn = 0, d0 = 0, pmPrev = 0;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long pm = peq.get(t.charAt(j));
+            long tr = transpose ? (((~d0) & pm) << 1) & pmPrev : 0;
+            d0 = (((pm & vp) + vp) ^ vp) | pm | vn | tr;
+            long hp = vn | ~(d0 | vp);
+            long hn = d0 & vp;
+            if ((hp & last) != 0) score++;
+            else if ((hn & last) != 0) score--;
+            // the score can drop by at most one for each remaining character
+            if (score - (n - 1 - j) > max)
+                return max + 1;
+            hp = (hp << 1) | 1;
+            hn <<= 1;
+            vp = hn | ~(d0 | hp);
+            vn = d0 & hp;
+            pmPrev = pm;
+        }
+        return score > max ? max + 1 : score;
+    }
+
+    private static int rows(CharSequence p, CharSequence t, int max, boolean transpose) {
+        int m = p.length(), n = t.length();
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        int[] before = transpose ? new int[m + 1] : null;
+        for (int i = 0; i <= m; i++) prev[i] = i;
+
+        for (int j = 1; j <= n; j++) {
+            char c = t.charAt(j - 1);
+            curr[0] = j;
+            int min = j;
+            for (int i = 1; i <= m; i++) {
+                char pc = p.charAt(i - 1);
+                int d = Math.min(Math.min(curr[i - 1], prev[i]) + 1, prev[i - 1] + (pc == c ? 0 : 1));
+                if (transpose && i > 1 && j > 1 && pc == t.charAt(j - 2) && p.charAt(i - 2) == c)
+                    d = Math.min(d, before[i - 2] + 1);
+                curr[i] = d;
+                if (d < min) min = d;
+            }
+            // every later row is at least the smallest value of this one
+            if (min > max)
+                return max + 1;
+            // rotate the rows, reusing the oldest array for the next row
+            int[] recycled = transpose ? before : prev;
+            if (transpose) before = prev;
+            prev = curr;
+            curr = recycled;
+        }
+        return prev[m] > max ? max + 1 : prev[m];
+    }
+
+    /**
+     * Bit masks of the positions of each character in the pattern.
+     * Latin-1 characters are looked up directly, other characters in a small open addressing table.
+     */
+    private static final class PatternMask {
+        private final long[] latin1 = new long[256];
+        private char[] keys;
+        private long[] masks;
+
+        private PatternMask(CharSequence p) {
+            for (int i = 0, m = p.length(); i < m; i++) {
+                char c = p.charAt(i);
+                if (c < 256) {
+                    latin1[c] |= 1L << i;
+                } else {
+                    if (keys == null) {
+                        keys = new char[WORD * 2];
+                        masks = new long[WORD * 2];
+                    }
+                    int slot = slot(c);
+                    keys[slot] = c;
+                    masks[slot] |= 1L << i;
+                }
+            }
+        }
+
+        private int slot(char c) {
+            int mask = keys.length - 1;
+            int slot = (c * 0x9E3779B9 >>> 16) & mask;
+            // a zero key marks an empty slot, which is safe because only characters >= 256 are stored
+            while (keys[slot] != 0 && keys[slot] != c)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private long get(char c) {
+            if (c < 256)
+                return latin1[c];
+            if (keys == null)
+                return 0;
+            return masks[slot(c)];
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package io.oreto.latte.str;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Table driven escaping and unescaping of text for common formats.
+ * Each escaper scans the input once, copying clean runs in one append and looking up replacements
+ * for ASCII characters in a 128 entry table. Characters above ASCII are never escaped.
+ * When nothing needs escaping the input is returned as is.
+ * JSON = JSON string content
+ * CSV = a CSV field, quoted only when it contains a comma, quote or line break
+ * HTML = HTML text and attribute values
+ * XML = XML text and attribute values
+ * JAVA = Java string literal content
+ */
+public enum Escape {
+    JSON(Tables.JSON), CSV(Tables.CSV), HTML(Tables.HTML), XML(Tables.XML), JAVA(Tables.JAVA);
+
+    private static final char QUOTE = '"';
+
+    private final String[] table;
+
+    Escape(String[] table) {
+        this.table = table;
+    }
+
+    /**
+     * @return True if the character has a replacement or, for CSV, forces the field to be quoted
+     */
+    private boolean special(char c) {
+        return c < Tables.SIZE && (table[c] != null || (this == CSV && (c == ',' || c == '\r' || c == '\n')));
+    }
+
+    /**
+     * Find the first character which needs escaping
+     * @return The index of the character, or the length of s if the string is clean
+     */
+    private int scan(CharSequence s, int from) {
+        int i = from;
+        for (int len = s.length(); i < len && !special(s.charAt(i)); i++);
+        return i;
+    }
+
+    private void body(CharSequence s, int from, Appendable out) throws IOException {
+        int len = s.length();
+        int clean = from;
+        for (int i = from; i < len; i++) {
+            char c = s.charAt(i);
+            String replacement = c < Tables.SIZE ? table[c] : null;
+            if (replacement != null) {
+                out.append(s, clean, i).append(replacement);
+                clean = i + 1;
+            }
+        }
+        out.append(s, clean, len);
+    }
+
+    private void write(CharSequence s, int first, Appendable out) throws IOException {
+        if (this == CSV) {
+            out.append(QUOTE);
+            body(s, 0, out);
+            out.append(QUOTE);
+        } else {
+            out.append(s, 0, first);
+            body(s, first, out);
+        }
+    }
+
+    /**
+     * Escape the string
+     * @param s The string to escape
+     * @return The escaped string, the same String instance if nothing needed escaping
+     */
+    public String escape(CharSequence s) {
+        int first = scan(s, 0);
+        if (first == s.length())
+            return s.toString();
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        try {
+            write(s, first, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escape the string, appending the result
+     * @param s The string to escape
+     * @param out Where to write the escaped string
+     * @param <A> The type of Appendable
+     * @return The Appendable
+     * @throws IOException If the Appendable fails
+     */
+    public <A extends Appendable> A escape(CharSequence s, A out) throws IOException {
+        int first = scan(s, 0);
+        if (first == s.length())
+            out.append(s);
+        else
+            write(s, first, out);
+        return out;
+    }
+
+    /**
+     * Escape the string, appending the result to the Str object
+     * @param s The string to escape
+     * @param out The Str to add the escaped string to
+     * @return The Str object
+     */
+    public Str escape(CharSequence s, Str out) {
+        try {
+            escape(s, out.buffer());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Escape the string and wrap it in double quotes. CSV fields are always quoted.
+     * @param s The string to quote
+     * @return The quoted string
+     */
+    public String quote(CharSequence s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        try {
+            if (this == CSV) {
+                write(s, 0, sb);
+            } else {
+                sb.append(QUOTE);
+                body(s, 0, sb);
+                sb.append(QUOTE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reverse the escaping. Malformed escape sequences are kept as they are.
+     * @param s The string to unescape
+     * @return The unescaped string, the same String instance if nothing needed unescaping
+     */
+    public String unescape(CharSequence s) {
+        if (firstEscape(s) == s.length())
+            return s.toString();
+        StringBuilder sb = new StringBuilder(s.length());
+        try {
+            unescape(s, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reverse the escaping, appending the result to the Str object
+     * @param s The string to unescape
+     * @param out The Str to add the unescaped string to
+     * @return The Str object
+     */
+    public Str unescape(CharSequence s, Str out) {
+        try {
+            unescape(s, out.buffer());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    private int firstEscape(CharSequence s) {
+        char marker = marker();
+        int i = 0;
+        for (int len = s.length(); i < len && s.charAt(i) != marker; i++);
+        return i;
+    }
+
+    private char marker() {
+        switch (this) {
+            case HTML:
+            case XML:
+                return '&';
+            case CSV:
+                return QUOTE;
+            default:
+                return '\\';
+        }
+    }
+
+    /**
+     * Reverse the escaping, appending the result. Malformed escape sequences are kept as they are.
+     * @param s The string to unescape
+     * @param out Where to write the unescaped string
+     * @param <A> The type of Appendable
+     * @return The Appendable
+     * @throws IOException If the Appendable fails
+     */
+    public <A extends Appendable> A unescape(CharSequence s, A out) throws IOException {
+        int len = s.length();
+        int first = firstEscape(s);
+        if (first == len) {
+            out.append(s);
+            return out;
+        }
+        if (this == CSV) {
+            // only a fully quoted field is unquoted
+            if (len >= 2 && s.charAt(0) == QUOTE && s.charAt(len - 1) == QUOTE) {
+                int clean = 1;
+                for (int i = 1; i < len - 1; i++) {
+                    if (s.charAt(i) == QUOTE && s.charAt(i + 1) == QUOTE) {
+                        out.append(s, clean, i + 1);
+                        clean = ++i + 1;
+                    }
+                }
+                out.append(s, clean, len - 1);
+            } else {
+                out.append(s);
+            }
+            return out;
+        }
+
+        out.append(s, 0, first);
+        int clean = first;
+        char marker = marker();
+        for (int i = first; i < len; i++) {
+            if (s.charAt(i) != marker)
+                continue;
+            int end = marker == '&' ? entity(s, i, out, clean) : backslash(s, i, out, clean);
+            if (end > i) {
+                clean = end;
+                i = end - 1;
+            }
+        }
+        out.append(s, clean, len);
+        return out;
+    }
+
+    /**
+     * Decode a backslash escape at index i
+     * @return The index after the escape, or i if it is malformed
+     */
+    private int backslash(CharSequence s, int i, Appendable out, int clean) throws IOException {
+        int len = s.length();
+        if (i + 1 >= len)
+            return i;
+        char c = s.charAt(i + 1);
+        char decoded;
+        int end = i + 2;
+        switch (c) {
+            case 'b': decoded = '\b'; break;
+            case 'f': decoded = '\f'; break;
+            case 'n': decoded = '\n'; break;
+            case 'r': decoded = '\r'; break;
+            case 't': decoded = '\t'; break;
+            case '"': case '\\': decoded = c; break;
+            case '/': if (this == JSON) { decoded = c; break; } return i;
+            case '\'': if (this == JAVA) { decoded = c; break; } return i;
+            case 'u':
+                int code = hex(s, i + 2, i + 6);
+                if (code < 0)
+                    return i;
+                decoded = (char) code;
+                end = i + 6;
+                break;
+            default:
+                if (this == JAVA && c >= '0' && c <= '7') {
+                    // octal escapes are at most \377
+                    int value = 0, max = c <= '3' ? 3 : 2, j = i + 1;
+                    for (; j < len && j < i + 1 + max && s.charAt(j) >= '0' && s.charAt(j) <= '7'; j++)
+                        value = value * 8 + s.charAt(j) - '0';
+                    decoded = (char) value;
+                    end = j;
+                    break;
+                }
+                return i;
+        }
+        out.append(s, clean, i).append(decoded);
+        return end;
+    }
+
+    /**
+     * Decode a character entity at index i
+     * @return The index after the entity, or i if it is malformed or unknown
+     */
+    private int entity(CharSequence s, int i, Appendable out, int clean) throws IOException {
+        int len = s.length();
+        int semi = i + 1;
+        // the longest supported entity is &#x10FFFF;
+        for (int max = Math.min(len, i + 10); semi < max && s.charAt(semi) != ';'; semi++);
+        if (semi >= len || s.charAt(semi) != ';')
+            return i;
+        int codePoint = -1;
+        if (s.charAt(i + 1) == '#') {
+            if (i + 2 < semi && (s.charAt(i + 2) == 'x' || s.charAt(i + 2) == 'X'))
+                codePoint = hex(s, i + 3, semi);
+            else
+                codePoint = decimal(s, i + 2, semi);
+        } else {
+            String name = s.subSequence(i + 1, semi).toString();
+            for (int c = 0; c < Tables.SIZE && codePoint < 0; c++) {
+                String replacement = table[c];
+                if (replacement != null && replacement.length() == name.length() + 2 && replacement.startsWith(name, 1))
+                    codePoint = c;
+            }
+            if (codePoint < 0 && name.equals("apos"))
+                codePoint = '\'';
+        }
+        if (codePoint < 0 || !Character.isValidCodePoint(codePoint))
+            return i;
+        out.append(s, clean, i);
+        if (Character.isBmpCodePoint(codePoint))
+            out.append((char) codePoint);
+        else
+            out.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+        return semi + 1;
+    }
+
+    private static int hex(CharSequence s, int from, int to) {
+        if (to > s.length() || from >= to || to - from > 6)
+            return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0)
+                return -1;
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    private static int decimal(CharSequence s, int from, int to) {
+        if (from >= to || to - from > 7)
+            return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + c - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Replacement tables indexed by ASCII character, null when the character is written as is
+     */
+    private static final class Tables {
+        private static final int SIZE = 128;
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private static final String[] JSON = controls(new String[SIZE]);
+        private static final String[] JAVA = controls(new String[SIZE]);
+        private static final String[] CSV = new String[SIZE];
+        private static final String[] HTML = new String[SIZE];
+        private static final String[] XML = new String[SIZE];
+
+        static {
+            JSON['"'] = "\\\"";
+            JSON['\\'] = "\\\\";
+            JAVA['"'] = "\\\"";
+            JAVA['\\'] = "\\\\";
+            CSV['"'] = "\"\"";
+            HTML['&'] = XML['&'] = "&amp;";
+            HTML['<'] = XML['<'] = "&lt;";
+            HTML['>'] = XML['>'] = "&gt;";
+            HTML['"'] = XML['"'] = "&quot;";
+            HTML['\''] = "&#39;";
+            XML['\''] = "&apos;";
+        }
+
+        private static String[] controls(String[] table) {
+            for (char c = 0; c < ' '; c++)
+                table[c] = "\\u00" + HEX[c >> 4] + HEX[c & 0xF];
+            table['\b'] = "\\b";
+            table['\f'] = "\\f";
+            table['\n'] = "\\n";
+            table['\r'] = "\\r";
+            table['\t'] = "\\t";
+            return table;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.oreto.latte.str;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Dictionary which finds every entry within a Levenshtein distance of a query.
+ * Entries are kept in a BK-tree (Burkhard-Keller) laid out in parallel arrays: each node records its parent edge
+ * distance, its first child and its next sibling. Because edit distance obeys the triangle inequality, a search
+ * only needs to visit children whose edge distance lies within k of the query's distance to their parent.
+ */
+public class FuzzyIndex {
+    private static final int NONE = -1;
+
+    /**
+     * Build an index over the dictionary words, duplicates are kept once
+     * @param words The dictionary entries
+     * @return The new FuzzyIndex
+     */
+    public static FuzzyIndex of(Iterable<? extends CharSequence> words) {
+        FuzzyIndex index = new FuzzyIndex();
+        for (CharSequence word : words)
+            index.add(word);
+        return index;
+    }
+
+    /**
+     * Build an index over the dictionary words, duplicates are kept once
+     * @param words The dictionary entries
+     * @return The new FuzzyIndex
+     */
+    public static FuzzyIndex of(CharSequence... words) {
+        return of(Arrays.asList(words));
+    }
+
+    private String[] words = new String[16];
+    private int[] edge = new int[16];
+    private int[] firstChild = new int[16];
+    private int[] nextSibling = new int[16];
+    private int size;
+
+    private FuzzyIndex() {}
+
+    /**
+     * @return The number of entries in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    private int node(String word, int distance) {
+        if (size == words.length) {
+            int capacity = size * 2;
+            words = Arrays.copyOf(words, capacity);
+            edge = Arrays.copyOf(edge, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        words[size] = word;
+        edge[size] = distance;
+        firstChild[size] = NONE;
+        nextSibling[size] = NONE;
+        return size++;
+    }
+
+    /**
+     * Add a word to the index, not safe to call while other threads are searching
+     * @param word The word to add
+     * @return True if the word was added, false if it was already present
+     */
+    public boolean add(CharSequence word) {
+        String s = word.toString();
+        if (size == 0) {
+            node(s, 0);
+            return true;
+        }
+        int n = 0;
+        while (true) {
+            int d = Distance.levenshtein(s, words[n]);
+            if (d == 0)
+                return false;
+            int child = firstChild[n];
+            while (child != NONE && edge[child] != d)
+                child = nextSibling[child];
+            if (child == NONE) {
+                int added = node(s, d);
+                nextSibling[added] = firstChild[n];
+                firstChild[n] = added;
+                return true;
+            }
+            n = child;
+        }
+    }
+
+    /**
+     * Find all entries within distance k of the query
+     * @param query The string to search for
+     * @param k The maximum edit distance
+     * @return The matching entries, closest first
+     */
+    public List<String> search(CharSequence query, int k) {
+        if (size == 0)
+            return Collections.emptyList();
+        // matches packed as distance << 32 | node so one primitive sort orders them by distance
+        long[] matches = new long[8];
+        int count = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int n = stack[--top];
+            int d = Distance.levenshtein(query, words[n]);
+            if (d <= k) {
+                if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+                matches[count++] = ((long) d << 32) | n;
+            }
+            for (int child = firstChild[n]; child != NONE; child = nextSibling[child]) {
+                if (Math.abs(edge[child] - d) <= k) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = child;
+                }
+            }
+        }
+        Arrays.sort(matches, 0, count);
+        List<String> found = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            found.add(words[(int) matches[i]]);
+        return found;
+    }
+
+    /**
+     * Find all entries within distance k of each query
+     * @param queries The strings to search for
+     * @param k The maximum edit distance
+     * @param parallel If true the queries are run in parallel
+     * @return The matching entries of each query, in the same order as the queries
+     */
+    public List<List<String>> searchAll(List<? extends CharSequence> queries, int k, boolean parallel) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        List<String>[] results = new List[queries.size()];
+        IntStream range = IntStream.range(0, results.length);
+        (parallel ? range.parallel() : range).forEach(i -> results[i] = search(queries.get(i), k));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Find all entries within distance k of each query, running the queries in parallel
+     * @param queries The strings to search for
+     * @param k The maximum edit distance
+     * @return The matching entries of each query, in the same order as the queries
+     */
+    public List<List<String>> searchAll(List<? extends CharSequence> queries, int k) {
+        return searchAll(queries, k, true);
+    }
+}
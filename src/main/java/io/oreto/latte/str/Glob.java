@@ -0,0 +1,333 @@
+package io.oreto.latte.str;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Glob pattern compiled once to a non backtracking automaton.
+ * * = any characters except /
+ * ** = any characters including /, **&#47; also matches no directory at all
+ * ? = one character except /
+ * [abc] [a-z] = one character in the class, [!abc] or [^abc] = one character not in the class
+ * {a,b} = either alternative, alternatives may nest
+ * \ = escape the next character
+ * Matching simulates every automaton state at once, so it runs in time linear in the input for any pattern.
+ */
+public class Glob {
+    /**
+     * Compile the glob pattern
+     * @param pattern The glob pattern
+     * @return The compiled Glob
+     * @throws IllegalArgumentException If a class or alternative group is not closed
+     */
+    public static Glob compile(CharSequence pattern) {
+        return new Glob(pattern.toString());
+    }
+
+    /**
+     * Determine if the string matches the glob pattern
+     * @param pattern The glob pattern
+     * @param s The string to match
+     * @return True if the whole string matches
+     */
+    public static boolean matches(CharSequence pattern, CharSequence s) {
+        return compile(pattern).matches(s);
+    }
+
+    private final String pattern;
+    private final Automaton automaton;
+    // patterns without any special characters are matched by comparison
+    private final String literal;
+
+    private Glob(String pattern) {
+        this.pattern = pattern;
+        this.automaton = new Automaton();
+        automaton.add(pattern, 0);
+        this.literal = automaton.literal();
+    }
+
+    /**
+     * Determine if the string matches this glob
+     * @param s The string to match
+     * @return True if the whole string matches
+     */
+    public boolean matches(CharSequence s) {
+        if (literal != null)
+            return literal.contentEquals(s);
+        return automaton.run(s) != null;
+    }
+
+    /**
+     * @return The glob pattern
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * Position automaton shared by Glob and GlobSet. Each alternative of each pattern is a run of states,
+     * one per pattern token, ending with an accept state which records the owning pattern.
+     * Star states loop on themselves and may be skipped without consuming input.
+     * A **&#47; is preceded by a split state which either enters the globstar or skips it together with its slash,
+     * so the slash can only be left out when the globstar has matched nothing.
+     */
+    static final class Automaton {
+        private static final byte LITERAL = 0, ANY = 1, CLASS = 2, STAR = 3, GLOBSTAR = 4, ACCEPT = 5, SPLIT = 6;
+
+        private byte[] types = new byte[16];
+        private char[] chars = new char[16];
+        // skip target of star and split states, class index of class states and owner of accept states
+        private int[] targets = new int[16];
+        private final List<char[]> classes = new ArrayList<>();
+        private int size;
+        private long[] start = new long[0];
+        private long[] accepts = new long[0];
+
+        /**
+         * Add all the alternatives of the pattern
+         * @param pattern The glob pattern
+         * @param owner The value recorded in the accept states of the pattern
+         */
+        void add(String pattern, int owner) {
+            List<Integer> starts = new ArrayList<>();
+            for (String alternative : expand(pattern)) {
+                starts.add(size);
+                token(alternative);
+                state(ACCEPT, (char) 0, owner);
+            }
+            int words = (size + 63) >>> 6;
+            start = Arrays.copyOf(start, words);
+            accepts = Arrays.copyOf(accepts, words);
+            for (int i : starts)
+                set(start, i);
+            for (int i = 0; i < size; i++)
+                if (types[i] == ACCEPT) set(accepts, i);
+            closure(start);
+        }
+
+        /**
+         * @return The literal text of the pattern if it has a single alternative with only literal characters, null otherwise
+         */
+        String literal() {
+            StringBuilder sb = new StringBuilder(size);
+            for (int i = 0; i < size; i++) {
+                if (types[i] == ACCEPT)
+                    return i == size - 1 ? sb.toString() : null;
+                if (types[i] != LITERAL)
+                    return null;
+                sb.append(chars[i]);
+            }
+            return null;
+        }
+
+        int owner(int state) {
+            return targets[state];
+        }
+
+        private int state(byte type, char c, int target) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                chars = Arrays.copyOf(chars, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            types[size] = type;
+            chars[size] = c;
+            targets[size] = target;
+            return size++;
+        }
+
+        private void token(String p) {
+            int len = p.length();
+            for (int i = 0; i < len; i++) {
+                char c = p.charAt(i);
+                switch (c) {
+                    case '\\':
+                        state(LITERAL, i + 1 < len ? p.charAt(++i) : c, 0);
+                        break;
+                    case '?':
+                        state(ANY, c, 0);
+                        break;
+                    case '*':
+                        if (i + 1 < len && p.charAt(i + 1) == '*') {
+                            while (i + 1 < len && p.charAt(i + 1) == '*') i++;
+                            // **/ may be skipped together with its slash so it also matches no directory,
+                            // the split comes before the globstar so the skip is never taken after it consumed input
+                            if (i + 1 < len && p.charAt(i + 1) == '/') {
+                                int split = state(SPLIT, c, 0);
+                                targets[split] = split + 3;
+                            }
+                            int s = state(GLOBSTAR, c, 0);
+                            targets[s] = s + 1;
+                        } else {
+                            int s = state(STAR, c, 0);
+                            targets[s] = s + 1;
+                        }
+                        break;
+                    case '[':
+                        i = charClass(p, i);
+                        break;
+                    default:
+                        state(LITERAL, c, 0);
+                }
+            }
+        }
+
+        /**
+         * Parse the class starting at index i into a state
+         * @return The index of the closing bracket
+         */
+        private int charClass(String p, int i) {
+            int len = p.length();
+            int j = i + 1;
+            boolean negated = j < len && (p.charAt(j) == '!' || p.charAt(j) == '^');
+            if (negated) j++;
+            StringBuilder ranges = new StringBuilder();
+            // a ] right after the opening bracket is a member of the class
+            for (boolean first = true; j < len && (first || p.charAt(j) != ']'); j++, first = false) {
+                char lo = p.charAt(j);
+                if (lo == '\\' && j + 1 < len) lo = p.charAt(++j);
+                char hi = lo;
+                if (j + 2 < len && p.charAt(j + 1) == '-' && p.charAt(j + 2) != ']') {
+                    hi = p.charAt(j += 2);
+                    if (hi == '\\' && j + 1 < len) hi = p.charAt(++j);
+                }
+                ranges.append(lo).append(hi);
+            }
+            if (j >= len)
+                throw new IllegalArgumentException("unclosed character class in glob: " + p);
+            classes.add(ranges.toString().toCharArray());
+            state(CLASS, negated ? '!' : '[', classes.size() - 1);
+            return j;
+        }
+
+        /**
+         * Expand the alternative groups of the pattern, a{b,c}d becomes abd and acd
+         */
+        static List<String> expand(String p) {
+            int len = p.length();
+            int open = -1, depth = 0;
+            List<Integer> commas = new ArrayList<>();
+            for (int i = 0; i < len; i++) {
+                char c = p.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[' && depth == 0 && open < 0) {
+                    // skip the class so braces inside it stay literal
+                    int j = i + 1;
+                    if (j < len && (p.charAt(j) == '!' || p.charAt(j) == '^')) j++;
+                    if (j < len && p.charAt(j) == ']') j++;
+                    while (j < len && p.charAt(j) != ']') j++;
+                    i = j;
+                } else if (c == '{') {
+                    if (depth++ == 0) open = i;
+                } else if (c == ',' && depth == 1) {
+                    commas.add(i);
+                } else if (c == '}' && depth > 0 && --depth == 0) {
+                    String prefix = p.substring(0, open), suffix = p.substring(i + 1);
+                    List<String> expanded = new ArrayList<>();
+                    int from = open + 1;
+                    commas.add(i);
+                    for (int comma : commas) {
+                        expanded.addAll(expand(prefix + p.substring(from, comma) + suffix));
+                        from = comma + 1;
+                    }
+                    return expanded;
+                }
+            }
+            if (depth > 0)
+                throw new IllegalArgumentException("unclosed alternative group in glob: " + p);
+            return Collections.singletonList(p);
+        }
+
+        private static void set(long[] bits, int i) {
+            bits[i >>> 6] |= 1L << i;
+        }
+
+        /**
+         * Add the states reachable by skipping star states and following split states.
+         * Skips only go forward, so one ascending pass is enough.
+         */
+        private void closure(long[] bits) {
+            for (int k = 0; k < bits.length; k++) {
+                for (long word = bits[k]; word != 0; word &= word - 1) {
+                    int i = (k << 6) + Long.numberOfTrailingZeros(word);
+                    if (types[i] == STAR || types[i] == GLOBSTAR || types[i] == SPLIT) {
+                        int target = targets[i];
+                        set(bits, target);
+                        if (target >>> 6 == k)
+                            word |= 1L << target;
+                        if (types[i] == SPLIT) {
+                            set(bits, i + 1);
+                            if ((i + 1) >>> 6 == k)
+                                word |= 1L << (i + 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean inClass(int state, char c) {
+            char[] ranges = classes.get(targets[state]);
+            boolean in = false;
+            for (int r = 0; r < ranges.length && !in; r += 2)
+                in = c >= ranges[r] && c <= ranges[r + 1];
+            return in != (chars[state] == '!');
+        }
+
+        /**
+         * Run the automaton over the whole string
+         * @return The accept states reached, null if no state accepts
+         */
+        long[] run(CharSequence s) {
+            long[] current = start.clone();
+            long[] next = new long[current.length];
+            for (int n = 0, len = s.length(); n < len; n++) {
+                char c = s.charAt(n);
+                boolean alive = false;
+                for (int k = 0; k < current.length; k++) {
+                    for (long word = current[k]; word != 0; word &= word - 1) {
+                        int i = (k << 6) + Long.numberOfTrailingZeros(word);
+                        switch (types[i]) {
+                            case LITERAL:
+                                if (chars[i] == c) set(next, i + 1);
+                                break;
+                            case ANY:
+                                if (c != '/') set(next, i + 1);
+                                break;
+                            case CLASS:
+                                if (c != '/' && inClass(i, c)) set(next, i + 1);
+                                break;
+                            case STAR:
+                                if (c != '/') set(next, i);
+                                break;
+                            case GLOBSTAR:
+                                set(next, i);
+                                break;
+                        }
+                    }
+                }
+                closure(next);
+                for (int k = 0; k < next.length; k++) {
+                    alive |= next[k] != 0;
+                    current[k] = next[k];
+                    next[k] = 0;
+                }
+                if (!alive)
+                    return null;
+            }
+            boolean accepted = false;
+            for (int k = 0; k < current.length; k++) {
+                current[k] &= accepts[k];
+                accepted |= current[k] != 0;
+            }
+            return accepted ? current : null;
+        }
+    }
+}
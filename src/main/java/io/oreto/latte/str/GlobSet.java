@@ -0,0 +1,111 @@
+package io.oreto.latte.str;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set of glob patterns compiled into one automaton so a string is tested against all of them in a single pass.
+ * Matching time is linear in the input and does not grow with the number of patterns that fail early.
+ */
+public class GlobSet {
+    /**
+     * Compile the glob patterns into a set
+     * @param patterns The glob patterns
+     * @return The new GlobSet
+     * @throws IllegalArgumentException If a pattern has an unclosed class or alternative group
+     */
+    public static GlobSet of(Collection<? extends CharSequence> patterns) {
+        return new GlobSet(patterns);
+    }
+
+    /**
+     * Compile the glob patterns into a set
+     * @param patterns The glob patterns
+     * @return The new GlobSet
+     * @throws IllegalArgumentException If a pattern has an unclosed class or alternative group
+     */
+    public static GlobSet of(CharSequence... patterns) {
+        return new GlobSet(Arrays.asList(patterns));
+    }
+
+    private final List<String> patterns;
+    private final Glob.Automaton automaton;
+
+    private GlobSet(Collection<? extends CharSequence> patterns) {
+        List<String> list = new ArrayList<>(patterns.size());
+        this.automaton = new Glob.Automaton();
+        for (CharSequence pattern : patterns) {
+            automaton.add(pattern.toString(), list.size());
+            list.add(pattern.toString());
+        }
+        this.patterns = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return The glob patterns in the order they were given
+     */
+    public List<String> patterns() {
+        return patterns;
+    }
+
+    /**
+     * @return The number of patterns
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * Determine if the string matches any of the patterns
+     * @param s The string to match
+     * @return True if at least one pattern matches the whole string
+     */
+    public boolean matches(CharSequence s) {
+        return automaton.run(s) != null;
+    }
+
+    /**
+     * Find the first pattern matching the string
+     * @param s The string to match
+     * @return The index of the first matching pattern, -1 if none match
+     */
+    public int match(CharSequence s) {
+        long[] accepted = automaton.run(s);
+        if (accepted == null)
+            return -1;
+        int first = Integer.MAX_VALUE;
+        for (int k = 0; k < accepted.length; k++) {
+            for (long word = accepted[k]; word != 0; word &= word - 1)
+                first = Math.min(first, automaton.owner((k << 6) + Long.numberOfTrailingZeros(word)));
+        }
+        return first;
+    }
+
+    /**
+     * Find every pattern matching the string
+     * @param s The string to match
+     * @return The indexes of the matching patterns in ascending order
+     */
+    public int[] matchAll(CharSequence s) {
+        long[] accepted = automaton.run(s);
+        if (accepted == null)
+            return new int[0];
+        // alternatives of one pattern may all accept, keep each pattern once
+        return Arrays.stream(owners(accepted)).distinct().toArray();
+    }
+
+    private int[] owners(long[] accepted) {
+        int count = 0;
+        for (long word : accepted) count += Long.bitCount(word);
+        int[] owners = new int[count];
+        int n = 0;
+        for (int k = 0; k < accepted.length; k++) {
+            for (long word = accepted[k]; word != 0; word &= word - 1)
+                owners[n++] = automaton.owner((k << 6) + Long.numberOfTrailingZeros(word));
+        }
+        return owners;
+    }
+}
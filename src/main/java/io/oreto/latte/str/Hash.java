@@ -0,0 +1,401 @@
+package io.oreto.latte.str;
+
+import java.nio.CharBuffer;
+
+/**
+ * Fast non-cryptographic hash functions for sharding and bucketing string keys.
+ * Characters are read straight from the CharSequence, no String or byte array is created.
+ * The char based functions hash the UTF-16LE form of the characters, so they agree with hashing
+ * {@code s.getBytes(StandardCharsets.UTF_16LE)}. The utf8 variants agree with hashing {@code s.getBytes(StandardCharsets.UTF_8)}.
+ */
+public class Hash {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    // --------------------------------- xxHash64 ---------------------------------
+
+    /**
+     * xxHash64 of the characters
+     * @param s The string to hash
+     * @return The 64 bit hash
+     */
+    public static long xx64(CharSequence s) {
+        return xx64(s, 0);
+    }
+
+    /**
+     * xxHash64 of the characters
+     * @param s The string to hash
+     * @param seed The hash seed
+     * @return The 64 bit hash
+     */
+    public static long xx64(CharSequence s, long seed) {
+        int n = s.length();
+        int i = 0;
+        long h;
+        if (n >= 16) {
+            long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+            // one 32 byte stripe is 16 chars
+            for (int limit = n - 16; i <= limit; i += 16) {
+                v1 = round(v1, lane(s, i));
+                v2 = round(v2, lane(s, i + 4));
+                v3 = round(v3, lane(s, i + 8));
+                v4 = round(v4, lane(s, i + 12));
+            }
+            h = converge(v1, v2, v3, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += (long) n * 2;
+        for (; i + 4 <= n; i += 4)
+            h = mix8(h, lane(s, i));
+        if (i + 2 <= n) {
+            h = mix4(h, (s.charAt(i) | (long) s.charAt(i + 1) << 16));
+            i += 2;
+        }
+        if (i < n) {
+            char c = s.charAt(i);
+            h = mix1(mix1(h, c & 0xFF), c >>> 8);
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * xxHash64 of a range of characters
+     * @param chars The characters to hash
+     * @param from The first index to hash
+     * @param to The index after the last character to hash
+     * @param seed The hash seed
+     * @return The 64 bit hash
+     */
+    public static long xx64(char[] chars, int from, int to, long seed) {
+        return xx64(CharBuffer.wrap(chars, from, to - from), seed);
+    }
+
+    /**
+     * xxHash64 of a range of bytes
+     * @param bytes The bytes to hash
+     * @param from The first index to hash
+     * @param to The index after the last byte to hash
+     * @param seed The hash seed
+     * @return The 64 bit hash
+     */
+    public static long xx64(byte[] bytes, int from, int to, long seed) {
+        int i = from;
+        long h;
+        if (to - from >= 32) {
+            long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+            for (int limit = to - 32; i <= limit; i += 32) {
+                v1 = round(v1, lane(bytes, i));
+                v2 = round(v2, lane(bytes, i + 8));
+                v3 = round(v3, lane(bytes, i + 16));
+                v4 = round(v4, lane(bytes, i + 24));
+            }
+            h = converge(v1, v2, v3, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += to - from;
+        for (; i + 8 <= to; i += 8)
+            h = mix8(h, lane(bytes, i));
+        if (i + 4 <= to) {
+            h = mix4(h, lane4(bytes, i));
+            i += 4;
+        }
+        for (; i < to; i++)
+            h = mix1(h, bytes[i] & 0xFF);
+        return avalanche(h);
+    }
+
+    /**
+     * xxHash64 of the bytes
+     * @param bytes The bytes to hash
+     * @param seed The hash seed
+     * @return The 64 bit hash
+     */
+    public static long xx64(byte[] bytes, long seed) {
+        return xx64(bytes, 0, bytes.length, seed);
+    }
+
+    /**
+     * xxHash64 of the UTF-8 encoding of the characters, the same value as hashing s.getBytes(UTF_8).
+     * The characters are encoded on the fly one stripe at a time.
+     * @param s The string to hash
+     * @param seed The hash seed
+     * @return The 64 bit hash
+     */
+    public static long xx64Utf8(CharSequence s, long seed) {
+        Utf8Stream stream = new Utf8Stream(seed);
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                stream.put(c);
+            } else if (c < 0x800) {
+                stream.put(0xC0 | c >>> 6);
+                stream.put(0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    stream.put(0xF0 | cp >>> 18);
+                    stream.put(0x80 | cp >>> 12 & 0x3F);
+                    stream.put(0x80 | cp >>> 6 & 0x3F);
+                    stream.put(0x80 | cp & 0x3F);
+                } else {
+                    // unpaired surrogates are replaced the same way String.getBytes does
+                    stream.put('?');
+                }
+            } else {
+                stream.put(0xE0 | c >>> 12);
+                stream.put(0x80 | c >>> 6 & 0x3F);
+                stream.put(0x80 | c & 0x3F);
+            }
+        }
+        return stream.finish();
+    }
+
+    /**
+     * xxHash64 of the UTF-8 encoding of the characters, the same value as hashing s.getBytes(UTF_8)
+     * @param s The string to hash
+     * @return The 64 bit hash
+     */
+    public static long xx64Utf8(CharSequence s) {
+        return xx64Utf8(s, 0);
+    }
+
+    private static long lane(CharSequence s, int i) {
+        return s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+    }
+
+    private static long lane(byte[] b, int i) {
+        return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32 | (b[i + 5] & 0xFFL) << 40 | (b[i + 6] & 0xFFL) << 48 | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static long lane4(byte[] b, int i) {
+        return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24;
+    }
+
+    private static long round(long acc, long lane) {
+        return Long.rotateLeft(acc + lane * P2, 31) * P1;
+    }
+
+    private static long converge(long v1, long v2, long v3, long v4) {
+        long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        h = (h ^ round(0, v1)) * P1 + P4;
+        h = (h ^ round(0, v2)) * P1 + P4;
+        h = (h ^ round(0, v3)) * P1 + P4;
+        return (h ^ round(0, v4)) * P1 + P4;
+    }
+
+    private static long mix8(long h, long lane) {
+        return Long.rotateLeft(h ^ round(0, lane), 27) * P1 + P4;
+    }
+
+    private static long mix4(long h, long lane) {
+        return Long.rotateLeft(h ^ (lane & 0xFFFFFFFFL) * P1, 23) * P2 + P3;
+    }
+
+    private static long mix1(long h, int b) {
+        return Long.rotateLeft(h ^ b * P5, 11) * P1;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        return h ^ h >>> 32;
+    }
+
+    /**
+     * Streaming xxHash64 state fed one byte at a time
+     */
+    private static final class Utf8Stream {
+        private final byte[] stripe = new byte[32];
+        private final long seed;
+        private long v1, v2, v3, v4;
+        private int size;
+        private long total;
+
+        private Utf8Stream(long seed) {
+            this.seed = seed;
+            v1 = seed + P1 + P2;
+            v2 = seed + P2;
+            v3 = seed;
+            v4 = seed - P1;
+        }
+
+        private void put(int b) {
+            stripe[size++] = (byte) b;
+            if (size == stripe.length) {
+                v1 = round(v1, lane(stripe, 0));
+                v2 = round(v2, lane(stripe, 8));
+                v3 = round(v3, lane(stripe, 16));
+                v4 = round(v4, lane(stripe, 24));
+                size = 0;
+            }
+            total++;
+        }
+
+        private long finish() {
+            long h = total >= stripe.length ? converge(v1, v2, v3, v4) : seed + P5;
+            h += total;
+            int i = 0;
+            for (; i + 8 <= size; i += 8)
+                h = mix8(h, lane(stripe, i));
+            if (i + 4 <= size) {
+                h = mix4(h, lane4(stripe, i));
+                i += 4;
+            }
+            for (; i < size; i++)
+                h = mix1(h, stripe[i] & 0xFF);
+            return avalanche(h);
+        }
+    }
+
+    // --------------------------------- MurmurHash3 x64 128 ---------------------------------
+
+    /**
+     * 128 bit MurmurHash3 (x64 variant) of the characters
+     * @param s The string to hash
+     * @param seed The hash seed
+     * @return The two 64 bit halves of the hash
+     */
+    public static long[] murmur128(CharSequence s, int seed) {
+        int n = s.length();
+        long h1 = seed & 0xFFFFFFFFL, h2 = h1;
+        int i = 0;
+        // one 16 byte block is 8 chars
+        for (int limit = n - 8; i <= limit; i += 8) {
+            h1 = block1(h1, h2, lane(s, i));
+            h2 = block2(h2, h1, lane(s, i + 4));
+        }
+        long k1 = 0, k2 = 0;
+        for (int j = 0; i + j < n; j++) {
+            long c = s.charAt(i + j);
+            if (j < 4) k1 |= c << (16 * j);
+            else k2 |= c << (16 * (j - 4));
+        }
+        return finish(h1, h2, k1, k2, n - i > 4, n > i, (long) n * 2);
+    }
+
+    /**
+     * 128 bit MurmurHash3 (x64 variant) of the characters
+     * @param s The string to hash
+     * @return The two 64 bit halves of the hash
+     */
+    public static long[] murmur128(CharSequence s) {
+        return murmur128(s, 0);
+    }
+
+    /**
+     * 128 bit MurmurHash3 (x64 variant) of a range of characters
+     * @param chars The characters to hash
+     * @param from The first index to hash
+     * @param to The index after the last character to hash
+     * @param seed The hash seed
+     * @return The two 64 bit halves of the hash
+     */
+    public static long[] murmur128(char[] chars, int from, int to, int seed) {
+        return murmur128(CharBuffer.wrap(chars, from, to - from), seed);
+    }
+
+    /**
+     * 128 bit MurmurHash3 (x64 variant) of the bytes
+     * @param bytes The bytes to hash
+     * @param seed The hash seed
+     * @return The two 64 bit halves of the hash
+     */
+    public static long[] murmur128(byte[] bytes, int seed) {
+        int n = bytes.length;
+        long h1 = seed & 0xFFFFFFFFL, h2 = h1;
+        int i = 0;
+        for (int limit = n - 16; i <= limit; i += 16) {
+            h1 = block1(h1, h2, lane(bytes, i));
+            h2 = block2(h2, h1, lane(bytes, i + 8));
+        }
+        long k1 = 0, k2 = 0;
+        for (int j = 0; i + j < n; j++) {
+            long b = bytes[i + j] & 0xFFL;
+            if (j < 8) k1 |= b << (8 * j);
+            else k2 |= b << (8 * (j - 8));
+        }
+        return finish(h1, h2, k1, k2, n - i > 8, n > i, n);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long block1(long h1, long h2, long k1) {
+        h1 ^= mixK1(k1);
+        return (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52DCE729;
+    }
+
+    private static long block2(long h2, long h1, long k2) {
+        h2 ^= mixK2(k2);
+        return (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495AB5;
+    }
+
+    private static long[] finish(long h1, long h2, long k1, long k2, boolean tail2, boolean tail1, long length) {
+        if (tail2) h2 ^= mixK2(k2);
+        if (tail1) h1 ^= mixK1(k1);
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] { h1, h2 };
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        return k ^ k >>> 33;
+    }
+
+    // --------------------------------- bucket assignment ---------------------------------
+
+    /**
+     * Jump consistent hash of Lamping and Veach. Maps a key hash to one of the buckets so that growing
+     * the number of buckets from n to n + 1 only moves about 1 / (n + 1) of the keys.
+     * @param key The key hash, for example from xx64
+     * @param buckets The number of buckets
+     * @return The bucket in the range [0, buckets)
+     */
+    public static int jump(long key, int buckets) {
+        if (buckets <= 0)
+            throw new IllegalArgumentException("buckets must be positive");
+        long b = -1, j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    /**
+     * Jump consistent hash bucket of the string key
+     * @param key The key
+     * @param buckets The number of buckets
+     * @return The bucket in the range [0, buckets)
+     */
+    public static int jump(CharSequence key, int buckets) {
+        return jump(xx64(key), buckets);
+    }
+}
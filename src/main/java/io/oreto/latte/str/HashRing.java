@@ -0,0 +1,143 @@
+package io.oreto.latte.str;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consistent hash ring assigning string keys to nodes. Each node is placed at several points on the ring
+ * (virtual nodes) and a key belongs to the first node point at or after the key's hash.
+ * Adding or removing a node only moves the keys next to its points.
+ * Lookups read an immutable snapshot of the ring, changes replace the snapshot.
+ * @param <T> The type of node
+ */
+public class HashRing<T> {
+    public static final int DEFAULT_REPLICAS = 128;
+
+    /**
+     * Create a hash ring over the nodes
+     * @param nodes The nodes, their toString value is used to place them on the ring
+     * @param replicas The number of points each node occupies on the ring
+     * @param <T> The type of node
+     * @return The new HashRing
+     */
+    public static <T> HashRing<T> of(Collection<T> nodes, int replicas) {
+        return new HashRing<>(nodes, replicas);
+    }
+
+    /**
+     * Create a hash ring over the nodes
+     * @param nodes The nodes, their toString value is used to place them on the ring
+     * @param <T> The type of node
+     * @return The new HashRing
+     */
+    public static <T> HashRing<T> of(Collection<T> nodes) {
+        return new HashRing<>(nodes, DEFAULT_REPLICAS);
+    }
+
+    /**
+     * Sorted ring points with the index of the owning node for each point
+     */
+    private static final class Ring {
+        private final long[] points;
+        private final int[] owners;
+        private final List<Object> nodes;
+
+        private Ring(long[] points, int[] owners, List<Object> nodes) {
+            this.points = points;
+            this.owners = owners;
+            this.nodes = nodes;
+        }
+    }
+
+    private final int replicas;
+    private volatile Ring ring;
+
+    private HashRing(Collection<T> nodes, int replicas) {
+        if (replicas <= 0)
+            throw new IllegalArgumentException("replicas must be positive");
+        this.replicas = replicas;
+        this.ring = build(new ArrayList<>(nodes));
+    }
+
+    private Ring build(List<Object> nodes) {
+        int size = nodes.size() * replicas;
+        long[] keys = new long[size];
+        int k = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            String name = String.valueOf(nodes.get(n));
+            for (int r = 0; r < replicas; r++)
+                keys[k++] = Hash.xx64(name, r);
+        }
+        // sort an index permutation so each point keeps track of its owner
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        long[] points = new long[size];
+        int[] owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = keys[order[i]];
+            owners[i] = order[i] / replicas;
+        }
+        return new Ring(points, owners, Collections.unmodifiableList(nodes));
+    }
+
+    /**
+     * Add a node to the ring
+     * @param node The node to add
+     * @return The HashRing
+     */
+    public synchronized HashRing<T> add(T node) {
+        List<Object> nodes = new ArrayList<>(ring.nodes);
+        nodes.add(node);
+        ring = build(nodes);
+        return this;
+    }
+
+    /**
+     * Remove a node from the ring
+     * @param node The node to remove
+     * @return The HashRing
+     */
+    public synchronized HashRing<T> remove(T node) {
+        List<Object> nodes = new ArrayList<>(ring.nodes);
+        if (nodes.remove(node))
+            ring = build(nodes);
+        return this;
+    }
+
+    /**
+     * @return The nodes on the ring
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> nodes() {
+        return (List<T>) ring.nodes;
+    }
+
+    /**
+     * Find the node owning the key hash
+     * @param hash The key hash
+     * @return The owning node, null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long hash) {
+        Ring ring = this.ring;
+        if (ring.points.length == 0)
+            return null;
+        int i = Arrays.binarySearch(ring.points, hash);
+        if (i < 0) i = -i - 1;
+        if (i == ring.points.length) i = 0;
+        return (T) ring.nodes.get(ring.owners[i]);
+    }
+
+    /**
+     * Find the node owning the key
+     * @param key The key
+     * @return The owning node, null if the ring is empty
+     */
+    public T get(CharSequence key) {
+        return get(Hash.xx64(key));
+    }
+}
@@ -0,0 +1,257 @@
+package io.oreto.latte.str;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent string deduplicator. Equal character sequences are mapped to one canonical String instance.
+ * Canonical strings are weakly referenced, so once no caller holds on to a value it can be garbage collected
+ * and its entry is dropped. The table is split into independently locked segments chosen by hash,
+ * and lookups compare characters in place so a value already present is returned without allocating.
+ */
+public class Interner {
+    // rough per String cost on a compressed oops jvm: String object plus the char array header
+    private static final int STRING_OVERHEAD = 40;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Interner GLOBAL = new Interner();
+
+    /**
+     * @return The shared interner used by Str.intern
+     */
+    public static Interner global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Create a new interner with a number of segments suited to the available processors
+     * @return The new Interner
+     */
+    public static Interner create() {
+        return new Interner();
+    }
+
+    /**
+     * Create a new interner
+     * @param concurrency The expected number of threads interning at the same time, rounded up to a power of two
+     * @return The new Interner
+     */
+    public static Interner create(int concurrency) {
+        return new Interner(concurrency);
+    }
+
+    /**
+     * Calculate the String compatible hash code without creating a String
+     * @param s The string to hash
+     * @return The hash code
+     */
+    static int hash(CharSequence s) {
+        if (s instanceof String || s instanceof Str)
+            return s.hashCode();
+        int h = 0;
+        for (int i = 0, len = s.length(); i < len; i++)
+            h = 31 * h + s.charAt(i);
+        return h;
+    }
+
+    private final Segment[] segments;
+    private final int shift;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    private Interner(int concurrency) {
+        int size = 1, bits = 0;
+        while (size < concurrency) {
+            size <<= 1;
+            bits++;
+        }
+        segments = new Segment[size];
+        for (int i = 0; i < size; i++)
+            segments[i] = new Segment();
+        shift = 32 - bits;
+    }
+
+    private Interner() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    private Segment segment(int hash) {
+        // spread the bits so similar hashes land in different segments and buckets
+        int h = hash * 0x9E3779B9;
+        return segments.length == 1 ? segments[0] : segments[h >>> shift];
+    }
+
+    /**
+     * Find the canonical String for the character sequence, adding it if not present
+     * @param s The string to intern
+     * @return The canonical String with the same characters, null if s is null
+     */
+    public String intern(CharSequence s) {
+        if (s == null)
+            return null;
+        int hash = hash(s);
+        requests.increment();
+        return segment(hash).intern(s, hash);
+    }
+
+    /**
+     * Find the canonical String for the character sequence without adding it
+     * @param s The string to look up
+     * @return The canonical String if present, null otherwise
+     */
+    public String get(CharSequence s) {
+        int hash = hash(s);
+        return segment(hash).get(s, hash);
+    }
+
+    /**
+     * @return The number of canonical strings still held
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /**
+     * @return The number of intern requests
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return The number of intern requests answered with an existing canonical String
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The fraction of intern requests which were duplicates, between 0 and 1
+     */
+    public double dedupRatio() {
+        long requests = requests();
+        return requests == 0 ? 0 : (double) hits() / requests;
+    }
+
+    /**
+     * Estimate of the memory no longer needed because duplicates were replaced with canonical strings.
+     * Assumes the duplicate would otherwise have been kept as its own String.
+     * @return The number of bytes saved
+     */
+    public long bytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Remove all canonical strings and reset the statistics
+     */
+    public void clear() {
+        for (Segment segment : segments)
+            segment.clear();
+        requests.reset();
+        hits.reset();
+        bytesSaved.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Interner{size=%d, requests=%d, hits=%d, dedupRatio=%.3f, bytesSaved=%d}"
+                , size(), requests(), hits(), dedupRatio(), bytesSaved());
+    }
+
+    private static boolean contentEquals(String canonical, CharSequence s) {
+        return s instanceof String ? canonical.equals(s) : canonical.contentEquals(s);
+    }
+
+    private static final class Entry extends WeakReference<String> {
+        private final int hash;
+        private Entry next;
+
+        private Entry(String s, int hash, Entry next, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private final class Segment {
+        private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+        private Entry[] table = new Entry[INITIAL_CAPACITY];
+        private int count;
+
+        private synchronized String get(CharSequence s, int hash) {
+            for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+                String canonical;
+                if (e.hash == hash && (canonical = e.get()) != null && contentEquals(canonical, s))
+                    return canonical;
+            }
+            return null;
+        }
+
+        private synchronized String intern(CharSequence s, int hash) {
+            expunge();
+            String canonical = get(s, hash);
+            if (canonical != null) {
+                hits.increment();
+                bytesSaved.add(STRING_OVERHEAD + (long) s.length() * Character.BYTES);
+                return canonical;
+            }
+
+            canonical = s.toString();
+            if (count >= table.length - (table.length >>> 2))
+                resize();
+            int i = hash & (table.length - 1);
+            table[i] = new Entry(canonical, hash, table[i], queue);
+            count++;
+            return canonical;
+        }
+
+        private void resize() {
+            Entry[] old = table;
+            Entry[] resized = new Entry[old.length << 1];
+            int mask = resized.length - 1;
+            for (Entry head : old) {
+                for (Entry e = head, next; e != null; e = next) {
+                    next = e.next;
+                    int i = e.hash & mask;
+                    e.next = resized[i];
+                    resized[i] = e;
+                }
+            }
+            table = resized;
+        }
+
+        /**
+         * Unlink entries whose strings were garbage collected
+         */
+        private void expunge() {
+            for (Object cleared; (cleared = queue.poll()) != null; ) {
+                Entry entry = (Entry) cleared;
+                int i = entry.hash & (table.length - 1);
+                for (Entry e = table[i], prev = null; e != null; prev = e, e = e.next) {
+                    if (e == entry) {
+                        if (prev == null) table[i] = e.next;
+                        else prev.next = e.next;
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private synchronized int size() {
+            expunge();
+            return count;
+        }
+
+        private synchronized void clear() {
+            while (queue.poll() != null);
+            table = new Entry[INITIAL_CAPACITY];
+            count = 0;
+        }
+    }
+}
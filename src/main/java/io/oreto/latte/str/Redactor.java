@@ -0,0 +1,391 @@
+package io.oreto.latte.str;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming redaction of sensitive values such as emails, card numbers and access tokens in free form text.
+ * The input is scanned once. Detectors are only tried where a word starts, each one scanning ahead
+ * from that position, and the first detector to match masks the value and resumes the scan after it.
+ * Clean text between matches is copied in runs. A Redactor is safe to share between threads.
+ */
+public class Redactor {
+    private static final int BUFFER_SIZE = 8192;
+    // lines longer than this are split when reading from a Reader
+    private static final int MAX_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Finds a sensitive value starting at a position of the text
+     */
+    @FunctionalInterface
+    public interface Detector {
+        /**
+         * Try to match a value starting exactly at the start index
+         * @param s The text
+         * @param start The index a word starts at
+         * @param end The end of the text which may be scanned
+         * @return The index after the matched value, or -1 if there is no match
+         */
+        int match(CharSequence s, int start, int end);
+
+        /**
+         * Email addresses, validated with the same rules as Str.isEmail
+         */
+        Detector EMAIL = (s, start, end) -> {
+            int i = start, at = -1;
+            for (; i < end; i++) {
+                char c = s.charAt(i);
+                if (c == '@') {
+                    if (at > -1) break;
+                    at = i;
+                } else if (!(Str.isAlphaNumeric(c) || c == '.' || c == '-' || (c == '_' && at < 0))) {
+                    break;
+                }
+            }
+            if (at < 0)
+                return -1;
+            // sentence punctuation after the address is not part of it
+            while (i > at && !Str.isAlphaNumeric(s.charAt(i - 1)))
+                i--;
+            return Str.isEmail(s, start, i) ? i : -1;
+        };
+
+        /**
+         * Payment card numbers of 13 to 19 digits, optionally grouped with single spaces or dashes, passing the Luhn check
+         */
+        Detector CARD = (s, start, end) -> {
+            int digits = 0, last = start;
+            for (int i = start; i < end; i++) {
+                char c = s.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digits++;
+                    last = i + 1;
+                } else if ((c != ' ' && c != '-') || last != i) {
+                    break;
+                }
+            }
+            if (digits < 13 || digits > 19 || (last < end && Str.isAlphaNumeric(s.charAt(last))))
+                return -1;
+            return luhn(s, start, last) ? last : -1;
+        };
+
+        /**
+         * Access tokens and keys: runs of at least 20 token characters mixing letters and digits
+         */
+        Detector TOKEN = token(20);
+
+        /**
+         * Access tokens and keys: runs of token characters (letters, digits, _-.+/ and trailing = padding) mixing letters and digits
+         * @param minLength The minimum length of a token
+         * @return The token Detector
+         */
+        static Detector token(int minLength) {
+            return (s, start, end) -> {
+                boolean letter = false, digit = false, padding = false;
+                int i = start;
+                for (; i < end; i++) {
+                    char c = s.charAt(i);
+                    // = is only base64 padding at the end, so key=value is not read as one token
+                    if (c == '=') padding = true;
+                    else if (padding) break;
+                    else if (c >= '0' && c <= '9') digit = true;
+                    else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) letter = true;
+                    else if (c != '_' && c != '-' && c != '.' && c != '+' && c != '/') break;
+                }
+                if (padding && i < end && Str.isAlphaNumeric(s.charAt(i)))
+                    return -1;
+                return i - start >= minLength && letter && digit ? i : -1;
+            };
+        }
+    }
+
+    /**
+     * Writes the replacement of a detected value
+     */
+    @FunctionalInterface
+    public interface Mask {
+        /**
+         * Write the replacement for the value
+         * @param s The text
+         * @param start The index of the value
+         * @param end The index after the value
+         * @param out Where to write the replacement
+         * @throws IOException If out fails
+         */
+        void mask(CharSequence s, int start, int end, Appendable out) throws IOException;
+
+        /**
+         * Replace the value with a fixed label
+         * @param label The replacement text, for example [EMAIL]
+         * @return The label Mask
+         */
+        static Mask label(String label) {
+            return (s, start, end, out) -> out.append(label);
+        }
+
+        /**
+         * Replace every character of the value with the fill character, keeping its length
+         * @param fill The fill character
+         * @return The fill Mask
+         */
+        static Mask fill(char fill) {
+            return keepLast(0, fill);
+        }
+
+        /**
+         * Replace the letters and digits of the value with the fill character except for the last few,
+         * other characters such as separators are kept. 4111 1111 1111 1111 becomes **** **** **** 1111
+         * @param keep The number of trailing letters and digits to keep
+         * @param fill The fill character
+         * @return The Mask
+         */
+        static Mask keepLast(int keep, char fill) {
+            return (s, start, end, out) -> {
+                int kept = 0, from = end;
+                while (from > start && kept < keep) {
+                    if (Str.isAlphaNumeric(s.charAt(--from))) kept++;
+                }
+                for (int i = start; i < from; i++) {
+                    char c = s.charAt(i);
+                    out.append(keep == 0 || Str.isAlphaNumeric(c) ? fill : c);
+                }
+                out.append(s, from, end);
+            };
+        }
+
+        /**
+         * Replace the value with a stable hash so equal values can still be correlated
+         * @return The hash Mask
+         */
+        static Mask hash() {
+            return (s, start, end, out) -> out.append('#').append(Long.toHexString(Hash.xx64(CharBuffer.wrap(s, start, end))));
+        }
+    }
+
+    /**
+     * Luhn checksum over the digits in the range, other characters are skipped
+     */
+    static boolean luhn(CharSequence s, int start, int end) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = end - 1; i >= start; i--) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                continue;
+            int d = c - '0';
+            if (doubled && (d *= 2) > 9)
+                d -= 9;
+            sum += d;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c < 128 ? (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') : Str.isAlphaNumeric(c);
+    }
+
+    /**
+     * Create a redactor masking emails, card numbers and tokens with labels
+     * @return The new Redactor
+     */
+    public static Redactor create() {
+        return new Redactor()
+                .add("email", Detector.EMAIL, Mask.label("[EMAIL]"))
+                .add("card", Detector.CARD, Mask.keepLast(4, '*'))
+                .add("token", Detector.TOKEN, Mask.label("[TOKEN]"));
+    }
+
+    /**
+     * Create a redactor without any detectors
+     * @return The new Redactor
+     */
+    public static Redactor empty() {
+        return new Redactor();
+    }
+
+    private static final class Rule {
+        private final String name;
+        private final Detector detector;
+        private final Mask mask;
+        private final LongAdder count = new LongAdder();
+
+        private Rule(String name, Detector detector, Mask mask) {
+            this.name = name;
+            this.detector = detector;
+            this.mask = mask;
+        }
+    }
+
+    private volatile Rule[] rules = new Rule[0];
+
+    private Redactor() {}
+
+    /**
+     * Add a detector, detectors are tried in the order they are added
+     * @param name The name used for the counters
+     * @param detector Finds the values
+     * @param mask Writes the replacement of each value found
+     * @return The Redactor
+     */
+    public synchronized Redactor add(String name, Detector detector, Mask mask) {
+        List<Rule> list = new ArrayList<>();
+        Collections.addAll(list, rules);
+        list.add(new Rule(name, detector, mask));
+        rules = list.toArray(new Rule[0]);
+        return this;
+    }
+
+    /**
+     * Destination of the scan, clean runs are copied straight from the source
+     */
+    private abstract static class Out {
+        abstract void text(CharSequence s, int from, int to) throws IOException;
+        abstract Appendable appendable() throws IOException;
+    }
+
+    private int scan(CharSequence s, int from, int to, Out out) throws IOException {
+        Rule[] rules = this.rules;
+        int clean = from, found = 0;
+        for (int i = from; i < to; ) {
+            if (isWordChar(s.charAt(i)) && (i == from || !isWordChar(s.charAt(i - 1)))) {
+                int end = -1;
+                for (Rule rule : rules) {
+                    if ((end = rule.detector.match(s, i, to)) > i) {
+                        out.text(s, clean, i);
+                        rule.mask.mask(s, i, end, out.appendable());
+                        rule.count.increment();
+                        found++;
+                        break;
+                    }
+                }
+                if (end > i) {
+                    clean = i = end;
+                    continue;
+                }
+            }
+            i++;
+        }
+        out.text(s, clean, to);
+        return found;
+    }
+
+    /**
+     * Redact the text
+     * @param s The text to redact
+     * @return The redacted text, the same String instance if nothing was found
+     */
+    public String redact(CharSequence s) {
+        // the copy is only started once the first value is found
+        Out out = new Out() {
+            StringBuilder sb;
+            @Override void text(CharSequence s, int from, int to) {
+                if (sb == null) {
+                    if (from == 0 && to == s.length())
+                        return;
+                    sb = new StringBuilder(s.length());
+                }
+                sb.append(s, from, to);
+            }
+            @Override Appendable appendable() {
+                return sb;
+            }
+        };
+        try {
+            return scan(s, 0, s.length(), out) == 0 ? s.toString() : out.appendable().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Redact the text, appending the result
+     * @param s The text to redact
+     * @param out Where to write the redacted text
+     * @return The number of values redacted
+     * @throws IOException If out fails
+     */
+    public int redact(CharSequence s, Appendable out) throws IOException {
+        return scan(s, 0, s.length(), new Out() {
+            @Override void text(CharSequence s, int from, int to) throws IOException {
+                out.append(s, from, to);
+            }
+            @Override Appendable appendable() {
+                return out;
+            }
+        });
+    }
+
+    /**
+     * Redact everything read from the reader. Input is processed a block of whole lines at a time,
+     * only a line longer than 1MB can split a value.
+     * @param in The text to redact
+     * @param out Where to write the redacted text
+     * @return The number of values redacted
+     * @throws IOException If reading or writing fails
+     */
+    public long redact(Reader in, Writer out) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        char[][] current = { buffer };
+        Out writer = new Out() {
+            @Override void text(CharSequence s, int from, int to) throws IOException {
+                out.write(current[0], from, to - from);
+            }
+            @Override Appendable appendable() {
+                return out;
+            }
+        };
+        long found = 0;
+        int length = 0;
+        for (int read; (read = in.read(buffer, length, buffer.length - length)) != -1; ) {
+            length += read;
+            int cut = length;
+            while (cut > 0 && buffer[cut - 1] != '\n')
+                cut--;
+            if (cut == 0) {
+                if (length < buffer.length)
+                    continue;
+                if (buffer.length < MAX_BUFFER_SIZE) {
+                    current[0] = buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                cut = length;
+            }
+            found += scan(CharBuffer.wrap(buffer), 0, cut, writer);
+            System.arraycopy(buffer, cut, buffer, 0, length - cut);
+            length -= cut;
+        }
+        if (length > 0)
+            found += scan(CharBuffer.wrap(buffer), 0, length, writer);
+        out.flush();
+        return found;
+    }
+
+    /**
+     * @return The number of values redacted by each detector, in the order the detectors were added
+     */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Rule rule : rules)
+            counts.merge(rule.name, rule.count.sum(), Long::sum);
+        return counts;
+    }
+
+    /**
+     * Reset all the counters
+     */
+    public void reset() {
+        for (Rule rule : rules)
+            rule.count.reset();
+    }
+}
@@ -0,0 +1,354 @@
+package io.oreto.latte.str;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed substring searcher which can be reused to scan many strings for the same needle.
+ * The search strategy is chosen by needle length: a plain character scan for one character,
+ * a first character scan for short needles and Boyer-Moore-Horspool for longer needles.
+ * All searches return primitive indexes, -1 when the needle is not found.
+ */
+public class Searcher {
+    // needles shorter than this don't gain enough from the skip table to pay for it
+    static final int HORSPOOL_MIN = 4;
+    // shift tables are keyed by the low byte of each character
+    private static final int TABLE_SIZE = 256;
+    private static final int MASK = TABLE_SIZE - 1;
+    // one shot searches only build shift tables when the searched region is long enough to pay for filling them
+    static final int ONE_SHOT_MIN = 2 * TABLE_SIZE;
+
+    /**
+     * Create a new searcher for the needle
+     * @param needle The string to search for
+     * @return The new Searcher
+     */
+    public static Searcher of(CharSequence needle) {
+        return new Searcher(needle);
+    }
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the needle, starting at the specified index
+     * @param haystack The string to search in
+     * @param needle The string to search for
+     * @param from The index from which to start the search
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public static int indexOf(CharSequence haystack, CharSequence needle, int from) {
+        int m = needle.length();
+        return m >= HORSPOOL_MIN && haystack.length() - from >= ONE_SHOT_MIN
+                ? of(needle).indexOf(haystack, from)
+                : scan(haystack, needle, m, from);
+    }
+
+    /**
+     * Returns the index within the haystack of the last occurrence of the needle, searching backward from the specified index
+     * @param haystack The string to search in
+     * @param needle The string to search for
+     * @param from The index from which to start the backward search
+     * @return The index of the last occurrence, -1 if not found
+     */
+    public static int lastIndexOf(CharSequence haystack, CharSequence needle, int from) {
+        int m = needle.length();
+        return m >= HORSPOOL_MIN && Math.min(from, haystack.length()) >= ONE_SHOT_MIN
+                ? of(needle).lastIndexOf(haystack, from)
+                : scanLast(haystack, needle, m, from);
+    }
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the character, starting at the specified index
+     * @param haystack The string to search in
+     * @param c The character to search for
+     * @param from The index from which to start the search
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public static int indexOf(CharSequence haystack, char c, int from) {
+        if (haystack instanceof String)
+            return ((String) haystack).indexOf(c, from);
+        for (int i = Math.max(from, 0), len = haystack.length(); i < len; i++)
+            if (haystack.charAt(i) == c) return i;
+        return -1;
+    }
+
+    /**
+     * Returns the index within the haystack of the last occurrence of the character, searching backward from the specified index
+     * @param haystack The string to search in
+     * @param c The character to search for
+     * @param from The index from which to start the backward search
+     * @return The index of the last occurrence, -1 if not found
+     */
+    public static int lastIndexOf(CharSequence haystack, char c, int from) {
+        if (haystack instanceof String)
+            return ((String) haystack).lastIndexOf(c, from);
+        for (int i = Math.min(from, haystack.length() - 1); i >= 0; i--)
+            if (haystack.charAt(i) == c) return i;
+        return -1;
+    }
+
+    // case folded Latin-1 characters, other characters fold through Character
+    private static final char[] FOLD = new char[TABLE_SIZE];
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++)
+            FOLD[c] = Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Fold the character so characters which are equal ignoring case fold to the same character,
+     * matching the rules of String.equalsIgnoreCase
+     * @param c The character to fold
+     * @return The folded character
+     */
+    public static char fold(char c) {
+        return c < TABLE_SIZE ? FOLD[c] : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Compare two regions ignoring case without copying either string
+     * @param a The first string
+     * @param aOffset The start of the region in the first string
+     * @param b The second string
+     * @param bOffset The start of the region in the second string
+     * @param len The number of characters to compare
+     * @return True if the regions are equal ignoring case
+     */
+    public static boolean regionMatchesIgnoreCase(CharSequence a, int aOffset, CharSequence b, int bOffset, int len) {
+        if (aOffset < 0 || bOffset < 0 || aOffset > a.length() - len || bOffset > b.length() - len)
+            return false;
+        for (int i = 0; i < len; i++) {
+            char c1 = a.charAt(aOffset + i);
+            char c2 = b.charAt(bOffset + i);
+            if (c1 != c2 && fold(c1) != fold(c2))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compare two strings ignoring case without copying either string
+     * @param a The first string
+     * @param b The second string
+     * @return True if the strings are equal ignoring case
+     */
+    public static boolean equalsIgnoreCase(CharSequence a, CharSequence b) {
+        return a.length() == b.length() && regionMatchesIgnoreCase(a, 0, b, 0, a.length());
+    }
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the needle ignoring case, starting at the specified index
+     * @param haystack The string to search in
+     * @param needle The string to search for
+     * @param from The index from which to start the search
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public static int indexOfIgnoreCase(CharSequence haystack, CharSequence needle, int from) {
+        int m = needle.length();
+        int n = haystack.length();
+        if (from < 0) from = 0;
+        if (m == 0) return Math.min(from, n);
+
+        char first = fold(needle.charAt(0));
+        for (int i = from, max = n - m; i <= max; i++) {
+            char c = haystack.charAt(i);
+            if ((c == first || fold(c) == first) && regionMatchesIgnoreCase(haystack, i + 1, needle, 1, m - 1))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within the haystack of the last occurrence of the needle ignoring case,
+     * searching backward from the specified index
+     * @param haystack The string to search in
+     * @param needle The string to search for
+     * @param from The index from which to start the backward search
+     * @return The index of the last occurrence, -1 if not found
+     */
+    public static int lastIndexOfIgnoreCase(CharSequence haystack, CharSequence needle, int from) {
+        int m = needle.length();
+        int start = Math.min(from, haystack.length() - m);
+        if (start < 0) return -1;
+        if (m == 0) return start;
+
+        char first = fold(needle.charAt(0));
+        for (int i = start; i >= 0; i--) {
+            char c = haystack.charAt(i);
+            if ((c == first || fold(c) == first) && regionMatchesIgnoreCase(haystack, i + 1, needle, 1, m - 1))
+                return i;
+        }
+        return -1;
+    }
+
+    private static int scan(CharSequence h, CharSequence p, int m, int from) {
+        int n = h.length();
+        if (from < 0) from = 0;
+        if (m == 0) return Math.min(from, n);
+        char first = p.charAt(0);
+        if (m == 1) return indexOf(h, first, from);
+
+        for (int i = from, max = n - m; i <= max; i++) {
+            if (h.charAt(i) != first) {
+                while (++i <= max && h.charAt(i) != first);
+            }
+            if (i <= max) {
+                int j = 1;
+                while (j < m && h.charAt(i + j) == p.charAt(j)) j++;
+                if (j == m) return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int scanLast(CharSequence h, CharSequence p, int m, int from) {
+        int start = Math.min(from, h.length() - m);
+        if (start < 0) return -1;
+        if (m == 0) return start;
+        if (m == 1) return lastIndexOf(h, p.charAt(0), start);
+
+        char first = p.charAt(0);
+        for (int i = start; i >= 0; i--) {
+            if (h.charAt(i) == first) {
+                int j = 1;
+                while (j < m && h.charAt(i + j) == p.charAt(j)) j++;
+                if (j == m) return i;
+            }
+        }
+        return -1;
+    }
+
+    private final char[] needle;
+    private final CharSequence view;
+    // forward shift keyed by the character under the last window position
+    private final int[] shift;
+    // backward shift keyed by the character under the first window position
+    private final int[] backShift;
+
+    private Searcher(CharSequence needle) {
+        this.needle = Str.toArray(needle);
+        this.view = new CharSequenceView(this.needle);
+        int m = this.needle.length;
+        if (m >= HORSPOOL_MIN) {
+            shift = new int[TABLE_SIZE];
+            backShift = new int[TABLE_SIZE];
+            Arrays.fill(shift, m);
+            Arrays.fill(backShift, m);
+            // characters sharing a low byte keep the smallest shift, which is always safe
+            for (int i = 0; i < m - 1; i++)
+                shift[this.needle[i] & MASK] = m - 1 - i;
+            for (int i = m - 1; i > 0; i--)
+                backShift[this.needle[i] & MASK] = i;
+        } else {
+            shift = null;
+            backShift = null;
+        }
+    }
+
+    /**
+     * @return The length of the needle
+     */
+    public int length() {
+        return needle.length;
+    }
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the needle, starting at the specified index
+     * @param haystack The string to search in
+     * @param from The index from which to start the search
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public int indexOf(CharSequence haystack, int from) {
+        int m = needle.length;
+        if (shift == null)
+            return scan(haystack, view, m, from);
+
+        int last = m - 1;
+        char tail = needle[last];
+        for (int i = Math.max(from, 0), max = haystack.length() - m; i <= max; ) {
+            char c = haystack.charAt(i + last);
+            if (c == tail) {
+                int j = last - 1;
+                while (j >= 0 && haystack.charAt(i + j) == needle[j]) j--;
+                if (j < 0) return i;
+            }
+            i += shift[c & MASK];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the needle
+     * @param haystack The string to search in
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public int indexOf(CharSequence haystack) {
+        return indexOf(haystack, 0);
+    }
+
+    /**
+     * Returns the index within the haystack of the last occurrence of the needle, searching backward from the specified index
+     * @param haystack The string to search in
+     * @param from The index from which to start the backward search
+     * @return The index of the last occurrence, -1 if not found
+     */
+    public int lastIndexOf(CharSequence haystack, int from) {
+        int m = needle.length;
+        if (backShift == null)
+            return scanLast(haystack, view, m, from);
+
+        char head = needle[0];
+        for (int i = Math.min(from, haystack.length() - m); i >= 0; ) {
+            char c = haystack.charAt(i);
+            if (c == head) {
+                int j = 1;
+                while (j < m && haystack.charAt(i + j) == needle[j]) j++;
+                if (j == m) return i;
+            }
+            i -= backShift[c & MASK];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within the haystack of the last occurrence of the needle
+     * @param haystack The string to search in
+     * @return The index of the last occurrence, -1 if not found
+     */
+    public int lastIndexOf(CharSequence haystack) {
+        return lastIndexOf(haystack, haystack.length());
+    }
+
+    /**
+     * Determine if the haystack contains the needle
+     * @param haystack The string to search in
+     * @return True if the needle is found, false otherwise
+     */
+    public boolean in(CharSequence haystack) {
+        return indexOf(haystack, 0) > -1;
+    }
+
+    /**
+     * Count the non overlapping occurrences of the needle in the haystack
+     * @param haystack The string to search in
+     * @return The number of occurrences
+     */
+    public int count(CharSequence haystack) {
+        int m = Math.max(needle.length, 1);
+        int count = 0;
+        for (int i = indexOf(haystack, 0); i > -1 && i < haystack.length(); i = indexOf(haystack, i + m))
+            count++;
+        return count;
+    }
+
+    /**
+     * CharSequence view over the needle characters so the short needle scan shares code with the static api
+     */
+    private static final class CharSequenceView implements CharSequence {
+        private final char[] chars;
+        private CharSequenceView(char[] chars) { this.chars = chars; }
+
+        @Override public int length() { return chars.length; }
+        @Override public char charAt(int index) { return chars[index]; }
+        @Override public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+        @Override public String toString() { return new String(chars); }
+    }
+}
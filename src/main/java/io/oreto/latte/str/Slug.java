@@ -0,0 +1,222 @@
+package io.oreto.latte.str;
+
+import java.io.IOException;
+import java.text.Normalizer;
+
+/**
+ * URL safe slugs built in a single pass. Accented Latin letters are folded to ASCII with a precomputed table,
+ * é becomes e, ß becomes ss and æ becomes ae. Every other character which is not an ASCII letter or digit separates words,
+ * repeated separators collapse into one and separators are never leading or trailing.
+ * Slugs are immutable, each option returns a new Slug.
+ */
+public class Slug {
+    /**
+     * Lower case words separated by dashes: Crème Brûlée → creme-brulee
+     */
+    public static final Slug DEFAULT = new Slug('-', true, false, 0);
+
+    /**
+     * Lower case words separated by slashes, camel case humps also separate words: userHome → user/home
+     */
+    public static final Slug PATH = new Slug('/', true, true, 0);
+
+    /**
+     * Create a slug with words separated by the separator
+     * @param separator The character placed between words
+     * @return The new Slug
+     */
+    public static Slug of(char separator) {
+        return new Slug(separator, true, false, 0);
+    }
+
+    private final char separator;
+    private final boolean lowerCase;
+    private final boolean camelCase;
+    private final int maxLength;
+
+    private Slug(char separator, boolean lowerCase, boolean camelCase, int maxLength) {
+        this.separator = separator;
+        this.lowerCase = lowerCase;
+        this.camelCase = camelCase;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @param separator The character placed between words
+     * @return A Slug using the separator
+     */
+    public Slug separator(char separator) {
+        return new Slug(separator, lowerCase, camelCase, maxLength);
+    }
+
+    /**
+     * @param lowerCase If true the slug is all lower case, otherwise the case of the letters is kept
+     * @return A Slug with the case option
+     */
+    public Slug lowerCase(boolean lowerCase) {
+        return new Slug(separator, lowerCase, camelCase, maxLength);
+    }
+
+    /**
+     * @param camelCase If true an upper case letter following another letter or digit starts a new word
+     * @return A Slug with the camel case option
+     */
+    public Slug camelCase(boolean camelCase) {
+        return new Slug(separator, lowerCase, camelCase, maxLength);
+    }
+
+    /**
+     * Limit the length of the slug. Slugs are cut at the end of the last whole word which fits,
+     * only a first word longer than the limit is cut inside the word.
+     * @param maxLength The maximum length, 0 for no limit
+     * @return A Slug with the length limit
+     */
+    public Slug maxLength(int maxLength) {
+        if (maxLength < 0)
+            throw new IllegalArgumentException("maxLength must not be negative");
+        return new Slug(separator, lowerCase, camelCase, maxLength);
+    }
+
+    /**
+     * Make a slug from the string
+     * @param s The string to slugify
+     * @return The slug
+     */
+    public String slugify(CharSequence s) {
+        int len = s.length();
+        StringBuilder sb = new StringBuilder(maxLength > 0 ? Math.min(len, maxLength) : len);
+        write(s, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Make a slug from the string, appending the result
+     * @param s The string to slugify
+     * @param out Where to write the slug
+     * @param <A> The type of Appendable
+     * @return The Appendable
+     * @throws IOException If the Appendable fails
+     */
+    public <A extends Appendable> A slugify(CharSequence s, A out) throws IOException {
+        if (out instanceof StringBuilder) {
+            write(s, (StringBuilder) out);
+        } else {
+            out.append(slugify(s));
+        }
+        return out;
+    }
+
+    /**
+     * Make a slug from the string, appending the result to the Str object
+     * @param s The string to slugify
+     * @param out The Str to add the slug to
+     * @return The Str object
+     */
+    public Str slugify(CharSequence s, Str out) {
+        out.buffer().append(slugify(s));
+        return out;
+    }
+
+    private void write(CharSequence s, StringBuilder sb) {
+        int base = sb.length();
+        int limit = maxLength > 0 ? base + maxLength : Integer.MAX_VALUE;
+        // where the current word starts in the output, words are separated lazily when the next word begins
+        int wordStart = base;
+        boolean separate = false;
+        char previous = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            String folded = null;
+            boolean alnum = c < 128 ? isAsciiAlphaNumeric(c) : (folded = fold(c)) != null;
+            if (!alnum) {
+                separate = true;
+                previous = 0;
+                continue;
+            }
+            if (camelCase && previous != 0 && Character.isUpperCase(c))
+                separate = true;
+            if (separate && sb.length() > base) {
+                if (sb.length() + 1 >= limit)
+                    break;
+                sb.append(separator);
+                wordStart = sb.length();
+            }
+            separate = false;
+            previous = c;
+            if (folded == null)
+                sb.append(lowerCase ? Character.toLowerCase(c) : c);
+            else
+                for (int j = 0; j < folded.length(); j++) {
+                    char f = folded.charAt(j);
+                    sb.append(lowerCase ? Character.toLowerCase(f) : f);
+                }
+            if (sb.length() > limit) {
+                // drop the word which does not fit along with its separator, unless it is the only word
+                sb.setLength(wordStart > base ? wordStart - 1 : limit);
+                break;
+            }
+        }
+    }
+
+    private static boolean isAsciiAlphaNumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Fold the Latin character to ASCII letters or digits
+     * @param c The character to fold
+     * @return The ASCII replacement, null if the character has none
+     */
+    public static String fold(char c) {
+        if (c < 128)
+            return isAsciiAlphaNumeric(c) ? String.valueOf(c) : null;
+        if (c >= Fold.LATIN_START && c < Fold.LATIN_START + Fold.LATIN.length)
+            return Fold.LATIN[c - Fold.LATIN_START];
+        if (c >= Fold.ADDITIONAL_START && c < Fold.ADDITIONAL_START + Fold.ADDITIONAL.length)
+            return Fold.ADDITIONAL[c - Fold.ADDITIONAL_START];
+        return null;
+    }
+
+    /**
+     * ASCII folding tables for Latin-1 Supplement, Latin Extended-A and B, and Latin Extended Additional.
+     * Characters are decomposed once when the tables are built and their combining marks dropped,
+     * letters which do not decompose are listed explicitly.
+     */
+    private static final class Fold {
+        private static final char LATIN_START = '\u00A0';
+        private static final char ADDITIONAL_START = '\u1E00';
+        private static final String[] LATIN = table(LATIN_START, '\u024F');
+        private static final String[] ADDITIONAL = table(ADDITIONAL_START, '\u1EFF');
+        private static final String LETTERS = "ßssÆAEæaeŒOEœoeØOøoÐDðdĐDđdÞTHþthŁLłlıiĦHħhĸkŊNŋnŦTŧtƒfǶHvƕhv";
+
+        private static String[] table(char from, char to) {
+            String[] table = new String[to - from + 1];
+            for (char c = from; c <= to; c++) {
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+                StringBuilder sb = new StringBuilder(decomposed.length());
+                boolean ascii = true;
+                for (int i = 0; i < decomposed.length() && ascii; i++) {
+                    char d = decomposed.charAt(i);
+                    if (d < 128 && isAsciiAlphaNumeric(d))
+                        sb.append(d);
+                    else if (Character.getType(d) != Character.NON_SPACING_MARK && d != '\u00B7')
+                        ascii = false;
+                }
+                if (ascii && sb.length() > 0)
+                    table[c - from] = sb.toString();
+            }
+            return table;
+        }
+
+        static {
+            // each letter is followed by its upper or lower case ASCII replacement
+            for (int i = 0; i < LETTERS.length(); ) {
+                char c = LETTERS.charAt(i++);
+                int end = i;
+                while (end < LETTERS.length() && LETTERS.charAt(end) < 128) end++;
+                LATIN[c - LATIN_START] = LETTERS.substring(i, end);
+                i = end;
+            }
+        }
+    }
+}
@@ -17,7 +17,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static io.oreto.latte.str.Word.reservedWords;
 
 public class Str implements CharSequence, java.io.Serializable, Comparable<CharSequence> {
     public static final String EMPTY = "";
@@ -77,7 +76,8 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
             return 0;
         }
 
-        if (cs1.getClass() == cs2.getClass() && cs1 instanceof Comparable) {
+        // Str compareTo delegates back here so only defer to other comparable types
+        if (cs1.getClass() == cs2.getClass() && cs1 instanceof Comparable && !(cs1 instanceof Str)) {
             return ((Comparable<Object>) cs1).compareTo(cs2);
         }
 
@@ -114,11 +114,9 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
             return false;
 
         boolean dotted = false;
-        int[] arr = s.chars().toArray();
-
-        int len = arr.length;
-        for (int i = 0; i < len; i++) {
-            char c = (char) arr[i];
+        boolean zero = true;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
 
             switch (c) {
                 // +/- can only be in the start position
@@ -138,11 +136,13 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
                     // this better be a digit
                     if (!Character.isDigit(c))
                         return false;
+                    if (c != Chars.ZERO)
+                        zero = false;
                     break;
             }
         }
         // make sure natural number type isn't assigned a 0
-        return type != Num.Type.natural || !s.chars().allMatch(it -> (char) it == Chars.ZERO);
+        return type != Num.Type.natural || !zero;
     }
 
     /**
@@ -169,7 +169,13 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return True if the string is blank (something other than whitespace)
      */
     public static boolean isBlank(CharSequence s) {
-       return isEmpty(s) || s.chars().allMatch(Character::isWhitespace);
+        if (isEmpty(s))
+            return true;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            if (!Character.isWhitespace(s.charAt(i)))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -235,23 +241,39 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
     public static boolean isEmail(CharSequence s) {
         if (s == null)
             return false;
-        String str = s.toString().trim();
-        s = str;
-        int len = s.length();
+        // same trimming as String.trim without the copy
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) <= ' ')
+            from++;
+        while (to > from && s.charAt(to - 1) <= ' ')
+            to--;
+        return isEmail(s, from, to);
+    }
+
+    /**
+     * Determine if a range of the string is a valid email, see isEmail(CharSequence)
+     * @param s The string to test
+     * @param from The first index of the range
+     * @param to The index after the last character of the range
+     * @return True if the range is a valid email, false otherwise
+     */
+    public static boolean isEmail(CharSequence s, int from, int to) {
         // can't start or end with [_.-@]
-        if (len == 0 || !isAlphaNumeric(s.charAt(0)) || !isAlphaNumeric(s.charAt(len - 1)))
+        if (to <= from || !isAlphaNumeric(s.charAt(from)) || !isAlphaNumeric(s.charAt(to - 1)))
             return false;
         // make sure final domain is at least two characters long
-        int i = str.lastIndexOf('.');
-        if (i < 0)
+        int i = to - 1;
+        while (i >= from && s.charAt(i) != '.')
+            i--;
+        if (i < from)
             return false; // must have one dot at least
-        if (len - i <= 2)
+        if (to - i <= 2)
             return false;
 
         boolean at = false;      // encountered @ symbol
         boolean alpha = true;    // [_.-@] expect an alpha numeric char after
         boolean dotted = false;  // dot in domain
-        for (i = 0; i < len; i++) {
+        for (i = from; i < to; i++) {
             char c = s.charAt(i);
             boolean alphaNumeric = isAlphaNumeric(c);
             if (alpha) {
@@ -437,6 +459,19 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return Str.of(s).findAndReplace(search, replacement).toString();
     }
 
+    /**
+     * Find and replace all search strings with a replacement string ignoring case
+     * @param s The string to replace
+     * @param search The string to search for
+     * @param replacement The string to replace the search string with
+     * @return The resulting string after replacement, the same String instance if the search string is not found
+     */
+    public static String findAndReplaceIgnoreCase(CharSequence s, CharSequence search, CharSequence replacement) {
+        if (isEmpty(search) || Searcher.indexOfIgnoreCase(s, search, 0) < 0)
+            return s.toString();
+        return Str.of(s).findAndReplaceIgnoreCase(search, replacement).toString();
+    }
+
     /**
      * Replace all regex matches with a replacement string
      * @param s The string to replace
@@ -622,6 +657,16 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return Str.of(s).quote().toString();
     }
 
+    /**
+     * Escape the given string and put it in double quotes
+     * @param s The string to put in quotes
+     * @param escape The format used to escape the string, for example Escape.JAVA for a string literal
+     * @return The resulting quoted string
+     */
+    public static String quote(CharSequence s, Escape escape) {
+        return escape.quote(s);
+    }
+
     /**
      * Quote the given string using single quotes
      * @param s The string to put in quotes
@@ -656,7 +701,34 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return The resulting string as a variable name
      */
     public static String toVariableName(CharSequence s) {
-        return Str.of(s).toVariableName().toString();
+        return isVariableName(s) ? s.toString() : Str.of(s).toVariableName().toString();
+    }
+
+    // ASCII characters allowed in a variable name: letters, digits, _ and $
+    private static final boolean[] VARIABLE_CHARS = new boolean[128];
+    static {
+        for (char c = 0; c < VARIABLE_CHARS.length; c++)
+            VARIABLE_CHARS[c] = Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c);
+    }
+
+    private static boolean isVariableChar(char c) {
+        return c < VARIABLE_CHARS.length && VARIABLE_CHARS[c];
+    }
+
+    /**
+     * Determine if the string is already a variable name, meaning toVariableName would not change it
+     * @param s The string to check
+     * @return True if the string is a legal and not reserved variable name
+     */
+    public static boolean isVariableName(CharSequence s) {
+        int len = s.length();
+        if (len == 0 || Character.isDigit(s.charAt(0)))
+            return false;
+        for (int i = 0; i < len; i++) {
+            if (!isVariableChar(s.charAt(i)))
+                return false;
+        }
+        return !Word.isReserved(s);
     }
 
     /**
@@ -719,7 +791,16 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return The resulting string separated with '/'
      */
     public static String toUri(CharSequence s) {
-        return Str.of(s).toUri().toString();
+        return Slug.PATH.slugify(s);
+    }
+
+    /**
+     * Convert the given string into a lower case slug separated by dashes, accented letters are folded to ASCII
+     * @param s The string to slugify
+     * @return The resulting slug
+     */
+    public static String toSlug(CharSequence s) {
+        return Slug.DEFAULT.slugify(s);
     }
 
     /**
@@ -805,6 +886,22 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return new Str(EMPTY);
     }
 
+    /**
+     * New Str object in compact mode initialized with any specified strings.
+     * Compact Str objects store Latin-1 content one byte per character, switching to two bytes per character
+     * only once a character above 0xFF is added.
+     * @param s Any number of strings
+     * @return The new Str object
+     */
+    public static Str ofCompact(CharSequence... s) {
+        int capacity = 0;
+        for (CharSequence cs : s)
+            capacity += cs == null ? 0 : cs.length();
+        Str str = new Str(new StrBuffer(capacity, true));
+        str.add(s);
+        return str;
+    }
+
     /**
      * Create a new Str object initialized with a random string
      * @param size The size of the random string
@@ -903,21 +1000,32 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
 
     // --------------------------------- END STATIC ---------------------------------
 
-    private final StringBuilder sb;
+    private final StrBuffer sb;
 
     private Str(CharSequence... charSequences) {
-        this.sb = new StringBuilder();
+        this.sb = new StrBuffer();
         add(charSequences);
     }
 
     private Str(char...chars) {
-        this.sb = new StringBuilder();
+        this.sb = new StrBuffer();
         for(char c : chars)
             sb.append(c);
     }
 
     private Str(int capacity) {
-        this.sb = new StringBuilder(capacity);
+        this.sb = new StrBuffer(capacity, false);
+    }
+
+    private Str(StrBuffer sb) {
+        this.sb = sb;
+    }
+
+    /**
+     * @return The buffer holding the characters, for writers in this package which append directly
+     */
+    StrBuffer buffer() {
+        return sb;
     }
 
     /**
@@ -984,13 +1092,72 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
     }
 
     /**
-     * @return A new String representing this Str object
+     * @return The String representing this Str object, cached until the Str object changes
      */
     @Override
     public String toString() {
         return sb.toString();
     }
 
+    /**
+     * Get the canonical String for the characters of this Str object from the shared interner.
+     * When the value was interned before, no new String is created.
+     * @return The canonical String representing this Str object
+     */
+    public String intern() {
+        return Interner.global().intern(this);
+    }
+
+    /**
+     * Get the canonical String for the characters of this Str object
+     * @param interner The interner holding the canonical strings
+     * @return The canonical String representing this Str object
+     */
+    public String intern(Interner interner) {
+        return interner.intern(this);
+    }
+
+    /**
+     * Create an immutable snapshot of this Str object. The snapshot computes its String, hash code and ASCII flag once
+     * and can be shared between threads without synchronization. Any method which modifies a frozen Str
+     * throws UnsupportedOperationException, use Str.of to get a mutable copy.
+     * @return The frozen Str object, this if already frozen
+     */
+    public Str freeze() {
+        return sb.isFrozen() ? this : new Str(sb.freeze());
+    }
+
+    /**
+     * @return True if this Str object is immutable
+     */
+    public boolean isFrozen() {
+        return sb.isFrozen();
+    }
+
+    /**
+     * @return True if every character of this Str object is 7 bit ASCII
+     */
+    public boolean isAscii() {
+        return sb.isAscii();
+    }
+
+    /**
+     * @return True if the characters of this Str object are stored one byte each
+     */
+    public boolean isCompact() {
+        return sb.isLatin1();
+    }
+
+    /**
+     * Release any unused capacity and store the characters one byte each if they are all Latin-1.
+     * Useful before holding on to many Str objects, for example in a cache.
+     * @return The Str object
+     */
+    public Str compact() {
+        sb.trimToSize(true);
+        return this;
+    }
+
     /**
      * Returns a formatted string using the specified format string and
      * arguments.
@@ -1012,9 +1179,21 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      */
     @Override
     public boolean equals(Object obj) {
+        if (obj instanceof Str && sb.isFrozen() && ((Str) obj).sb.isFrozen() && sb.hashCode() != obj.hashCode())
+            return false;
         return obj instanceof CharSequence && this.compareTo((CharSequence) obj) == 0;
     }
 
+    /**
+     * Returns a hash code for this Str, the same value String.hashCode returns for the same characters.
+     * Frozen Str objects compute the hash once, mutable ones cache it until the next change.
+     * @return  a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        return sb.hashCode();
+    }
+
     /**
      * Compares this object with the specified object for order.  Returns a
      * negative integer, zero, or a positive integer as this object is less
@@ -1050,6 +1229,168 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return this;
     }
 
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified substring, starting at the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return The index of the first occurrence, -1 if the string is not found
+     */
+    public int find(CharSequence s, int from) {
+        return Searcher.indexOf(sb, s, from);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the specified substring
+     * @param s The string to search for
+     * @return The index of the first occurrence, -1 if the string is not found
+     */
+    public int find(CharSequence s) {
+        return find(s, 0);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified character, starting at the specified index
+     * @param c The character to search for
+     * @param from the index from which to start the search.
+     * @return The index of the first occurrence, -1 if the character is not found
+     */
+    public int find(char c, int from) {
+        return Searcher.indexOf(sb, c, from);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the specified character
+     * @param c The character to search for
+     * @return The index of the first occurrence, -1 if the character is not found
+     */
+    public int find(char c) {
+        return find(c, 0);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the searcher needle,
+     * starting at the specified index
+     * @param searcher The precomputed searcher to use
+     * @param from the index from which to start the search.
+     * @return The index of the first occurrence, -1 if the needle is not found
+     */
+    public int find(Searcher searcher, int from) {
+        return searcher.indexOf(sb, from);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the searcher needle
+     * @param searcher The precomputed searcher to use
+     * @return The index of the first occurrence, -1 if the needle is not found
+     */
+    public int find(Searcher searcher) {
+        return find(searcher, 0);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the
+     * specified substring, searching backward from the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return The index of the last occurrence, -1 if the string is not found
+     */
+    public int findLast(CharSequence s, int from) {
+        return Searcher.lastIndexOf(sb, s, from);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the specified substring
+     * @param s The string to search for
+     * @return The index of the last occurrence, -1 if the string is not found
+     */
+    public int findLast(CharSequence s) {
+        return findLast(s, length());
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the
+     * specified character, searching backward from the specified index
+     * @param c The character to search for
+     * @param from the index from which to start the search.
+     * @return The index of the last occurrence, -1 if the character is not found
+     */
+    public int findLast(char c, int from) {
+        return Searcher.lastIndexOf(sb, c, from);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the specified character
+     * @param c The character to search for
+     * @return The index of the last occurrence, -1 if the character is not found
+     */
+    public int findLast(char c) {
+        return findLast(c, length() - 1);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the searcher needle,
+     * searching backward from the specified index
+     * @param searcher The precomputed searcher to use
+     * @param from the index from which to start the search.
+     * @return The index of the last occurrence, -1 if the needle is not found
+     */
+    public int findLast(Searcher searcher, int from) {
+        return searcher.lastIndexOf(sb, from);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the searcher needle
+     * @param searcher The precomputed searcher to use
+     * @return The index of the last occurrence, -1 if the needle is not found
+     */
+    public int findLast(Searcher searcher) {
+        return findLast(searcher, length());
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified substring, starting at the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return An OptionalInt index gte 0 if the string is found, OptionalInt.empty otherwise
+     */
+    public OptionalInt optionalIndexOf(CharSequence s, int from) {
+        int i = find(s, from);
+        return i > -1 ? OptionalInt.of(i) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the specified substring
+     * @param s The string to search for
+     * @return An OptionalInt index gte 0 if the string is found, OptionalInt.empty otherwise
+     */
+    public OptionalInt optionalIndexOf(CharSequence s) {
+        return optionalIndexOf(s, 0);
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the
+     * specified substring, searching backward from the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return An OptionalInt index gte 0 if the string is found, OptionalInt.empty otherwise
+     */
+    public OptionalInt optionalLastIndexOf(CharSequence s, int from) {
+        int i = findLast(s, from);
+        return i > -1 ? OptionalInt.of(i) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the index within this string of the last occurrence of the specified substring
+     * @param s The string to search for
+     * @return An OptionalInt index gte 0 if the string is found, OptionalInt.empty otherwise
+     */
+    public OptionalInt optionalLastIndexOf(CharSequence s) {
+        return optionalLastIndexOf(s, length());
+    }
+
     /**
      * Returns the index within this string of the first occurrence of the
      * specified substring, starting at the specified index
@@ -1058,7 +1399,7 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index ge 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> indexOf(CharSequence s, int from) {
-        int i = sb.indexOf(s.toString(), from);
+        int i = find(s, from);
         return i > -1 ? Optional.of(i) : Optional.empty();
     }
 
@@ -1080,7 +1421,8 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> indexOf(char c, int from) {
-        return indexOf(String.valueOf(c), from);
+        int i = find(c, from);
+        return i > -1 ? Optional.of(i) : Optional.empty();
     }
 
     /**
@@ -1090,7 +1432,39 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> indexOf(char c) {
-        return indexOf(String.valueOf(c), 0);
+        return indexOf(c, 0);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified substring ignoring case, starting at the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return The index of the first occurrence, -1 if the string is not found
+     */
+    public int findIgnoreCase(CharSequence s, int from) {
+        return Searcher.indexOfIgnoreCase(sb, s, from);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified substring ignoring case, starting at the specified index
+     * @param s The string to search for
+     * @param from the index from which to start the search.
+     * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
+     */
+    public Optional<Integer> indexOfIgnoreCase(CharSequence s, int from) {
+        int i = findIgnoreCase(s, from);
+        return i > -1 ? Optional.of(i) : Optional.empty();
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the specified substring ignoring case
+     * @param s The string to search for
+     * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
+     */
+    public Optional<Integer> indexOfIgnoreCase(CharSequence s) {
+        return indexOfIgnoreCase(s, 0);
     }
 
     /**
@@ -1101,7 +1475,7 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> lastIndexOf(CharSequence s, int from) {
-        int i = sb.lastIndexOf(s.toString(), from);
+        int i = findLast(s, from);
         return i > -1 ? Optional.of(i) : Optional.empty();
     }
 
@@ -1123,7 +1497,8 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> lastIndexOf(char c, int from) {
-        return lastIndexOf(String.valueOf(c), from);
+        int i = findLast(c, from);
+        return i > -1 ? Optional.of(i) : Optional.empty();
     }
 
     /**
@@ -1133,7 +1508,16 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An Optional index gte 0 if the string is found, Optional.empty otherwise
      */
     public Optional<Integer> lastIndexOf(char c) {
-        return lastIndexOf(String.valueOf(c), length() - 1);
+        return lastIndexOf(c, length() - 1);
+    }
+
+    /**
+     * Build a substring search index over a snapshot of this Str.
+     * Useful when the same text is queried many times, changes made to the Str afterwards are not reflected in the index.
+     * @return A new SuffixArray of the current characters
+     */
+    public SuffixArray index() {
+        return SuffixArray.of(this);
     }
 
     /**
@@ -1151,7 +1535,26 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return True if the strings are equal regardless of case.
      */
     public boolean ieq(CharSequence s) {
-        return toString().equalsIgnoreCase(s.toString());
+        return Searcher.equalsIgnoreCase(sb, s);
+    }
+
+    /**
+     * Levenshtein edit distance between this Str object and the string
+     * @param s The string to compare
+     * @return The minimum number of single character edits to turn one string into the other
+     */
+    public int distance(CharSequence s) {
+        return Distance.levenshtein(this, s);
+    }
+
+    /**
+     * Compare this Str object with the string
+     * @param s The changed string
+     * @param granularity Compare by characters, words or lines
+     * @return The Diff from this Str object to the string, which can be applied to turn one into the other
+     */
+    public Diff diff(CharSequence s, Diff.Granularity granularity) {
+        return Diff.of(toString(), s, granularity);
     }
 
     /**
@@ -1160,7 +1563,25 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return True if the Str object contains the search string
      */
     public boolean contains(CharSequence s) {
-        return sb.indexOf(s.toString()) > -1;
+        return find(s, 0) > -1;
+    }
+
+    /**
+     * Determine if this Str object contains the searcher needle
+     * @param searcher The precomputed searcher to use
+     * @return True if the Str object contains the needle
+     */
+    public boolean contains(Searcher searcher) {
+        return searcher.indexOf(sb, 0) > -1;
+    }
+
+    /**
+     * Determine if this Str object contains the specified search string ignoring case
+     * @param s The string to search for
+     * @return True if the Str object contains the search string
+     */
+    public boolean containsIgnoreCase(CharSequence s) {
+        return findIgnoreCase(s, 0) > -1;
     }
 
     /**
@@ -1209,6 +1630,24 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return subSequence(Math.max(length() - s.length(), 0), length()).equals(s);
     }
 
+    /**
+     * Determine if this Str object starts with the specified string ignoring case
+     * @param s The string to search for
+     * @return True if the Str object starts with the specified string
+     */
+    public boolean startsWithIgnoreCase(CharSequence s) {
+        return Searcher.regionMatchesIgnoreCase(sb, 0, s, 0, s.length());
+    }
+
+    /**
+     * Determine if this Str object ends with the specified string ignoring case
+     * @param s The string to search for
+     * @return True if the Str object ends with the specified string
+     */
+    public boolean endsWithIgnoreCase(CharSequence s) {
+        return Searcher.regionMatchesIgnoreCase(sb, length() - s.length(), s, 0, s.length());
+    }
+
     /**
      * Determine if this Str object matches the regex string
      * @param regex The regex to match with
@@ -1218,6 +1657,24 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return toString().matches(regex.toString());
     }
 
+    /**
+     * Determine if this Str object matches the compiled glob
+     * @param glob The glob to match with
+     * @return True if the glob matches this Str object
+     */
+    public boolean matches(Glob glob) {
+        return glob.matches(sb);
+    }
+
+    /**
+     * Determine if this Str object matches any glob of the set
+     * @param globs The globs to match with
+     * @return True if at least one glob matches this Str object
+     */
+    public boolean matches(GlobSet globs) {
+        return globs.matches(sb);
+    }
+
     /**
      * Find and replace the search string with a replacement string
      * @param search The string to search for
@@ -1243,11 +1700,11 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
                     }
                 }
             } else {
-                String s = search.toString();
-                int i = sb.indexOf(s);
+                Searcher searcher = Searcher.of(search);
+                int i = searcher.indexOf(sb, 0);
                 while (count < max && i > -1) {
                     sb.replace(i, i + searchLength, r);
-                    i = sb.indexOf(s, i + replacementLength);
+                    i = searcher.indexOf(sb, i + replacementLength);
                     count++;
                 }
             }
@@ -1275,6 +1732,48 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return findAndReplace(search, replacement, 1);
     }
 
+    /**
+     * Find and replace the search string with a replacement string ignoring case
+     * @param search The string to search for
+     * @param replacement The string to replace the search string with
+     * @param max The maximum amount of replacements to make in the string, negative to replace from the end
+     * @return The Str object.
+     */
+    public Str findAndReplaceIgnoreCase(CharSequence search, CharSequence replacement, int max) {
+        if (isNotEmpty(search)) {
+            String r = replacement.toString();
+            int searchLength = search.length();
+            int count = 0;
+            if (max < 0) {
+                max = Math.abs(max);
+                int i = Searcher.lastIndexOfIgnoreCase(sb, search, length());
+                while (count < max && i > -1) {
+                    sb.replace(i, i + searchLength, r);
+                    i = Searcher.lastIndexOfIgnoreCase(sb, search, i - searchLength);
+                    count++;
+                }
+            } else {
+                int i = Searcher.indexOfIgnoreCase(sb, search, 0);
+                while (count < max && i > -1) {
+                    sb.replace(i, i + searchLength, r);
+                    i = Searcher.indexOfIgnoreCase(sb, search, i + r.length());
+                    count++;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Find and replace the search string with a replacement string ignoring case
+     * @param search The string to search for
+     * @param replacement The string to replace the search string with
+     * @return The Str object.
+     */
+    public Str findAndReplaceIgnoreCase(CharSequence search, CharSequence replacement) {
+        return findAndReplaceIgnoreCase(search, replacement, length());
+    }
+
     /**
      * Find and replace the last search string found with a replacement string
      * @param search The string to search for
@@ -1446,6 +1945,15 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return findAndReplace(search, EMPTY);
     }
 
+    /**
+     * Delete the search string from this Str object ignoring case
+     * @param search The string to delete
+     * @return This Str object
+     */
+    public Str deleteIgnoreCase(CharSequence search) {
+        return findAndReplaceIgnoreCase(search, EMPTY);
+    }
+
     /**
      * Delete the search strings from this Str object
      * @param search The strings to delete
@@ -1642,6 +2150,35 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
         return preface("'").add("'");
     }
 
+    /**
+     * Escape the string and put it in double quotes
+     * @param escape The format used to escape the string, for example Escape.JAVA for a string literal
+     * @return The Str object
+     */
+    public Str quote(Escape escape) {
+        return setTo(escape.quote(this));
+    }
+
+    /**
+     * Escape the string
+     * @param escape The format used to escape the string
+     * @return The Str object
+     */
+    public Str escape(Escape escape) {
+        String escaped = escape.escape(this);
+        return escaped == sb.toString() ? this : setTo(escaped);
+    }
+
+    /**
+     * Reverse the escaping of the string
+     * @param escape The format the string was escaped with
+     * @return The Str object
+     */
+    public Str unescape(Escape escape) {
+        String unescaped = escape.unescape(this);
+        return unescaped == sb.toString() ? this : setTo(unescaped);
+    }
+
     /**
      * Repeat the specified string len number of times
      * @param s The string to repeat
@@ -2225,19 +2762,26 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return The Str Object
      */
     public Str toVariableName() {
-        Optional<Character> c = head();
-        if (c.isPresent()) {
-            if (Character.isDigit(c.get()))
-                preface(Chars.UNDER_SCORE);
-
-            replace("[^0-9_$\\w]", UNDER_SCORE);
-            for(String word : reservedWords) {
-                if (eq(word)) {
-                    preface(Chars.UNDER_SCORE);
-                    break;
-                }
+        int len = sb.length();
+        if (len == 0 || isVariableName(sb))
+            return this;
+
+        boolean digit = Character.isDigit(sb.charAt(0));
+        // rewrite illegal characters in place, a surrogate pair becomes a single underscore
+        int w = 0;
+        for (int r = 0; r < len; r++, w++) {
+            char c = sb.charAt(r);
+            if (isVariableChar(c)) {
+                if (w != r) sb.setCharAt(w, c);
+            } else {
+                if (Character.isHighSurrogate(c) && r + 1 < len && Character.isLowSurrogate(sb.charAt(r + 1)))
+                    r++;
+                sb.setCharAt(w, Chars.UNDER_SCORE);
             }
         }
+        sb.setLength(w);
+        if (digit || Word.isReserved(sb))
+            sb.insert(0, Chars.UNDER_SCORE);
         return this;
     }
 
@@ -2353,11 +2897,29 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
     }
 
     /**
-     * Convert the given string separated by forward slash '/' character
+     * Convert the given string separated by forward slash '/' character.
+     * Accented letters are folded to ASCII and other characters which are not URL safe separate words
      * @return The Str object
      */
     public Str toUri() {
-        return toDelimitedName(Chars.SLASH, true);
+        return toSlug(Slug.PATH);
+    }
+
+    /**
+     * Convert the string into a lower case slug separated by dashes, accented letters are folded to ASCII
+     * @return The Str object
+     */
+    public Str toSlug() {
+        return toSlug(Slug.DEFAULT);
+    }
+
+    /**
+     * Convert the string into a slug
+     * @param slug The slug options to use
+     * @return The Str object
+     */
+    public Str toSlug(Slug slug) {
+        return setTo(slug.slugify(sb));
     }
 
     /**
@@ -2488,7 +3050,9 @@ public class Str implements CharSequence, java.io.Serializable, Comparable<CharS
      * @return An array of type character <tt>char[]</tt>
      */
     public char[] toArray() {
-        return toArray(this);
+        char[] arr = new char[length()];
+        sb.getChars(0, arr.length, arr, 0);
+        return arr;
     }
 
     /**
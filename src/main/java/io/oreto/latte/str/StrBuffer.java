@@ -0,0 +1,472 @@
+package io.oreto.latte.str;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable character buffer backing a Str object.
+ * Mirrors the parts of the StringBuilder api used by Str, with an optional compact mode
+ * which stores Latin-1 content one byte per character and inflates to UTF-16 only
+ * when a character above 0xFF is written.
+ */
+final class StrBuffer implements CharSequence, Appendable, java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int DEFAULT_CAPACITY = 16;
+    private static final int LATIN1_MAX = 0xFF;
+    private static final byte LATIN1 = 0;
+    private static final byte UTF16 = 1;
+
+    private static boolean isLatin1(char c) {
+        return c <= LATIN1_MAX;
+    }
+
+    // exactly one of latin1 or utf16 is non null
+    private transient byte[] latin1;
+    private transient char[] utf16;
+    private transient int count;
+    // frozen buffers reject every mutation, their caches are filled before the buffer is shared
+    private boolean frozen;
+    private transient boolean ascii;
+    // cached results cleared on every mutation, hash 0 means not computed like String
+    private transient String string;
+    private transient int hash;
+
+    StrBuffer(int capacity, boolean compact) {
+        if (compact)
+            latin1 = new byte[capacity];
+        else
+            utf16 = new char[capacity];
+    }
+
+    StrBuffer() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @return True if the characters are stored one byte each
+     */
+    boolean isLatin1() {
+        return latin1 != null;
+    }
+
+    /**
+     * @return The number of characters the buffer can hold without growing
+     */
+    int capacity() {
+        return latin1 != null ? latin1.length : utf16.length;
+    }
+
+    private void ensureCapacity(int min) {
+        int capacity = capacity();
+        if (min > capacity) {
+            int size = Math.max(capacity * 2 + 2, min);
+            if (latin1 != null)
+                latin1 = Arrays.copyOf(latin1, size);
+            else
+                utf16 = Arrays.copyOf(utf16, size);
+        }
+    }
+
+    /**
+     * Switch from the byte per character storage to UTF-16
+     * @param min The minimum capacity of the new storage
+     */
+    private void inflate(int min) {
+        char[] chars = new char[Math.max(Math.max(capacity(), min), DEFAULT_CAPACITY)];
+        for (int i = 0; i < count; i++)
+            chars[i] = (char) (latin1[i] & LATIN1_MAX);
+        utf16 = chars;
+        latin1 = null;
+    }
+
+    private void inflateFor(CharSequence s, int from, int to, int min) {
+        if (latin1 != null) {
+            for (int i = from; i < to; i++) {
+                if (!isLatin1(s.charAt(i))) {
+                    inflate(min);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new StringIndexOutOfBoundsException("index " + index + ",length " + count);
+    }
+
+    private void checkRange(int start, int end, int length) {
+        if (start < 0 || start > end || end > length)
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+    }
+
+    /**
+     * Called before every change to the content, rejects changes to a frozen buffer and clears the caches
+     */
+    private void mutate() {
+        if (frozen)
+            throw new UnsupportedOperationException("frozen Str can not be modified");
+        string = null;
+        hash = 0;
+    }
+
+    private void put(int index, char c) {
+        if (latin1 != null)
+            latin1[index] = (byte) c;
+        else
+            utf16[index] = c;
+    }
+
+    private void shift(int from, int by) {
+        if (latin1 != null)
+            System.arraycopy(latin1, from, latin1, from + by, count - from);
+        else
+            System.arraycopy(utf16, from, utf16, from + by, count - from);
+    }
+
+    @Override
+    public int length() {
+        return count;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkIndex(index);
+        return latin1 != null ? (char) (latin1[index] & LATIN1_MAX) : utf16[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    String substring(int start, int end) {
+        checkRange(start, end, count);
+        return latin1 != null
+                ? new String(latin1, start, end - start, StandardCharsets.ISO_8859_1)
+                : new String(utf16, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        String s = string;
+        if (s == null)
+            string = s = substring(0, count);
+        return s;
+    }
+
+    /**
+     * @return The same value as String.hashCode of this content
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && count > 0) {
+            for (int i = 0; i < count; i++)
+                h = 31 * h + (latin1 != null ? latin1[i] & LATIN1_MAX : utf16[i]);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * @return True if every character is 7 bit ASCII
+     */
+    boolean isAscii() {
+        if (frozen)
+            return ascii;
+        for (int i = 0; i < count; i++)
+            if ((latin1 != null ? latin1[i] & LATIN1_MAX : utf16[i]) > 0x7F) return false;
+        return true;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Create an immutable copy of this buffer, sized to fit and compacted when possible,
+     * with the String, hash and ASCII flag computed up front.
+     * @return The frozen buffer
+     */
+    StrBuffer freeze() {
+        StrBuffer buffer = new StrBuffer(0, latin1 != null);
+        buffer.append(this);
+        buffer.trimToSize(true);
+        buffer.seal();
+        return buffer;
+    }
+
+    private void seal() {
+        toString();
+        hashCode();
+        ascii = isAscii();
+        frozen = true;
+    }
+
+    /**
+     * Copy characters from this buffer into the destination array
+     * @param srcBegin Start copying at this offset
+     * @param srcEnd Stop copying at this offset
+     * @param dst The array to copy the data into
+     * @param dstBegin Offset into dst
+     */
+    void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        checkRange(srcBegin, srcEnd, count);
+        if (latin1 != null) {
+            for (int i = srcBegin; i < srcEnd; i++)
+                dst[dstBegin++] = (char) (latin1[i] & LATIN1_MAX);
+        } else {
+            System.arraycopy(utf16, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        }
+    }
+
+    @Override
+    public StrBuffer append(CharSequence s) {
+        mutate();
+        if (s == null)
+            s = "null";
+        int len = s.length();
+        int min = count + len;
+        inflateFor(s, 0, len, min);
+        ensureCapacity(min);
+        if (utf16 != null && s instanceof String) {
+            ((String) s).getChars(0, len, utf16, count);
+        } else if (utf16 != null && s instanceof StrBuffer) {
+            ((StrBuffer) s).getChars(0, len, utf16, count);
+        } else {
+            for (int i = 0; i < len; i++)
+                put(count + i, s.charAt(i));
+        }
+        count = min;
+        return this;
+    }
+
+    @Override
+    public StrBuffer append(CharSequence s, int start, int end) {
+        if (s == null)
+            s = "null";
+        checkRange(start, end, s.length());
+        mutate();
+        int len = end - start;
+        int min = count + len;
+        inflateFor(s, start, end, min);
+        ensureCapacity(min);
+        if (utf16 != null && s instanceof String) {
+            ((String) s).getChars(start, end, utf16, count);
+        } else {
+            for (int i = 0; i < len; i++)
+                put(count + i, s.charAt(start + i));
+        }
+        count = min;
+        return this;
+    }
+
+    @Override
+    public StrBuffer append(char c) {
+        mutate();
+        if (latin1 != null && !isLatin1(c))
+            inflate(count + 1);
+        ensureCapacity(count + 1);
+        put(count++, c);
+        return this;
+    }
+
+    StrBuffer append(Object o) {
+        return append(String.valueOf(o));
+    }
+
+    StrBuffer appendCodePoint(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint))
+            return append((char) codePoint);
+        return append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+    }
+
+    StrBuffer insert(int offset, CharSequence s) {
+        mutate();
+        if (offset < 0 || offset > count)
+            throw new StringIndexOutOfBoundsException("offset " + offset + ", length " + count);
+        if (s == null)
+            s = "null";
+        int len = s.length();
+        int min = count + len;
+        inflateFor(s, 0, len, min);
+        ensureCapacity(min);
+        shift(offset, len);
+        for (int i = 0; i < len; i++)
+            put(offset + i, s.charAt(i));
+        count = min;
+        return this;
+    }
+
+    StrBuffer insert(int offset, char c) {
+        mutate();
+        if (offset < 0 || offset > count)
+            throw new StringIndexOutOfBoundsException("offset " + offset + ", length " + count);
+        if (latin1 != null && !isLatin1(c))
+            inflate(count + 1);
+        ensureCapacity(count + 1);
+        shift(offset, 1);
+        put(offset, c);
+        count++;
+        return this;
+    }
+
+    StrBuffer insert(int offset, Object o) {
+        return insert(offset, String.valueOf(o));
+    }
+
+    StrBuffer delete(int start, int end) {
+        mutate();
+        if (end > count)
+            end = count;
+        checkRange(start, end, count);
+        int len = end - start;
+        if (len > 0) {
+            shift(end, -len);
+            count -= len;
+        }
+        return this;
+    }
+
+    StrBuffer deleteCharAt(int index) {
+        mutate();
+        checkIndex(index);
+        shift(index + 1, -1);
+        count--;
+        return this;
+    }
+
+    StrBuffer replace(int start, int end, String s) {
+        mutate();
+        if (end > count)
+            end = count;
+        checkRange(start, end, count);
+        int len = s.length();
+        int min = count + len - (end - start);
+        inflateFor(s, 0, len, min);
+        ensureCapacity(min);
+        shift(end, len - (end - start));
+        if (utf16 != null)
+            s.getChars(0, len, utf16, start);
+        else
+            for (int i = 0; i < len; i++) latin1[start + i] = (byte) s.charAt(i);
+        count = min;
+        return this;
+    }
+
+    void setCharAt(int index, char c) {
+        mutate();
+        checkIndex(index);
+        if (latin1 != null && !isLatin1(c))
+            inflate(count);
+        put(index, c);
+    }
+
+    void setLength(int length) {
+        mutate();
+        if (length < 0)
+            throw new StringIndexOutOfBoundsException(length);
+        ensureCapacity(length);
+        for (int i = count; i < length; i++)
+            put(i, '\0');
+        count = length;
+    }
+
+    StrBuffer reverse() {
+        mutate();
+        if (latin1 != null) {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                byte b = latin1[i];
+                latin1[i] = latin1[j];
+                latin1[j] = b;
+            }
+        } else {
+            boolean surrogates = false;
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                char c = utf16[i];
+                utf16[i] = utf16[j];
+                utf16[j] = c;
+                surrogates |= Character.isSurrogate(c) || Character.isSurrogate(utf16[i]);
+            }
+            // keep surrogate pairs in their original order, same as StringBuilder
+            if (surrogates) {
+                for (int i = 0; i < count - 1; i++) {
+                    char low = utf16[i];
+                    if (Character.isLowSurrogate(low) && Character.isHighSurrogate(utf16[i + 1])) {
+                        utf16[i] = utf16[i + 1];
+                        utf16[i + 1] = low;
+                        i++;
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Shrink the storage to the current length and switch back to one byte per character when possible
+     * @param compact If true convert UTF-16 storage holding only Latin-1 characters back to bytes
+     */
+    void trimToSize(boolean compact) {
+        if (frozen)
+            return;
+        if (compact && utf16 != null) {
+            boolean fits = true;
+            for (int i = 0; i < count && fits; i++)
+                fits = isLatin1(utf16[i]);
+            if (fits) {
+                byte[] bytes = new byte[count];
+                for (int i = 0; i < count; i++)
+                    bytes[i] = (byte) utf16[i];
+                latin1 = bytes;
+                utf16 = null;
+                return;
+            }
+        }
+        if (count < capacity()) {
+            if (latin1 != null)
+                latin1 = Arrays.copyOf(latin1, count);
+            else
+                utf16 = Arrays.copyOf(utf16, count);
+        }
+    }
+
+    /**
+     * Write only the used characters, one byte each when the content is Latin-1
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(count);
+        if (latin1 != null) {
+            out.writeByte(LATIN1);
+            out.write(latin1, 0, count);
+        } else {
+            out.writeByte(UTF16);
+            for (int i = 0; i < count; i++)
+                out.writeChar(utf16[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        count = in.readInt();
+        if (count < 0)
+            throw new java.io.InvalidObjectException("negative length");
+        if (in.readByte() == LATIN1) {
+            latin1 = new byte[count];
+            in.readFully(latin1);
+        } else {
+            utf16 = new char[count];
+            for (int i = 0; i < count; i++)
+                utf16[i] = in.readChar();
+        }
+        if (frozen) {
+            frozen = false;
+            seal();
+        }
+    }
+}
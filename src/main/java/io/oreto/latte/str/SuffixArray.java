@@ -0,0 +1,257 @@
+package io.oreto.latte.str;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Substring search index built once over a snapshot of a string.
+ * Holds a suffix array and its LCP (longest common prefix) array so repeated
+ * contains, count and position queries run in O(m log n) without rescanning the text.
+ */
+public class SuffixArray {
+    // rough per array object header cost used when reporting the memory size
+    private static final int ARRAY_HEADER = 16;
+    // below this size the parallel passes cost more than they save
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Build a suffix array index over the string
+     * @param s The string to index
+     * @return The new SuffixArray
+     */
+    public static SuffixArray of(CharSequence s) {
+        return new SuffixArray(Str.toArray(s), false);
+    }
+
+    /**
+     * Build a suffix array index over the string
+     * @param s The string to index
+     * @param parallel If true the rank and LCP passes of the build are run in parallel
+     * @return The new SuffixArray
+     */
+    public static SuffixArray of(CharSequence s, boolean parallel) {
+        return new SuffixArray(Str.toArray(s), parallel);
+    }
+
+    private final char[] text;
+    private final int[] sa;
+    private final int[] lcp;
+
+    private SuffixArray(char[] text, boolean parallel) {
+        this.text = text;
+        this.sa = build(text, parallel && text.length >= PARALLEL_THRESHOLD);
+        this.lcp = lcp(text, sa);
+    }
+
+    /**
+     * Sort all suffixes by prefix doubling. Each round orders the suffixes by the rank pair (rank[i], rank[i + k])
+     * with a stable counting sort, so the whole build is O(n log n).
+     * @param t The text
+     * @param parallel Run the rank pass in parallel
+     * @return The suffix array
+     */
+    private static int[] build(char[] t, boolean parallel) {
+        int n = t.length;
+        int[] sa = new int[n];
+        if (n == 0)
+            return sa;
+        int[] rank = new int[n];
+        int[] tmp = new int[n];
+        // sized by the largest character rather than the whole char range, so short texts stay cheap
+        char max = 0;
+        for (char c : t) if (c > max) max = c;
+        int[] count = new int[Math.max(n, max + 1) + 1];
+
+        // initial order by the first character
+        for (char c : t) count[c + 1]++;
+        for (int i = 1; i < count.length; i++) count[i] += count[i - 1];
+        for (int i = 0; i < n; i++) sa[count[t[i]]++] = i;
+        rank[sa[0]] = 0;
+        for (int i = 1; i < n; i++)
+            rank[sa[i]] = rank[sa[i - 1]] + (t[sa[i]] != t[sa[i - 1]] ? 1 : 0);
+
+        for (int k = 1; rank[sa[n - 1]] < n - 1; k <<= 1) {
+            // order by second key: suffixes without a partner at i + k come first
+            int j = 0;
+            for (int i = n - k; i < n; i++) tmp[j++] = i;
+            for (int i = 0; i < n; i++) if (sa[i] >= k) tmp[j++] = sa[i] - k;
+
+            // stable counting sort on the first key
+            int buckets = rank[sa[n - 1]] + 2;
+            Arrays.fill(count, 0, buckets, 0);
+            for (int i = 0; i < n; i++) count[rank[i] + 1]++;
+            for (int i = 1; i < buckets; i++) count[i] += count[i - 1];
+            for (int i = 0; i < n; i++) {
+                int s = tmp[i];
+                sa[count[rank[s]]++] = s;
+            }
+            rerank(sa, rank, tmp, k, parallel);
+        }
+        return sa;
+    }
+
+    private static void rerank(int[] sa, int[] rank, int[] tmp, int k, boolean parallel) {
+        int n = sa.length;
+        // tmp[i] = 1 where the pair at sa[i] differs from the pair at sa[i - 1]
+        IntStream range = IntStream.range(1, n);
+        (parallel ? range.parallel() : range).forEach(i -> {
+            int a = sa[i - 1], b = sa[i];
+            int a2 = a + k < n ? rank[a + k] : -1;
+            int b2 = b + k < n ? rank[b + k] : -1;
+            tmp[i] = rank[a] != rank[b] || a2 != b2 ? 1 : 0;
+        });
+        tmp[0] = 0;
+        if (parallel)
+            Arrays.parallelPrefix(tmp, Integer::sum);
+        else
+            for (int i = 1; i < n; i++) tmp[i] += tmp[i - 1];
+
+        range = IntStream.range(0, n);
+        (parallel ? range.parallel() : range).forEach(i -> rank[sa[i]] = tmp[i]);
+    }
+
+    /**
+     * Kasai's linear time LCP construction. lcp[i] is the common prefix length of sa[i - 1] and sa[i].
+     */
+    private static int[] lcp(char[] t, int[] sa) {
+        int n = t.length;
+        int[] lcp = new int[n];
+        int[] inverse = new int[n];
+        for (int i = 0; i < n; i++) inverse[sa[i]] = i;
+
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            int r = inverse[i];
+            if (r > 0) {
+                int j = sa[r - 1];
+                while (i + h < n && j + h < n && t[i + h] == t[j + h]) h++;
+                lcp[r] = h;
+                if (h > 0) h--;
+            } else {
+                h = 0;
+            }
+        }
+        return lcp;
+    }
+
+    /**
+     * Compare the suffix at position s against the pattern, starting at offset from
+     * @return Negative when the suffix sorts before the pattern, positive when after,
+     * zero when the pattern is a prefix of the suffix. The matched length is encoded in matched[0].
+     */
+    private int compare(int s, CharSequence p, int from, int[] matched) {
+        int m = p.length();
+        int n = text.length;
+        int i = from;
+        for (; i < m; i++) {
+            if (s + i >= n) {
+                matched[0] = i;
+                return -1;
+            }
+            char a = text[s + i], b = p.charAt(i);
+            if (a != b) {
+                matched[0] = i;
+                return a - b;
+            }
+        }
+        matched[0] = i;
+        return 0;
+    }
+
+    /**
+     * Binary search for the first (lower) or past the last (upper) suffix having the pattern as a prefix.
+     * The common prefix with both search bounds is carried along so characters already matched are not compared again.
+     */
+    private int bound(CharSequence p, boolean upper) {
+        int lo = 0, hi = sa.length;
+        int loMatched = 0, hiMatched = 0;
+        int[] matched = new int[1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(sa[mid], p, Math.min(loMatched, hiMatched), matched);
+            if (c < 0 || (upper && c == 0)) {
+                lo = mid + 1;
+                loMatched = matched[0];
+            } else {
+                hi = mid;
+                hiMatched = matched[0];
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return The length of the indexed text
+     */
+    public int length() {
+        return text.length;
+    }
+
+    /**
+     * Determine if the indexed text contains the search string
+     * @param s The string to search for
+     * @return True if the text contains the search string, false otherwise
+     */
+    public boolean contains(CharSequence s) {
+        if (s.length() == 0)
+            return true;
+        int i = bound(s, false);
+        return i < sa.length && compare(sa[i], s, 0, new int[1]) == 0;
+    }
+
+    /**
+     * Count the occurrences of the search string, overlapping occurrences are included
+     * @param s The string to search for
+     * @return The number of occurrences
+     */
+    public int count(CharSequence s) {
+        return s.length() == 0 ? text.length : bound(s, true) - bound(s, false);
+    }
+
+    /**
+     * Find every position of the search string, overlapping occurrences are included
+     * @param s The string to search for
+     * @return The start indexes of each occurrence in ascending order
+     */
+    public int[] positions(CharSequence s) {
+        if (s.length() == 0)
+            return IntStream.range(0, text.length).toArray();
+        int[] positions = Arrays.copyOfRange(sa, bound(s, false), bound(s, true));
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Find the first position of the search string
+     * @param s The string to search for
+     * @return The index of the first occurrence, -1 if not found
+     */
+    public int indexOf(CharSequence s) {
+        if (s.length() == 0)
+            return 0;
+        int from = bound(s, false), to = bound(s, true);
+        int min = -1;
+        for (int i = from; i < to; i++)
+            if (min == -1 || sa[i] < min) min = sa[i];
+        return min;
+    }
+
+    /**
+     * Find the length of the longest substring which occurs more than once
+     * @return The longest repeated substring length
+     */
+    public int longestRepeat() {
+        int max = 0;
+        for (int l : lcp) max = Math.max(max, l);
+        return max;
+    }
+
+    /**
+     * Approximate heap size of the index, the text copy plus the suffix and LCP arrays
+     * @return The size of the index in bytes
+     */
+    public long memorySize() {
+        return 3L * ARRAY_HEADER + (long) text.length * Character.BYTES
+                + (long) sa.length * Integer.BYTES + (long) lcp.length * Integer.BYTES;
+    }
+}
@@ -2,8 +2,10 @@ package io.oreto.latte.str;
 
 import io.oreto.latte.collections.Lists;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Utility class to name things and represent things as words.
@@ -142,6 +144,76 @@ public class Word {
             ,"switch", "synchronized", "this", "throw", "throws", "transient"
             ,"true", "try", "void", "volatile",	"while", "_"
     };
+    // isReserved answers from this copy, so later changes to reservedWords do not leave the table half updated
+    private static final String[] RESERVED = reservedWords.clone();
+
+    /**
+     * Determine if the string is a Java reserved word
+     * @param s The string to check
+     * @return True if the string is one of the reserved words
+     */
+    public static boolean isReserved(CharSequence s) {
+        return Reserved.contains(s);
+    }
+
+    /**
+     * Perfect hash table of the reserved words. A word is hashed from its length and its first, second and last
+     * characters, the multiplier is searched for once so that every reserved word gets its own slot.
+     * A lookup is then one hash and at most one comparison. Words which no multiplier tried can separate,
+     * such as two words sharing the hashed characters, fall back to a HashSet.
+     */
+    private static final class Reserved {
+        private static final int BITS = 9;
+        private static final int TRIES = 1 << 10;
+        private static final String[] TABLE = new String[1 << BITS];
+        private static final int MULTIPLIER;
+        private static final Set<String> FALLBACK;
+        private static final int MAX_LENGTH = Arrays.stream(RESERVED).mapToInt(String::length).max().orElse(0);
+
+        static {
+            int multiplier = 0x9E3779B1;
+            int tries = 1;
+            while (!fill(multiplier) && tries++ < TRIES)
+                multiplier += 0x3C6EF372;
+            MULTIPLIER = multiplier;
+            FALLBACK = tries > TRIES ? new HashSet<>(Arrays.asList(RESERVED)) : null;
+        }
+
+        private static boolean fill(int multiplier) {
+            Arrays.fill(TABLE, null);
+            for (String word : RESERVED) {
+                if (word.isEmpty())
+                    return false;
+                int slot = slot(word, multiplier);
+                if (TABLE[slot] != null)
+                    return false;
+                TABLE[slot] = word;
+            }
+            return true;
+        }
+
+        private static int slot(CharSequence s, int multiplier) {
+            int len = s.length();
+            int key = len << 24 | s.charAt(0) << 16 | (len > 1 ? s.charAt(1) : 0) << 8 | s.charAt(len - 1);
+            return (key * multiplier) >>> (32 - BITS);
+        }
+
+        private static boolean contains(CharSequence s) {
+            if (FALLBACK != null)
+                return FALLBACK.contains(s.toString());
+            int len = s.length();
+            if (len == 0 || len > MAX_LENGTH)
+                return false;
+            String word = TABLE[slot(s, MULTIPLIER)];
+            if (word == null || word.length() != len)
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (word.charAt(i) != s.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
 
     /**
      * Enum to represent numbers zero through ninety-nine
@@ -177,14 +249,44 @@ public class Word {
         put(TwentyTo90.ninety.num, TwentyTo90.ninety.name());
     }};
 
-    static private final Map<Integer, String> magnitudeToWord = new LinkedHashMap<Integer, String>() {{
-        put(0, "hundred");
-        put(1, "thousand");
-        put(2, "million");
-        put(3, "billion");
-        put(4, "trillion");
-    }};
+    /**
+     * Magnitude of each group of three digits, starting with the ones group
+     */
+    private static final String[] magnitudes = {
+            "", "thousand", "million", "billion", "trillion", "quadrillion", "quintillion"
+            , "sextillion", "septillion", "octillion", "nonillion", "decillion"
+    };
 
+    /**
+     * Words for every group of three digits and the values of the words used to parse numbers
+     */
+    private static final class Numbers {
+        private static final String NEGATIVE = "negative";
+        private static final String HUNDRED = "hundred";
+        private static final String[] GROUPS = new String[1000];
+        private static final Map<String, Integer> VALUES = new HashMap<>();
+
+        static {
+            String[] small = new String[100];
+            for (ZeroTo9 value : ZeroTo9.values()) small[value.num] = value.name();
+            for (TenTo19 value : TenTo19.values()) small[value.num] = value.name();
+            for (TwentyTo90 value : TwentyTo90.values()) {
+                small[value.num] = value.name();
+                for (int o = 1; o < 10; o++)
+                    small[value.num + o] = value.name() + ' ' + small[o];
+            }
+            for (int i = 0; i < 100; i++)
+                GROUPS[i] = small[i];
+            for (int h = 1; h < 10; h++) {
+                String hundreds = small[h] + ' ' + HUNDRED;
+                GROUPS[h * 100] = hundreds;
+                for (int i = 1; i < 100; i++)
+                    GROUPS[h * 100 + i] = hundreds + ' ' + small[i];
+            }
+            for (int i = 0; i < 20; i++) VALUES.put(small[i], i);
+            for (TwentyTo90 value : TwentyTo90.values()) VALUES.put(value.name(), value.num);
+        }
+    }
 
     /**
      * Convert the number enum group to a word representation of the number
@@ -194,75 +296,228 @@ public class Word {
      * @return word representation of the number group
      */
     public static String groupToWord(ZeroTo9 h, ZeroTo9 t, ZeroTo9 o) {
-        if ( (h == null || h.num == 0) && (t == null || t.num == 0) && (o == null || o.num == 0) )
-            return zeroTo99.get(0);
-
-        Str str = Str.of();
-        if (h != null && h.num > 0) {
-            str.add(zeroTo99.get(h.num)).space().add(magnitudeToWord.get(0)).space();
-        }
-        if (t != null && t.num == 1) {
-            str.add(zeroTo99.get(10 + o.num));
-        } else {
-            if (t != null && t.num > 1) {
-                str.add(zeroTo99.get(t.num * 10)).space();
-            }
-            if (o.num > 0) {
-                str.add(zeroTo99.get(o.num));
-            }
-        }
-        return str.trim().toString();
+        return Numbers.GROUPS[(h == null ? 0 : h.num) * 100 + (t == null ? 0 : t.num) * 10 + (o == null ? 0 : o.num)];
     }
 
     /**
      * Convert number string to word representation
-     * @param s Number string
+     * @param s Number string, an optional sign followed by digits
      * @return An optional word if s is a valid number, Optional.empty otherwise
      */
     public static Optional<String> fromNumber(CharSequence s) {
-        if (s.length() == 0) return Optional.empty();
-
-        boolean isNegative;
-        Str number = Str.of(s).trim();
-        Optional<Long> optionalInteger = number.toLong();
-        if (optionalInteger.isPresent()) {
-            if (optionalInteger.get() == 0) return Optional.of(ZeroTo9.zero.name());
-            isNegative = optionalInteger.get() < 0;
-        } else {
+        int from = 0, to = s.length();
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        if (from == to)
+            return Optional.empty();
+        char sign = s.charAt(from);
+        boolean negative = sign == '-';
+        if (negative || sign == '+')
+            from++;
+        if (from == to)
             return Optional.empty();
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return Optional.empty();
         }
-        number.ltrim(new String[]{"-", "+"}).ltrim(ZeroTo9.zero.name());
-        int size = number.length();
-        List<CharSequence> sequences = new ArrayList<>();
-        int batches = size / 3;
-        for (int i = 0; i < batches; i++) {
-            sequences.add(number.subSequence(number.length() - 3, number.length()));
-            number.slice(0, -3, Str.Slice.INCLUDE_EXCLUDE);
+        while (from < to - 1 && s.charAt(from) == '0') from++;
+        if ((to - from + 2) / 3 > magnitudes.length)
+            return Optional.empty();
+        StringBuilder sb = new StringBuilder(32);
+        writeDigits(s, from, to, negative, sb);
+        return Optional.of(sb.toString());
+    }
+
+    /**
+     * Convert the number to its word representation
+     * @param n The number
+     * @return The words, for example negative one hundred twelve
+     */
+    public static String fromNumber(long n) {
+        StringBuilder sb = new StringBuilder(32);
+        try {
+            write(n, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the word representation of the number
+     * @param n The number
+     * @param out Where to write the words
+     * @param <A> The type of Appendable
+     * @return The Appendable
+     * @throws IOException If the Appendable fails
+     */
+    public static <A extends Appendable> A write(long n, A out) throws IOException {
+        if (n == 0)
+            return append(out, Numbers.GROUPS[0]);
+        // groups are taken from the negative value so Long.MIN_VALUE needs no special case
+        long rest = n < 0 ? n : -n;
+        int[] groups = new int[7];
+        int count = 0;
+        while (rest != 0) {
+            groups[count++] = (int) -(rest % 1000);
+            rest /= 1000;
+        }
+        if (n < 0)
+            out.append(Numbers.NEGATIVE);
+        boolean first = n > 0;
+        for (int g = count - 1; g >= 0; g--) {
+            if (groups[g] == 0)
+                continue;
+            if (!first) out.append(' ');
+            first = false;
+            out.append(Numbers.GROUPS[groups[g]]);
+            if (g > 0) out.append(' ').append(magnitudes[g]);
+        }
+        return out;
+    }
+
+    /**
+     * Write the word representation of the number
+     * @param n The number
+     * @param out Where to write the words
+     * @param <A> The type of Appendable
+     * @return The Appendable
+     * @throws IOException If the Appendable fails
+     * @throws IllegalArgumentException If the number is larger than the largest magnitude, decillions
+     */
+    public static <A extends Appendable> A write(BigInteger n, A out) throws IOException {
+        if (n.bitLength() < Long.SIZE)
+            return write(n.longValue(), out);
+        String digits = n.abs().toString();
+        if ((digits.length() + 2) / 3 > magnitudes.length)
+            throw new IllegalArgumentException("number is too large to write in words: " + n);
+        writeDigits(digits, 0, digits.length(), n.signum() < 0, out);
+        return out;
+    }
+
+    private static <A extends Appendable> A append(A out, String s) throws IOException {
+        out.append(s);
+        return out;
+    }
+
+    /**
+     * Write the words for a run of decimal digits without leading zeros, three digits at a time
+     */
+    private static void writeDigits(CharSequence s, int from, int to, boolean negative, Appendable out) {
+        try {
+            int len = to - from;
+            if (len == 1 && s.charAt(from) == '0') {
+                out.append(Numbers.GROUPS[0]);
+                return;
+            }
+            if (negative)
+                out.append(Numbers.NEGATIVE);
+            boolean first = !negative;
+            // the first group holds the leftover digits when the length is not a multiple of three
+            for (int i = from, end = from + (len % 3 == 0 ? 3 : len % 3); i < to; i = end, end += 3) {
+                int group = 0;
+                for (int j = i; j < end; j++)
+                    group = group * 10 + s.charAt(j) - '0';
+                if (group == 0)
+                    continue;
+                if (!first) out.append(' ');
+                first = false;
+                out.append(Numbers.GROUPS[group]);
+                int magnitude = (to - end) / 3;
+                if (magnitude > 0) out.append(' ').append(magnitudes[magnitude]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse the word representation of a number, the reverse of fromNumber.
+     * Words are lower case and separated by spaces or dashes, and is ignored
+     * @param s The words, for example negative one hundred twelve
+     * @return The number, Optional.empty if the words are not a number or do not fit in a long
+     */
+    public static Optional<Long> toNumber(CharSequence s) {
+        long total = 0;
+        int group = -1, lastMagnitude = magnitudes.length;
+        boolean negative = false, any = false, zero = false;
+        for (int i = 0, len = s.length(); i < len; ) {
+            while (i < len && isWordSeparator(s.charAt(i))) i++;
+            int start = i;
+            while (i < len && !isWordSeparator(s.charAt(i))) i++;
+            if (start == i)
+                break;
+            String word = s.subSequence(start, i).toString();
+            Integer value = Numbers.VALUES.get(word);
+            if (zero)
+                return Optional.empty();
+            if (value != null) {
+                if (value == 0) {
+                    if (any || group > -1) return Optional.empty();
+                    zero = true;
+                } else if (group < 0) {
+                    group = value;
+                } else if (group % 100 == 0 || (group % 10 == 0 && group % 100 >= 20 && value < 10)) {
+                    // one hundred twelve, twenty three
+                    group += value;
+                } else {
+                    return Optional.empty();
+                }
+            } else if (word.equals(Numbers.HUNDRED)) {
+                if (group < 1 || group > 9) return Optional.empty();
+                group *= 100;
+            } else if (word.equals(Numbers.NEGATIVE)) {
+                if (negative || any || group > -1) return Optional.empty();
+                negative = true;
+                continue;
+            } else if (word.equals("and")) {
+                continue;
+            } else {
+                int magnitude = magnitude(word);
+                if (magnitude < 0 || magnitude >= lastMagnitude || group < 1 || group > 999)
+                    return Optional.empty();
+                try {
+                    long amount = Math.multiplyExact((long) group, pow1000(magnitude));
+                    total = Math.addExact(total, negative ? -amount : amount);
+                } catch (ArithmeticException e) {
+                    return Optional.empty();
+                }
+                lastMagnitude = magnitude;
+                group = -1;
+            }
+            any = true;
         }
-        int rem = size % 3;
-        if (rem > 0) {
-            sequences.add(number.subSequence(0, rem));
+        if (zero)
+            return Optional.of(0L);
+        if (group > -1) {
+            if (group > 999) return Optional.empty();
+            try {
+                total = Math.addExact(total, negative ? -group : group);
+            } catch (ArithmeticException e) {
+                return Optional.empty();
+            }
+        } else if (!any) {
+            return Optional.empty();
         }
-        Collections.reverse(sequences);
-        List<String> groups = sequences.stream().map(it -> {
-            int len = it.length();
-            return groupToWord(
-                    len > 2 ? ZeroTo9.of(it.subSequence(len - 3, len - 2).toString()) : ZeroTo9.zero
-                    , len > 1 ? ZeroTo9.of(it.subSequence(len - 2, len - 1).toString()) : ZeroTo9.zero
-                    , ZeroTo9.of(it.subSequence(len - 1, len).toString())
-            );
-        }).filter(Objects::nonNull).collect(Collectors.toList());
-
-        int len = groups.size();
-        return Optional.of( (isNegative ? "negative " : Str.EMPTY) +
-                Lists.withIndex(groups).stream()
-                .map(it -> {
-                    int i = (len - it.getIndex() - 1);
-                    return i == 0 ? it.getValue() : String.format("%s %s"
-                        , it.getValue()
-                        , magnitudeToWord.get(i));
-                }).filter(it -> !it.startsWith(ZeroTo9.zero.name())).collect(Collectors.joining(Str.SPACE))
-        );
+        return Optional.of(total);
+    }
+
+    private static boolean isWordSeparator(char c) {
+        return c == ' ' || c == '-' || c == ',' || Character.isWhitespace(c);
+    }
+
+    private static int magnitude(String word) {
+        for (int i = 1; i < magnitudes.length; i++)
+            if (magnitudes[i].equals(word)) return i;
+        return -1;
+    }
+
+    private static long pow1000(int magnitude) {
+        long pow = 1;
+        for (int i = 0; i < magnitude; i++)
+            pow = Math.multiplyExact(pow, 1000L);
+        return pow;
     }
 
     /**
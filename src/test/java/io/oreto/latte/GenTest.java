@@ -47,5 +47,9 @@ public class GenTest {
         field = Reflect.getField(cls, "T1");
         assertTrue(field.isPresent());
         assertEquals("This is a test", field.get().get(null));
+
+        field = Reflect.getField(cls, "QUOTED");
+        assertTrue(field.isPresent());
+        assertEquals("say \"hi\" \\ bye", field.get().get(null));
     }
 }
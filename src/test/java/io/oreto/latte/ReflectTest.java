@@ -1,6 +1,11 @@
 package io.oreto.latte;
 
 import io.oreto.latte.collections.Lists;
+import io.oreto.latte.obj.Accessor;
+import io.oreto.latte.obj.Binder;
+import io.oreto.latte.obj.Change;
+import io.oreto.latte.obj.CopyPlan;
+import io.oreto.latte.obj.PropertyAccess;
 import io.oreto.latte.obj.Reflect;
 import io.oreto.latte.pojos.Address;
 import io.oreto.latte.pojos.Item;
@@ -8,9 +13,20 @@ import io.oreto.latte.pojos.Order;
 import io.oreto.latte.pojos.Person;
 import org.junit.jupiter.api.Test;
 
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ReflectTest {
@@ -46,6 +62,330 @@ public class ReflectTest {
         assertEquals("s2", setter1.getTest());
     }
 
+    @Test
+    void copyPlan() throws ReflectiveOperationException {
+        CopyPlan plan = Reflect.copyPlan(Person.class, Lists.of("name", "address.line"), Reflect.CopyOptions.create());
+        assertEquals(Person.class, plan.type());
+        assertEquals(Lists.of("name", "address"), plan.fields());
+
+        for (int i = 0; i < 3; i++) {
+            Person target = new Person().withName("old").withAddress(new Address().withLine("old line"));
+            Person source = new Person().withId(9L).withName("new " + i).withAddress(new Address().withLine("line " + i));
+            plan.copy(target, source);
+            assertEquals("new " + i, target.getName());
+            assertEquals("line " + i, target.getAddress().getLine());
+            assertEquals(null, target.getId());
+        }
+
+        CopyPlan excluding = Reflect.copyPlan(Setter.class, Lists.of("i"), Reflect.CopyOptions.create().exclusion());
+        Setter setter1 = new SubSetter("s1", 1);
+        excluding.copy(setter1, new SubSetter("s2", 2));
+        assertEquals(1, setter1.getI());
+        assertEquals("s2", setter1.getTest());
+        assertThrows(IllegalArgumentException.class, () -> excluding.copy(new Person(), new Person()));
+    }
+
+    @Test
+    void mergeCollections() throws ReflectiveOperationException {
+        Order target = new Order();
+        Order source = new Order();
+        for (long i = 0; i < 20000; i++) {
+            target.addItem(new Item().withId(i).withName("old"));
+            source.addItem(new Item().withId(i + 10000).withName("new"));
+        }
+        source.addItem(new Item().withName("no id"));
+        Reflect.copy(target, source, Lists.of("items.name"), Reflect.CopyOptions.create().updateCollections().mergeKey("id"));
+        assertEquals(20001, target.getItems().size());
+        assertEquals(10000L, target.getItems().get(0).getId());
+        assertEquals("new", target.getItems().get(0).getName());
+        assertEquals(null, target.getItems().get(20000).getId());
+
+        Person person1 = new Person().addNickName("a", "b", "c");
+        Person person2 = new Person().addNickName("b", "c", "d", "e");
+        Reflect.copy(person1, person2, Lists.of("nickNames"), Reflect.CopyOptions.create().updateCollections());
+        assertEquals(Lists.of("b", "c", "d", "e"), person1.getNickNames());
+    }
+
+    @Test
+    void bind() throws ReflectiveOperationException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("id", "42");
+        values.put("name", "Ross");
+        values.put("address.line", "1st st");
+        values.put("nickNames", Lists.of("rossSauce", "Rossi"));
+        values.put("orders[0].amount", "12.01");
+        values.put("orders[0].items[1].name", "knife");
+        values.put("orders[1]", new HashMap<String, Object>() {{ put("amount", 3); }});
+        values.put("orders[0].purchasedOn", "2020-01-02T03:04:05");
+
+        Person person = new Person();
+        assertEquals(Lists.of(), Reflect.bind(person, values));
+        assertEquals(42L, person.getId());
+        assertEquals("1st st", person.getAddress().getLine());
+        assertEquals(Lists.of("rossSauce", "Rossi"), person.getNickNames());
+        assertEquals(2, person.getOrders().size());
+        assertEquals(12.01, person.getOrders().get(0).getAmount());
+        assertEquals(LocalDateTime.of(2020, 1, 2, 3, 4, 5), person.getOrders().get(0).getPurchasedOn());
+        assertEquals("knife", person.getOrders().get(0).getItems().get(1).getName());
+        assertEquals(3.0, person.getOrders().get(1).getAmount());
+
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("address", new HashMap<String, Object>() {{ put("line", "2nd st"); put("zip", "x"); }});
+        nested.put("id", "4.5");
+        nested.put("orders[99999]", "x");
+        nested.put("unknown", 1);
+        List<Binder.BindingError> errors = Reflect.binder(Person.class).bind(person, nested);
+        assertEquals("2nd st", person.getAddress().getLine());
+        assertEquals(42L, person.getId());
+        assertEquals(Lists.of("address.zip", "id", "orders[99999]", "unknown")
+                , errors.stream().map(Binder.BindingError::path).sorted().collect(Collectors.toList()));
+
+        Setter setter = new Setter();
+        assertEquals(Lists.of(), Reflect.bind(setter, Collections.singletonMap("i", "7")));
+        assertEquals(7, setter.getI());
+        assertEquals(1, Reflect.bind(setter, Collections.singletonMap("i", "seven")).size());
+        assertEquals(7, setter.getI());
+
+        // fields without a setter, transient fields and underscore fields are never bound
+        Account account = new Account();
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("name", "Ross");
+        request.put("admin", "true");
+        request.put("note", "x");
+        request.put("_secret", "x");
+        request.put("token", "x");
+        errors = Reflect.bind(account, request);
+        assertEquals(Lists.of("_secret", "admin", "note", "token")
+                , errors.stream().map(Binder.BindingError::path).sorted().collect(Collectors.toList()));
+        assertEquals("Ross", account.getName());
+        assertFalse(account.isAdmin());
+        assertEquals("t", account.getToken());
+        assertEquals("n", Reflect.accessor(Account.class, "note").get().get(account));
+        assertEquals("s", Reflect.accessor(Account.class, "_secret").get().get(account));
+    }
+
+    @Test
+    void toMap() throws ReflectiveOperationException {
+        Person person = new Person()
+                .withId(1L)
+                .withName("Ross")
+                .withAddress(new Address().withLine("1st st"))
+                .addNickName("rossSauce")
+                .addOrder(new Order().withAmount(2.5).addItem(new Item().withName("knife")));
+
+        Map<String, Object> map = Reflect.toMap(person);
+        assertEquals("Ross", map.get("name"));
+        assertEquals(Lists.of("rossSauce"), map.get("nickNames"));
+        assertEquals("1st st", ((Map<?, ?>) map.get("address")).get("line"));
+        Map<?, ?> order = (Map<?, ?>) ((List<?>) map.get("orders")).get(0);
+        assertEquals(2.5, order.get("amount"));
+        // the order refers back to the person being converted
+        assertFalse(order.containsKey("person"));
+
+        Map<String, Object> shallow = Reflect.toMap(person, 0, Reflect.Allow.none());
+        assertFalse(shallow.containsKey("address"));
+        assertEquals(Lists.of(), shallow.get("orders"));
+
+        Map<String, Object> flat = Reflect.toFlatMap(person);
+        assertEquals("1st st", flat.get("address.line"));
+        assertEquals("rossSauce", flat.get("nickNames[0]"));
+        assertEquals(2.5, flat.get("orders[0].amount"));
+        assertEquals("knife", flat.get("orders[0].items[0].name"));
+        assertFalse(flat.containsKey("orders[0].person.name"));
+
+        Person copy = new Person();
+        assertEquals(Lists.of(), Reflect.bind(copy, flat));
+        assertEquals(person, copy);
+        assertEquals("knife", copy.getOrders().get(0).getItems().get(0).getName());
+    }
+
+    @Test
+    void deepClone() throws ReflectiveOperationException {
+        Person person = new Person()
+                .withId(1L)
+                .withName("Ross")
+                .withAddress(new Address().withLine("1st st"))
+                .addNickName("rossSauce");
+        for (int i = 0; i < 2000; i++)
+            person.addOrder(new Order().withAmount((double) i).addItem(new Item().withName("item " + i)));
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            Person clone = Reflect.deepClone(person, parallel);
+            assertNotSame(person, clone);
+            assertNotSame(person.getAddress(), clone.getAddress());
+            assertNotSame(person.getOrders(), clone.getOrders());
+            assertSame(person.getName(), clone.getName());
+            assertEquals(2000, clone.getOrders().size());
+            // the back reference points at the clone, not the original
+            assertSame(clone, clone.getOrders().get(1999).getPerson());
+            assertEquals("item 1999", clone.getOrders().get(1999).getItems().get(0).getName());
+
+            assertTrue(Reflect.deepEquals(person, clone, parallel));
+            assertEquals(Reflect.deepHash(person, parallel), Reflect.deepHash(clone, parallel));
+            assertEquals(Reflect.deepHash(person), Reflect.deepHash(clone, parallel));
+
+            clone.getOrders().get(1000).getItems().get(0).withName("changed");
+            assertFalse(Reflect.deepEquals(person, clone, parallel));
+            assertNotEquals(Reflect.deepHash(person, parallel), Reflect.deepHash(clone, parallel));
+        }
+
+        // equal but distinct objects are both copied
+        Address address1 = new Address().withLine("same");
+        Address address2 = new Address().withLine("same");
+        List<Address> addresses = Reflect.deepClone(new ArrayList<>(Lists.of(address1, address2, address1)));
+        assertNotSame(addresses.get(0), addresses.get(1));
+        assertSame(addresses.get(0), addresses.get(2));
+
+        // set elements which are equal but not deep equal make the sets differ
+        Set<Order> knives = new HashSet<>(Lists.of(new Order().withAmount(1.0).addItem(new Item().withName("knife"))));
+        Set<Order> forks = new HashSet<>(Lists.of(new Order().withAmount(1.0).addItem(new Item().withName("fork"))));
+        assertEquals(knives, forks);
+        assertFalse(Reflect.deepEquals(knives, forks));
+        assertNotEquals(Reflect.deepHash(knives), Reflect.deepHash(forks));
+
+        // sets after a large graph do not pay for the pairs already compared
+        List<Object> large = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) items.add(new Item().withName("item " + i));
+        for (int i = 0; i < 20_000; i++) names.add("name " + i);
+        large.add(items);
+        large.add(names);
+        assertTrue(Reflect.deepEquals(large, Reflect.deepClone(large)));
+
+        // shared objects are hashed once rather than once per reference
+        Node chain = Node.chain(40);
+        assertEquals(Reflect.deepHash(chain), Reflect.deepHash(Node.chain(40)));
+        assertEquals(Reflect.deepHash(chain), Reflect.deepHash(Reflect.deepClone(chain), true));
+        assertTrue(Reflect.deepEquals(chain, Node.chain(40)));
+        assertNotEquals(Reflect.deepHash(chain), Reflect.deepHash(Node.chain(39)));
+
+        assertThrows(NoSuchMethodException.class, () -> Reflect.deepClone(new SubSetter("s", 1)));
+    }
+
+    @Test
+    void diff() throws ReflectiveOperationException {
+        Person person = new Person()
+                .withId(1L)
+                .withName("Ross")
+                .withAddress(new Address().withLine("1st st"))
+                .addNickName("rossSauce", "Rossi")
+                .addOrder(new Order().withAmount(1.0).addItem(new Item().withName("knife").addAttribute("type", "forged"))
+                        , new Order().withAmount(2.0));
+        assertEquals(Lists.of(), Reflect.diff(person, person));
+        assertEquals(Lists.of(), Reflect.diff(person, Reflect.deepClone(person)));
+
+        Person changed = Reflect.deepClone(person);
+        changed.withName("Ross Oreto").getAddress().withLine("2nd st");
+        changed.getNickNames().remove("Rossi");
+        changed.addNickName("Ross Sea");
+        Item knife = changed.getOrders().get(0).getItems().get(0);
+        knife.addAttribute("type", "stamped");
+        changed.getOrders().get(0).addItem(new Item().withName("fork"));
+        changed.getOrders().remove(1);
+
+        List<Change> changes = Reflect.diff(person, changed);
+        assertEquals(Lists.of(Change.set("name", "Ross Oreto")
+                , Change.remove("nickNames", 1, "Rossi")
+                , Change.add("nickNames", 1, "Ross Sea")
+                , Change.put("orders[0].items[0].attributes", "type", "stamped")
+                , Change.add("orders[0].items", 1, new Item().withName("fork"))
+                , Change.remove("orders", 1, new Order().withAmount(2.0))
+                , Change.set("address.line", "2nd st")), changes);
+
+        Person target = Reflect.deepClone(person);
+        Reflect.patch(target, changes);
+        assertTrue(Reflect.deepEquals(changed, target));
+
+        assertThrows(NoSuchFieldException.class
+                , () -> Reflect.patch(target, Lists.of(Change.set("address.nope", "x"))));
+
+        // inserts in the middle and reorders keep the order of the changed list
+        Person inserted = Reflect.deepClone(person);
+        inserted.getNickNames().add(1, "Ross Sea");
+        assertPatched(person, inserted);
+        Person reordered = Reflect.deepClone(person);
+        Collections.reverse(reordered.getNickNames());
+        Collections.reverse(reordered.getOrders());
+        assertEquals(Lists.of(Change.remove("nickNames", 0, "rossSauce")
+                , Change.add("nickNames", 1, "rossSauce")
+                , Change.remove("orders", 0, person.getOrders().get(0))
+                , Change.add("orders", 1, person.getOrders().get(0))), Reflect.diff(person, reordered));
+        assertPatched(person, reordered);
+        Person shuffled = Reflect.deepClone(person);
+        shuffled.getNickNames().addAll(Lists.of("a", "b", "c"));
+        Collections.swap(shuffled.getNickNames(), 0, 3);
+        shuffled.getNickNames().remove("b");
+        shuffled.getNickNames().add(2, "Rossi");
+        assertPatched(person, shuffled);
+        assertThrows(IllegalArgumentException.class, () -> Reflect.diff(person, new Order()));
+    }
+
+    private static void assertPatched(Object a, Object b) throws ReflectiveOperationException {
+        Object target = Reflect.deepClone(a);
+        Reflect.patch(target, Reflect.diff(a, b));
+        assertTrue(Reflect.deepEquals(b, target));
+    }
+
+    @Test
+    void annotations() throws ReflectiveOperationException {
+        Field name = Reflect.getField(Validated.class, "name").orElseThrow(AssertionError::new);
+        Size size = name.getAnnotation(Size.class);
+        assertEquals(10, Reflect.getAttributeValue(size, "max"));
+        assertEquals(0, Reflect.getAttributeValue(size, "min"));
+        assertThrows(NoSuchElementException.class, () -> Reflect.getAttributeValue(size, "nope"));
+
+        Map<String, Object> attributes = Reflect.getAttributes(name, Size.class).orElseThrow(AssertionError::new);
+        assertEquals(Lists.of("max", "min"), new ArrayList<>(attributes.keySet()));
+        assertSame(attributes, Reflect.getAttributes(name, Size.class).get());
+        assertFalse(Reflect.getAttributes(name, Test.class).isPresent());
+
+        Map<Field, Map<Class<? extends Annotation>, Map<String, Object>>> fields =
+                Reflect.getAnnotatedFields(SubValidated.class);
+        assertEquals(Lists.of("code", "name", "tags")
+                , fields.keySet().stream().map(Field::getName).collect(Collectors.toList()));
+        assertEquals("[a-z]+", fields.get(name).get(Pattern.class).get("value"));
+        assertSame(fields, Reflect.getAnnotatedFields(SubValidated.class));
+
+        Map<Field, Map<String, Object>> sizes = Reflect.getAnnotatedFields(SubValidated.class, Size.class);
+        assertEquals(Lists.of(10, 3), sizes.values().stream().map(it -> it.get("max")).collect(Collectors.toList()));
+    }
+
+    @Test
+    void propertyAccess() throws ReflectiveOperationException {
+        PropertyAccess<Address> access = Reflect.propertyAccess(Address.class).orElseThrow(AssertionError::new);
+        assertEquals(Address.class, access.type());
+        assertEquals(Lists.of("id", "line"), access.names());
+        assertTrue(access.isReadable("line"));
+        assertFalse(access.isWritable("nope"));
+
+        Address address = new Address().withId(1L).withLine("1st st");
+        assertEquals("1st st", access.get(address, "line"));
+        access.set(address, "line", "2nd st");
+        assertEquals("2nd st", address.getLine());
+        assertThrows(NoSuchFieldException.class, () -> access.get(address, "nope"));
+
+        Address copy = new Address();
+        access.copy(copy, address);
+        assertEquals(1L, copy.getId());
+        assertEquals("2nd st", copy.getLine());
+
+        // generated access is used without looking up class metadata
+        long lookups = Reflect.cacheStats().lookups();
+        Reflect.setFieldValue(copy, "line", "3rd st");
+        assertEquals("3rd st", Reflect.getFieldValue(copy, "line"));
+        assertEquals(lookups, Reflect.cacheStats().lookups());
+
+        // transient fields are out of reach by name with or without the generated access
+        assertFalse(access.isReadable("token"));
+        assertFalse(access.isWritable("token"));
+        assertFalse(Reflect.getField(Address.class, "token").isPresent());
+        assertThrows(NoSuchFieldException.class, () -> Reflect.getFieldValue(copy, "token"));
+        assertThrows(NoSuchFieldException.class, () -> Reflect.setFieldValue(copy, "token", "t"));
+
+        assertFalse(Reflect.propertyAccess(Person.class).isPresent());
+    }
+
     @Test
     void adder() throws ReflectiveOperationException {
         Setter setter = new Setter();
@@ -61,6 +401,89 @@ public class ReflectTest {
         assertTrue(Reflect.getRemover("integers", new Setter()).isPresent());
     }
 
+    @Test
+    void metadataCache() throws ReflectiveOperationException {
+        Optional<Field> test = Reflect.getField(SubSetter.class, "test");
+        assertTrue(test.isPresent());
+        assertSame(test.get(), Reflect.getField(SubSetter.class, "test").get());
+        assertFalse(Reflect.getField(SubSetter.class, "nope").isPresent());
+        // transient and underscore fields stay hidden from the by name lookups
+        assertTrue(Reflect.getField(Account.class, "name").isPresent());
+        assertFalse(Reflect.getField(Account.class, "_secret").isPresent());
+        assertFalse(Reflect.getField(Account.class, "token").isPresent());
+        assertFalse(Reflect.getGetter("token", Account.class).isPresent());
+
+        Reflect.CacheStats before = Reflect.cacheStats();
+        assertEquals("getTest", Reflect.getGetter(test.get(), SubSetter.class).get().getName());
+        assertEquals("setTest", Reflect.getSetter("test", SubSetter.class).get().getName());
+        assertEquals("addString", Reflect.getAdder("strings", SubSetter.class).get().getName());
+        assertEquals("removeInteger", Reflect.getRemover("integers", SubSetter.class).get().getName());
+        assertFalse(Reflect.getAdder("test", SubSetter.class).isPresent());
+        Reflect.CacheStats after = Reflect.cacheStats();
+        assertTrue(after.lookups() > before.lookups());
+        assertEquals(after.misses(), before.misses());
+
+        List<Field> fields = Reflect.getAllFields(SubSetter.class);
+        fields.clear();
+        assertEquals(4, Reflect.getAllFields(SubSetter.class).size());
+        assertEquals(2, Reflect.getAllFields(SubSetter.class, Reflect.Allow.none().ignoreFinal()).size());
+
+        assertTrue(Reflect.isPrimitive(String.class));
+        assertTrue(Reflect.isPrimitive(int.class));
+        assertFalse(Reflect.isPrimitive(Setter.class));
+
+        SubSetter setter = new SubSetter("s", 1);
+        Reflect.setFieldValue(setter, "i", 5);
+        assertEquals(5, Reflect.getFieldValue(setter, "i"));
+    }
+
+    @Test
+    void accessor() throws ReflectiveOperationException {
+        Accessor i = Reflect.accessor(SubSetter.class, "i").orElseThrow(AssertionError::new);
+        SubSetter setter = new SubSetter("s", 1);
+        assertEquals(1, i.getInt(setter));
+        i.setInt(setter, 7);
+        assertEquals(7, setter.getI());
+        i.set(setter, 8);
+        assertEquals(8, i.get(setter));
+        assertEquals(8L, i.getLong(setter));
+
+        Accessor hidden = Reflect.accessor(Fields.class, "hidden").orElseThrow(AssertionError::new);
+        Fields fields = new Fields();
+        assertTrue(hidden.isReadable());
+        assertEquals(3L, hidden.getLong(fields));
+        hidden.setLong(fields, 4L);
+        assertEquals(4L, hidden.get(fields));
+
+        Accessor open = Reflect.accessor(Fields.class, "open").orElseThrow(AssertionError::new);
+        open.setDouble(fields, 1.5);
+        assertEquals(1.5, fields.open);
+        Reflect.setFieldValue(fields, "open", 2.5);
+        assertEquals(2.5, Reflect.getFieldValue(fields, "open"));
+
+        Accessor flag = Reflect.accessor(Fields.class, "flag").orElseThrow(AssertionError::new);
+        flag.setBoolean(null, true);
+        assertTrue(flag.getBoolean(fields));
+        flag.setBoolean(null, false);
+
+        Accessor constant = Reflect.accessor(Fields.class, "constant").orElseThrow(AssertionError::new);
+        assertTrue(constant.isReadable());
+        assertFalse(constant.isWritable());
+        assertThrows(NoSuchMethodException.class, () -> constant.set(fields, "x"));
+
+        assertFalse(Reflect.accessor(Fields.class, "nope").isPresent());
+        assertThrows(NoSuchMethodException.class, () -> Reflect.getFieldValue(fields, "hidden"));
+        assertThrows(NoSuchMethodException.class, () -> Reflect.setFieldValue(fields, "hidden", 5L));
+        assertEquals(4L, hidden.get(fields));
+
+        Account account = new Account();
+        assertEquals(false, Reflect.getFieldValue(account, "admin"));
+        assertThrows(NoSuchMethodException.class, () -> Reflect.setFieldValue(account, "admin", true));
+        assertThrows(NoSuchMethodException.class, () -> Reflect.getFieldValue(account, "note"));
+        assertFalse(account.isAdmin());
+        assertSame(i, Reflect.accessor(SubSetter.class, "i").get());
+    }
+
     @Test
     void parameterNames() throws ReflectiveOperationException {
         Map<String, Object> request = new HashMap<String, Object>() {{
@@ -154,6 +577,76 @@ public class ReflectTest {
         }
     }
 
+    public static class Node {
+        private int depth;
+        private Node left;
+        private Node right;
+
+        // each node refers twice to the next one
+        static Node chain(int depth) {
+            Node node = new Node();
+            for (int i = 1; i <= depth; i++) {
+                Node parent = new Node();
+                parent.depth = i;
+                parent.left = parent.right = node;
+                node = parent;
+            }
+            return node;
+        }
+    }
+
+    public static class Fields {
+        static boolean flag;
+        private long hidden = 3;
+        public double open;
+        private final String constant = "c";
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Size {
+        int min() default 0;
+        int max();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Pattern {
+        String value();
+    }
+
+    public static class Validated {
+        @Size(max = 10) @Pattern("[a-z]+")
+        private String name;
+        private int age;
+        @Size(min = 1, max = 3)
+        private List<String> tags;
+    }
+
+    public static class SubValidated extends Validated {
+        @Pattern("\\d+")
+        private String code;
+    }
+
+    public static class Account {
+        private String name;
+        private boolean admin;
+        private String note = "n";
+        private String _secret = "s";
+        private transient String token = "t";
+
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+        public boolean isAdmin() {
+            return admin;
+        }
+        public String getToken() {
+            return token;
+        }
+    }
+
     public static class SubSetter extends Setter {
         public SubSetter(String s1, int i) {
             super(s1, i);
@@ -1,12 +1,37 @@
 package io.oreto.latte;
 
 import io.oreto.latte.num.Num;
+import io.oreto.latte.str.Diff;
+import io.oreto.latte.str.Distance;
+import io.oreto.latte.str.Escape;
+import io.oreto.latte.str.FuzzyIndex;
+import io.oreto.latte.str.Glob;
+import io.oreto.latte.str.GlobSet;
+import io.oreto.latte.str.Hash;
+import io.oreto.latte.str.HashRing;
+import io.oreto.latte.str.Interner;
+import io.oreto.latte.str.Redactor;
+import io.oreto.latte.str.Searcher;
+import io.oreto.latte.str.Slug;
 import io.oreto.latte.str.Str;
+import io.oreto.latte.str.SuffixArray;
+import io.oreto.latte.str.Word;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -318,6 +343,36 @@ public class StrTest {
                         .findAndReplace(new String[]{  "as", "to", "'s" }, "****", -3).toString());
     }
 
+    @Test
+    public void ignoreCase() {
+        Str header = Str.of("Content-Type: Application/JSON; charset=UTF-8");
+        assertTrue(header.startsWithIgnoreCase("content-type"));
+        assertTrue(header.endsWithIgnoreCase("utf-8"));
+        assertFalse(header.endsWithIgnoreCase("x" + header));
+        assertTrue(header.containsIgnoreCase("application/json"));
+        assertFalse(header.containsIgnoreCase("xml"));
+        assertEquals(Optional.of(14), header.indexOfIgnoreCase("APPLICATION"));
+        assertEquals(-1, header.findIgnoreCase("application", 15));
+        assertTrue(Str.of("ÉCOLE").ieq("école"));
+        assertTrue(Str.of("Straße").ieq("STRAßE"));
+        assertFalse(Str.of("abc").ieq("abcd"));
+
+        assertEquals("a cat and a cat", Str.findAndReplaceIgnoreCase("a Dog and a DOG", "dog", "cat"));
+        String clean = "nothing to replace";
+        assertSame(clean, Str.findAndReplaceIgnoreCase(clean, "dog", "cat"));
+        assertEquals("The taxi cab is hEEErEEE"
+                , Str.of("The taxi cab is hErE").findAndReplaceIgnoreCase("E", "EEE", -2).toString());
+        assertEquals("catsicats", Str.of("KEDiked").findAndReplaceIgnoreCase("ked", "cats").toString());
+        assertEquals("Test", Str.of("TeXXst").deleteIgnoreCase("xx").toString());
+
+        String text = Str.random(200).toString();
+        String upper = text.toUpperCase();
+        for (int i = 0; i < text.length(); i += 7) {
+            String needle = text.substring(i, Math.min(text.length(), i + 5));
+            assertEquals(upper.indexOf(needle.toUpperCase()), Str.of(text).findIgnoreCase(needle.toUpperCase(), 0));
+        }
+    }
+
     @Test
     public void delete() {
         assertEquals("thisisatest", Str.of(" this is a test  ").removeWhiteSpace().toString());
@@ -363,6 +418,22 @@ public class StrTest {
 
         assertEquals("what is this about", Str.toWords("What IsThis  -   _About"));
         assertEquals("usr/home/dev/folder/file", Str.toUri(" usr-home_devFolderFile"));
+        assertEquals("cafe/creme/brulee", Str.toUri("Café Crème--Brûlée?"));
+        assertEquals("usr/home", Str.of("usr//home/").toUri().toString());
+
+        assertEquals("creme-brulee", Str.toSlug("Crème Brûlée"));
+        assertEquals("strasse-aero-lodz", Str.toSlug("  Straße  Ærø, Łódź!! "));
+        assertEquals("viet-nam-pho", Str.toSlug("Việt Nam — Phở"));
+        assertEquals("tokyo-2020", Str.toSlug("東京 Tokyo 2020"));
+        assertEquals("", Str.toSlug("¿?¡!"));
+        assertEquals("Hello_World", Slug.of('_').lowerCase(false).slugify("Hello, World"));
+        assertEquals("hello-world", Str.of("Hello World").toSlug().toString());
+        Slug short20 = Slug.DEFAULT.maxLength(20);
+        assertEquals("the-quick-brown-fox", short20.slugify("The quick brown fox jumps"));
+        assertEquals("the-quick-brown", short20.slugify("The quick brown foxes jump"));
+        assertEquals("abcdefghijklmnopqrst", short20.slugify("abcdefghijklmnopqrstuvwxyz"));
+        assertEquals("e", Slug.fold('é'));
+        assertNull(Slug.fold('?'));
 
         assertEquals("_page", Str.toVariableName("*page"));
         assertEquals("__one_", Str.toVariableName("  one "));
@@ -370,6 +441,484 @@ public class StrTest {
         assertEquals("__", Str.toVariableName("_"));
         assertEquals("$t3__", Str.toVariableName("$t3#!"));
         assertEquals("_final", Str.toVariableName("final"));
+        assertEquals("finals", Str.toVariableName("finals"));
+        assertEquals("caf_", Str.toVariableName("café"));
+        assertEquals("smile_", Str.toVariableName("smile😀"));
+        assertEquals("_synchronized", Str.of("synchronized").toVariableName().toString());
+        String legal = "legal_$Name2";
+        assertSame(legal, Str.toVariableName(legal));
+        for (String word : Word.reservedWords) {
+            assertTrue(Word.isReserved(word));
+            assertFalse(Word.isReserved(word + "x"));
+            assertFalse(Str.isVariableName(word));
+        }
+        assertFalse(Word.isReserved(""));
+        // the lookup table keeps its own copy of the reserved words
+        String first = Word.reservedWords[0];
+        try {
+            Word.reservedWords[0] = "unreserved";
+            assertTrue(Word.isReserved(first));
+            assertFalse(Word.isReserved("unreserved"));
+        } finally {
+            Word.reservedWords[0] = first;
+        }
+        assertTrue(Str.isVariableName("$t3"));
+        assertFalse(Str.isVariableName("3t"));
+        assertFalse(Str.isVariableName("a-b"));
+    }
+
+    @Test
+    public void suffixArray() {
+        SuffixArray index = Str.of("banana bandana").index();
+        assertTrue(index.contains("ana"));
+        assertTrue(index.contains("dana"));
+        assertFalse(index.contains("nab"));
+        assertEquals(4, index.count("an"));
+        assertArrayEquals(new int[] { 1, 3, 11 }, index.positions("ana"));
+        assertEquals(1, index.indexOf("ana"));
+        assertEquals(-1, index.indexOf("x"));
+        assertEquals(0, index.count("bananas"));
+        assertTrue(index.memorySize() > 0);
+
+        String text = Str.random(5000).toString() + "abcabcabc";
+        SuffixArray parallel = SuffixArray.of(text, true);
+        for (String s : new String[] { "a", "ab", "abc", "cab", "zz", text.substring(100, 110) }) {
+            int count = 0;
+            for (int i = text.indexOf(s); i > -1; i = text.indexOf(s, i + 1)) count++;
+            assertEquals(count, parallel.count(s));
+            assertEquals(text.indexOf(s), parallel.indexOf(s));
+        }
+        assertEquals(1, SuffixArray.of("\uffff").count("\uffff"));
+
+        // large enough for the parallel rank passes, repeated so it takes many doubling rounds
+        StringBuilder large = new StringBuilder();
+        while (large.length() < (1 << 17))
+            large.append(Str.random(1000)).append("abcabcabc-é-abcabcabc");
+        SuffixArray sequential = SuffixArray.of(large);
+        parallel = SuffixArray.of(large, true);
+        assertEquals(sequential.longestRepeat(), parallel.longestRepeat());
+        for (int i = 0; i < large.length() - 12; i += 997) {
+            String s = large.substring(i, i + 12);
+            assertArrayEquals(sequential.positions(s), parallel.positions(s));
+            assertEquals(large.indexOf(s), parallel.indexOf(s));
+        }
+        assertArrayEquals(sequential.positions("abc-é-a"), parallel.positions("abc-é-a"));
+    }
+
+    @Test
+    public void search() {
+        Str str = Str.of("GET /index.html 200 GET /favicon.ico 404");
+        assertEquals(0, str.find("GET"));
+        assertEquals(20, str.find("GET", 1));
+        assertEquals(20, str.findLast("GET"));
+        assertEquals(-1, str.find("POST"));
+        assertEquals(4, str.find('/'));
+        assertEquals(24, str.findLast('/'));
+        assertEquals(OptionalInt.of(24), str.optionalIndexOf("/favicon"));
+        assertEquals(OptionalInt.empty(), str.optionalLastIndexOf("/robots"));
+        assertEquals(Optional.of(5), str.indexOf("index"));
+        assertTrue(str.contains("favicon.ico"));
+
+        Searcher searcher = Searcher.of("favicon.ico");
+        assertEquals(25, str.find(searcher));
+        assertEquals(25, str.findLast(searcher));
+        assertTrue(str.contains(searcher));
+        assertEquals(2, Searcher.of("GET ").count(str));
+
+        String text = Str.random(3000).toString();
+        for (String s : new String[] { "", "a", "ab", "abc", "abcdefg", text.substring(10, 30), text.substring(2900) }) {
+            Searcher reusable = Searcher.of(s);
+            for (int from : new int[] { -1, 0, 7, 1500, 2999, 3000, 4000 }) {
+                assertEquals(text.indexOf(s, from), Searcher.indexOf(text, s, from));
+                assertEquals(text.indexOf(s, from), reusable.indexOf(Str.of(text), from));
+                assertEquals(text.lastIndexOf(s, from), Searcher.lastIndexOf(text, s, from));
+                assertEquals(text.lastIndexOf(s, from), reusable.lastIndexOf(Str.of(text), from));
+            }
+        }
+    }
+
+    @Test
+    public void compact() throws IOException, ClassNotFoundException {
+        Str str = Str.ofCompact("café ", "latte");
+        assertTrue(str.isCompact());
+        assertEquals("café latte", str.toString());
+        str.preface("iced ").replace("latte", "mocha").capitalize();
+        assertTrue(str.isCompact());
+        assertEquals("Iced café mocha", str.toString());
+
+        str.add(" ☕");
+        assertFalse(str.isCompact());
+        assertEquals("Iced café mocha ☕", str.toString());
+        str.drop(2).compact();
+        assertTrue(str.isCompact());
+        assertEquals("Iced café mocha", str.toString());
+        assertFalse(Str.of("latte").isCompact());
+        assertTrue(Str.of("latte").compact().isCompact());
+        assertEquals("😀ba", Str.ofCompact("ab😀").reverse().toString());
+
+        for (Str s : new Str[] { Str.ofCompact("ascii only"), Str.ofCompact("two bytes ☕"), Str.of("utf-16") }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(s);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                Str copy = (Str) in.readObject();
+                assertEquals(s.toString(), copy.toString());
+                assertEquals(s.isCompact(), copy.isCompact());
+                assertEquals(s.toString() + "!", copy.add("!").toString());
+            }
+        }
+    }
+
+    @Test
+    public void freeze() {
+        Str str = Str.of("latte");
+        String s = str.toString();
+        assertSame(s, str.toString());
+        assertEquals("latte".hashCode(), str.hashCode());
+        str.add("4j");
+        assertEquals("latte4j", str.toString());
+        assertEquals("latte4j".hashCode(), str.hashCode());
+        assertEquals(Str.of("latte4j"), str);
+
+        Str frozen = str.freeze();
+        assertTrue(frozen.isFrozen());
+        assertFalse(str.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertSame(frozen.toString(), frozen.toString());
+        assertTrue(frozen.isAscii());
+        assertTrue(frozen.isCompact());
+        assertFalse(Str.of("café").freeze().isAscii());
+        assertEquals(str, frozen);
+        assertEquals(str.hashCode(), frozen.hashCode());
+        assertNotEquals(Str.of("latte").freeze(), frozen);
+        assertTrue(frozen.ieq("LATTE4J"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add("!"));
+        assertThrows(UnsupportedOperationException.class, frozen::capitalize);
+        assertEquals("latte4j", frozen.toString());
+
+        str.add("!");
+        assertEquals("latte4j", frozen.toString());
+        assertEquals("Latte4j", Str.of(frozen).capitalize().toString());
+    }
+
+    @Test
+    public void intern() {
+        Interner interner = Interner.create(4);
+        String us = interner.intern(new String("US"));
+        assertSame(us, interner.intern(Str.of("U", "S")));
+        assertSame(us, interner.intern(new StringBuilder("US")));
+        assertSame(us, Str.of("US").intern(interner));
+        assertSame(us, interner.get("US"));
+        assertNull(interner.get("CA"));
+        assertEquals(1, interner.size());
+        assertEquals(4, interner.requests());
+        assertEquals(3, interner.hits());
+        assertEquals(0.75, interner.dedupRatio());
+        assertTrue(interner.bytesSaved() > 0);
+        assertSame(Str.of("latte").intern(), Str.of("lat", "te").intern());
+
+        Optional<List<String>> lines = IO.resourceLines(interner, "biostats.csv");
+        assertTrue(lines.isPresent());
+        List<String> again = IO.resourceLines(interner, "biostats.csv").orElse(new ArrayList<>());
+        for (int i = 0; i < again.size(); i++)
+            assertSame(lines.get().get(i), again.get(i));
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertEquals(0, interner.requests());
+    }
+
+    private static int editDistance(String a, String b, boolean transpose) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1
+                        , d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+                if (transpose && i > 1 && j > 1
+                        && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    @Test
+    public void distance() {
+        assertEquals(3, Distance.levenshtein("kitten", "sitting"));
+        assertEquals(3, Distance.levenshtein("ca", "abc"));
+        assertEquals(3, Distance.damerau("ca", "abc"));
+        assertEquals(1, Distance.damerau("latte", "ltate"));
+        assertEquals(2, Distance.levenshtein("latte", "ltate"));
+        assertEquals(2, Distance.levenshtein("kitten", "sitting", 1));
+        assertEquals(5, Distance.levenshtein("", "latte"));
+        assertEquals(3, Str.of("kitten").distance("sitting"));
+
+        java.util.Random random = new java.util.Random(31);
+        String alphabet = "abcé☕";
+        for (int t = 0; t < 500; t++) {
+            char[] a = new char[random.nextInt(t % 5 == 0 ? 150 : 12)];
+            char[] b = new char[random.nextInt(t % 5 == 0 ? 150 : 12)];
+            for (int i = 0; i < a.length; i++) a[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            for (int i = 0; i < b.length; i++) b[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            String s1 = new String(a), s2 = new String(b);
+            int levenshtein = editDistance(s1, s2, false);
+            int damerau = editDistance(s1, s2, true);
+            assertEquals(levenshtein, Distance.levenshtein(s1, s2));
+            assertEquals(damerau, Distance.damerau(s1, s2));
+            assertEquals(Math.min(levenshtein, 4), Distance.levenshtein(s1, s2, 3));
+            assertEquals(Math.min(damerau, 4), Distance.damerau(s1, s2, 3));
+        }
+
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            words.add(Str.random(3 + random.nextInt(5)).toString().toLowerCase());
+        FuzzyIndex index = FuzzyIndex.of(words);
+        assertTrue(index.size() <= words.size());
+        List<String> queries = words.subList(0, 20);
+        List<List<String>> results = index.searchAll(queries, 2);
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            java.util.Set<String> expected = new java.util.HashSet<>();
+            for (String word : words)
+                if (editDistance(query, word, false) <= 2) expected.add(word);
+            assertEquals(expected, new java.util.HashSet<>(results.get(i)));
+            assertEquals(query, results.get(i).get(0));
+        }
+        assertEquals(Arrays.asList("latte", "late", "lattes"), FuzzyIndex.of("mocha", "late", "latte", "lattes").search("latte", 1));
+    }
+
+    @Test
+    public void hash() {
+        assertEquals(0xEF46DB3751D8E999L, Hash.xx64(new byte[0], 0));
+        assertEquals(0x44BC2CF5AD770999L, Hash.xx64("abc".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0x44BC2CF5AD770999L, Hash.xx64Utf8("abc"));
+        long[] fox = Hash.murmur128("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8), 0);
+        assertArrayEquals(new long[] { 0xE34BBC7BBC071B6CL, 0x7A433CA9C49A9347L }, fox);
+
+        String lone = "café \uD800 ☕";
+        assertEquals(Hash.xx64(lone.getBytes(StandardCharsets.UTF_8), 0), Hash.xx64Utf8(lone));
+        // no suffix below starts inside the surrogate pair
+        String text = "😀 café ☕ " + Str.random(200);
+        for (int len = 0; len < text.length(); len += len < 40 ? 1 : 17) {
+            String s = text.substring(text.length() - len);
+            byte[] utf16 = s.getBytes(StandardCharsets.UTF_16LE);
+            assertEquals(Hash.xx64(utf16, 7), Hash.xx64(s, 7));
+            assertEquals(Hash.xx64(utf16, 7), Hash.xx64(Str.of(s), 7));
+            assertEquals(Hash.xx64(utf16, 7), Hash.xx64(("x" + s + "x").toCharArray(), 1, len + 1, 7));
+            assertEquals(Hash.xx64(s.getBytes(StandardCharsets.UTF_8), 7), Hash.xx64Utf8(s, 7));
+            assertArrayEquals(Hash.murmur128(utf16, 7), Hash.murmur128(s, 7));
+            assertArrayEquals(Hash.murmur128(utf16, 7), Hash.murmur128(("x" + s).toCharArray(), 1, len + 1, 7));
+        }
+
+        for (int key = 0; key < 1000; key++) {
+            long hash = Hash.xx64(Integer.toString(key));
+            int bucket = Hash.jump(hash, 10);
+            assertTrue(bucket >= 0 && bucket < 10);
+            int grown = Hash.jump(hash, 11);
+            assertTrue(grown == bucket || grown == 10);
+        }
+
+        HashRing<String> ring = HashRing.of(Arrays.asList("a", "b", "c"));
+        List<String> owners = new ArrayList<>();
+        for (int key = 0; key < 1000; key++)
+            owners.add(ring.get("key" + key));
+        assertTrue(owners.contains("a") && owners.contains("b") && owners.contains("c"));
+        ring.add("d");
+        for (int key = 0; key < 1000; key++) {
+            String owner = ring.get("key" + key);
+            assertTrue(owner.equals(owners.get(key)) || owner.equals("d"));
+        }
+        ring.remove("d");
+        for (int key = 0; key < 1000; key++)
+            assertEquals(owners.get(key), ring.get("key" + key));
+    }
+
+    @Test
+    public void escape() throws IOException {
+        String clean = "nothing to escape";
+        for (Escape escape : Escape.values()) {
+            assertSame(clean, escape.escape(clean));
+            assertSame(clean, escape.unescape(clean));
+        }
+        assertEquals("say \\\"hi\\\"\\n\\t\\\\ \\u0001 café", Escape.JSON.escape("say \"hi\"\n\t\\ \u0001 café"));
+        assertEquals("say \"hi\"\n\t\\ \u0001 café/", Escape.JSON.unescape("say \\\"hi\\\"\\n\\t\\\\ \\u0001 café\\/"));
+        assertEquals("\"a \\\"b\\\" \\\\\"", Escape.JAVA.quote("a \"b\" \\"));
+        assertEquals("\"a \\\"b\\\" \\\\\"", Str.quote("a \"b\" \\", Escape.JAVA));
+        assertEquals("it's A\u0000", Escape.JAVA.unescape("it\\'s \\101\\0"));
+        assertEquals("\"a,b\"", Escape.CSV.escape("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", Escape.CSV.escape("say \"hi\""));
+        assertEquals("\"plain\"", Escape.CSV.quote("plain"));
+        assertEquals("say \"hi\"", Escape.CSV.unescape("\"say \"\"hi\"\"\""));
+        assertEquals("&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt;"
+                , Escape.HTML.escape("<a href=\"x\">Tom & Jerry's</a>"));
+        assertEquals("<a href=\"x\">Tom & Jerry's</a> 😀 &bogus; &amp"
+                , Escape.HTML.unescape("&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt; &#x1F600; &bogus; &amp"));
+        assertEquals("&apos;1 &lt; 2&apos;", Escape.XML.escape("'1 < 2'"));
+        assertEquals("'1 < 2'", Escape.XML.unescape("&apos;1 &lt; 2&#39;"));
+
+        assertEquals("{\"k\": \"v\\\"\"}", Escape.JSON.escape("v\"", Str.of("{\"k\": \"")).add("\"}").toString());
+        assertEquals("x <", Escape.XML.unescape("&lt;", Str.of("x ")).toString());
+        assertEquals("a&amp;b", Escape.HTML.escape("a&b", new StringBuilder()).toString());
+        assertEquals("tab\\t", Str.of("tab\t").escape(Escape.JAVA).toString());
+        assertEquals("tab\t", Str.of("tab\\t").unescape(Escape.JAVA).toString());
+        assertEquals("\"tab\\t\"", Str.of("tab\t").quote(Escape.JSON).toString());
+
+        String text = Str.random(100) + "\"\\\n\t<>&',\r\u0002é☕";
+        for (Escape escape : Escape.values())
+            assertEquals(text, escape.unescape(escape.escape(text)));
+    }
+
+    @Test
+    public void redact() throws IOException {
+        Redactor redactor = Redactor.create();
+        String clean = "nothing to see here, 1234 and joe@ are fine";
+        assertSame(clean, redactor.redact(clean));
+
+        assertEquals("mail [EMAIL], or [EMAIL].", redactor.redact("mail joe.smith@example.com, or jane_doe@mail.example.org."));
+        assertEquals("card **** **** **** 1111 ok", redactor.redact("card 4111 1111 1111 1111 ok"));
+        assertEquals("card ************1111", redactor.redact("card 4111111111111111"));
+        assertEquals("bad 4111 1111 1111 1112", redactor.redact("bad 4111 1111 1111 1112"));
+        assertEquals("key=[TOKEN] end", redactor.redact("key=AKIAIOSFODNN7EXAMPLE12 end"));
+        assertEquals("short abc123", redactor.redact("short abc123"));
+        assertEquals(2L, redactor.counts().get("email"));
+        assertEquals(2L, redactor.counts().get("card"));
+        assertEquals(1L, redactor.counts().get("token"));
+
+        Redactor custom = Redactor.empty().add("email", Redactor.Detector.EMAIL, Redactor.Mask.hash());
+        assertEquals(custom.redact("a@b.com"), custom.redact("a@b.com"));
+        assertNotEquals(custom.redact("a@b.com"), custom.redact("c@b.com"));
+
+        StringBuilder lines = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            lines.append("line ").append(i).append(" user").append(i).append("@example.com 4111-1111-1111-1111\n");
+            expected.append("line ").append(i).append(" [EMAIL] ****-****-****-1111\n");
+        }
+        redactor.reset();
+        StringWriter writer = new StringWriter();
+        assertEquals(4000, redactor.redact(new StringReader(lines.toString()), writer));
+        assertEquals(expected.toString(), writer.toString());
+        assertEquals(2000L, redactor.counts().get("email"));
+
+        StringBuilder sb = new StringBuilder("> ");
+        assertEquals(1, redactor.redact("x@y.io", sb));
+        assertEquals("> [EMAIL]", sb.toString());
+    }
+
+    @Test
+    public void glob() {
+        Glob json = Glob.compile("*.json");
+        assertTrue(json.matches("data.json"));
+        assertTrue(json.matches(".json"));
+        assertFalse(json.matches("dir/data.json"));
+        assertFalse(json.matches("data.jsonx"));
+        assertTrue(Str.of("user-42-admin").matches(Glob.compile("user-??-*")));
+        assertFalse(Str.of("user-4-admin").matches(Glob.compile("user-??-*")));
+        assertTrue(Glob.matches("{a,b}/**", "a/x/y.txt"));
+        assertTrue(Glob.matches("{a,b}/**", "b/"));
+        assertFalse(Glob.matches("{a,b}/**", "c/x"));
+        assertTrue(Glob.matches("src/**/*.java", "src/Main.java"));
+        assertTrue(Glob.matches("src/**/*.java", "src/io/oreto/Main.java"));
+        assertFalse(Glob.matches("src/**/*.java", "src/io/Main.class"));
+        assertTrue(Glob.matches("a/**/b", "a/b"));
+        assertTrue(Glob.matches("a/**/b", "a/x/y/b"));
+        assertFalse(Glob.matches("a/**/b", "a/xb"));
+        assertFalse(Glob.matches("src/**/Foo.java", "src/mainFoo.java"));
+        assertTrue(Glob.matches("**/x.json", "x.json"));
+        assertTrue(Glob.matches("**/x.json", "a/b/x.json"));
+        assertFalse(Glob.matches("**/x.json", "abcx.json"));
+        assertFalse(GlobSet.of("a/**/b").matches("a/xb"));
+        assertTrue(Glob.matches("file[0-9].[!c]*", "file7.txt"));
+        assertFalse(Glob.matches("file[0-9].[!c]*", "file7.csv"));
+        assertTrue(Glob.matches("[]]x", "]x"));
+        assertTrue(Glob.matches("a{b,{c,d}e}f", "adef"));
+        assertFalse(Glob.matches("a{b,{c,d}e}f", "adf"));
+        assertTrue(Glob.matches("\\*literal\\?", "*literal?"));
+        assertFalse(Glob.matches("\\*literal\\?", "xliteral?"));
+        assertTrue(Glob.matches("exact", "exact"));
+        assertTrue(Glob.matches("", ""));
+        assertThrows(IllegalArgumentException.class, () -> Glob.compile("[abc"));
+        assertThrows(IllegalArgumentException.class, () -> Glob.compile("{a,b"));
+
+        // a backtracking matcher takes exponential time here
+        StringBuilder adversarial = new StringBuilder();
+        for (int i = 0; i < 5000; i++) adversarial.append('a');
+        assertFalse(Glob.matches("*a*a*a*a*a*a*a*a*a*a*b", adversarial));
+
+        GlobSet routes = GlobSet.of("/api/users/*", "/api/**", "/static/*.{css,js}", "/health");
+        assertEquals(4, routes.size());
+        assertEquals(0, routes.match("/api/users/42"));
+        assertArrayEquals(new int[] { 0, 1 }, routes.matchAll("/api/users/42"));
+        assertEquals(1, routes.match("/api/orders/1/items"));
+        assertEquals(2, routes.match("/static/app.js"));
+        assertEquals(3, routes.match("/health"));
+        assertEquals(-1, routes.match("/static/app.png"));
+        assertFalse(routes.matches("/other"));
+        assertTrue(Str.of("/static/site.css").matches(routes));
+
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 300; i++) patterns.add("/svc" + i + "/*/item-?");
+        GlobSet many = GlobSet.of(patterns);
+        assertEquals(299, many.match("/svc299/x/item-1"));
+        assertEquals(-1, many.match("/svc300/x/item-1"));
+    }
+
+    private static int lcs(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 1; i <= a.length(); i++)
+            for (int j = 1; j <= b.length(); j++)
+                dp[i][j] = a.charAt(i - 1) == b.charAt(j - 1)
+                        ? dp[i - 1][j - 1] + 1 : Math.max(dp[i - 1][j], dp[i][j - 1]);
+        return dp[a.length()][b.length()];
+    }
+
+    @Test
+    public void diff() throws IOException {
+        Diff chars = Diff.chars("kitten", "sitting");
+        assertEquals("[-k-]{+s+}itt[-e-]{+i+}n{+g+}", chars.toString());
+        assertEquals(5, chars.distance());
+        assertEquals("sitting", chars.apply("kitten"));
+
+        Diff words = Str.of("the quick brown fox").diff("the slow brown cat", Diff.Granularity.WORD);
+        assertEquals("the [-quick-]{+slow+} brown [-fox-]{+cat+}", words.toString());
+        assertEquals(Diff.Op.DELETE, words.edits().get(1).op());
+        assertEquals(4, words.edits().get(1).sourceIndex());
+        assertEquals("quick", words.edits().get(1).text());
+
+        String before = "a\nb\nc\nd\n", after = "a\nc\nd\ne";
+        Diff lines = Diff.lines(before, after);
+        assertEquals(" a\n-b\n c\n d\n+e\n", lines.toString());
+        Str patched = Str.of(before);
+        assertSame(patched, lines.apply(patched));
+        assertEquals(after, patched.toString());
+        assertThrows(IllegalArgumentException.class, () -> lines.apply("too short"));
+        assertTrue(Diff.lines(before, before).isEmpty());
+        assertTrue(Diff.chars("", "").isEmpty());
+        assertEquals("abc", Diff.chars("", "abc").apply(""));
+        assertEquals("", Diff.chars("abc", "").apply("abc"));
+
+        java.util.Random random = new java.util.Random(7);
+        for (int t = 0; t < 300; t++) {
+            StringBuilder a = new StringBuilder(), b = new StringBuilder();
+            for (int i = random.nextInt(40); i > 0; i--) a.append((char) ('a' + random.nextInt(4)));
+            for (int i = random.nextInt(40); i > 0; i--) b.append((char) ('a' + random.nextInt(4)));
+            Diff diff = Diff.chars(a, b);
+            assertEquals(a.length() + b.length() - 2 * lcs(a.toString(), b.toString()), diff.distance());
+            assertEquals(b.toString(), diff.apply(a));
+        }
+
+        StringBuilder big = new StringBuilder(), changed = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            big.append("line ").append(i).append('\n');
+            if (i % 1000 == 0) changed.append("changed ").append(i).append('\n');
+            else if (i % 1000 != 500) changed.append("line ").append(i).append('\n');
+        }
+        Diff streamed = Diff.lines(new StringReader(big.toString()), new StringReader(changed.toString()));
+        assertEquals(150, streamed.distance());
+        assertEquals(changed.toString(), streamed.apply(big));
     }
 
     @Test
@@ -3,9 +3,13 @@ package io.oreto.latte;
 import io.oreto.latte.str.Word;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.math.BigInteger;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class WordTest {
 
@@ -30,5 +34,52 @@ public class WordTest {
         assertEquals(Optional.of("one million one"), Word.fromNumber("1000001"));
         assertEquals(Optional.of("nine million nine hundred ninety nine thousand nine hundred nineteen")
                 , Word.fromNumber("9999919"));
+        assertEquals(Optional.of("one quintillion"), Word.fromNumber("1000000000000000000"));
+        assertEquals(Optional.of("one decillion two"), Word.fromNumber("1000000000000000000000000000000002"));
+        assertEquals(Optional.empty(), Word.fromNumber(BigInteger.TEN.pow(36).toString()));
+        assertEquals(Optional.empty(), Word.fromNumber("12a"));
+        assertEquals(Optional.empty(), Word.fromNumber("  "));
+    }
+
+    @Test
+    public void write() throws IOException {
+        assertEquals("zero", Word.fromNumber(0));
+        assertEquals("negative one hundred twelve", Word.fromNumber(-112));
+        assertEquals("nine quintillion two hundred twenty three quadrillion three hundred seventy two trillion"
+                        + " thirty six billion eight hundred fifty four million seven hundred seventy five thousand eight hundred seven"
+                , Word.fromNumber(Long.MAX_VALUE));
+        assertEquals("negative nine quintillion two hundred twenty three quadrillion three hundred seventy two trillion"
+                        + " thirty six billion eight hundred fifty four million seven hundred seventy five thousand eight hundred eight"
+                , Word.fromNumber(Long.MIN_VALUE));
+        assertEquals("total: one million one", Word.write(1000001, new StringBuilder("total: ")).toString());
+        assertEquals("negative ten sextillion five"
+                , Word.write(new BigInteger("-10000000000000000000005"), new StringBuilder()).toString());
+        assertThrows(IllegalArgumentException.class, () -> Word.write(BigInteger.TEN.pow(40), new StringBuilder()));
+    }
+
+    @Test
+    public void toNumber() {
+        assertEquals(Optional.of(0L), Word.toNumber("zero"));
+        assertEquals(Optional.of(123L), Word.toNumber("one hundred twenty three"));
+        assertEquals(Optional.of(99L), Word.toNumber("ninety-nine"));
+        assertEquals(Optional.of(-100000L), Word.toNumber("negative one hundred thousand"));
+        assertEquals(Optional.of(1000001L), Word.toNumber("one million and one"));
+        assertEquals(Optional.of(Long.MIN_VALUE), Word.toNumber(Word.fromNumber(Long.MIN_VALUE)));
+        assertEquals(Optional.of(Long.MAX_VALUE), Word.toNumber(Word.fromNumber(Long.MAX_VALUE)));
+        assertEquals(Optional.empty(), Word.toNumber("ten quintillion"));
+        assertEquals(Optional.empty(), Word.toNumber("one thousand one million"));
+        assertEquals(Optional.empty(), Word.toNumber("one one"));
+        assertEquals(Optional.empty(), Word.toNumber("twelve hundred"));
+        assertEquals(Optional.empty(), Word.toNumber("zero one"));
+        assertEquals(Optional.empty(), Word.toNumber("negative"));
+        assertEquals(Optional.empty(), Word.toNumber("one banana"));
+        assertEquals(Optional.empty(), Word.toNumber(""));
+
+        Random random = new Random(40);
+        for (int i = 0; i < 10000; i++) {
+            long n = random.nextLong() >> random.nextInt(64);
+            assertEquals(Optional.of(n), Word.toNumber(Word.fromNumber(n)));
+            assertEquals(Word.fromNumber(String.valueOf(n)), Optional.of(Word.fromNumber(n)));
+        }
     }
 }
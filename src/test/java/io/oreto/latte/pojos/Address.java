@@ -1,12 +1,16 @@
 package io.oreto.latte.pojos;
 
+import io.oreto.latte.obj.GenerateAccess;
+
 import java.util.Objects;
 
+@GenerateAccess
 public class Address  {
     private static final long serialVersionUID = 1L;
 
     private Long id;
     private String line;
+    private transient String token;
 
     public Long getId() {
         return id;
@@ -22,6 +26,13 @@ public class Address  {
         this.line = line;
     }
 
+    public String getToken() {
+        return token;
+    }
+    public void setToken(String token) {
+        this.token = token;
+    }
+
     public Address withId(Long id) {
         this.id = id;
         return this;